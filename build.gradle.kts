@@ -136,4 +136,6 @@ dependencies {
     compileOnly(":debugvalue-rider-2022.2.1")
     compileOnly(":database-plugin-2022.2.1")
     compileOnly(":jsr305-2.0.1")
+    testCompileOnly(":jsr305-2.0.1")
+    testImplementation("junit:junit:4.13.2")
 }
@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.intellij.debug;
+
+import com.intellij.openapi.extensions.ExtensionPointName;
+import com.intellij.xdebugger.frame.XValue;
+import org.exbin.framework.bined.objectdata.PageProvider;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.util.concurrent.Executor;
+
+/**
+ * BinEd debugger page provider factory extension point interface.
+ * <p>
+ * Factory provides paged access to binary content of particular types of
+ * debugger values.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public interface DebugPageProviderFactory {
+
+    ExtensionPointName<DebugPageProviderFactory> EP_NAME = ExtensionPointName.create("org.exbin.deltahex.intellij.debugPageProviderFactory");
+
+    /**
+     * Returns name of the view for debug view dialog.
+     *
+     * @return name
+     */
+    @Nonnull
+    String getName();
+
+    /**
+     * Returns true if factory supports given value.
+     * <p>
+     * Method is called from action update and should be fast.
+     *
+     * @param value debugger value
+     * @return true if supported
+     */
+    boolean isApplicable(XValue value);
+
+    /**
+     * Creates page provider for given value.
+     *
+     * @param value debugger value
+     * @return page provider or null if value content is not accessible
+     */
+    @Nullable
+    PageProvider createPageProvider(XValue value);
+
+    /**
+     * Returns identity of the value used for sharing of fetched pages while
+     * debugger stays suspended.
+     *
+     * @param value debugger value
+     * @return identity or null if pages should not be shared
+     */
+    @Nullable
+    default Object getValueIdentity(XValue value) {
+        return null;
+    }
+
+    /**
+     * Returns executor for prefetching of pages.
+     *
+     * @param value debugger value
+     * @return executor or null for no prefetching
+     */
+    @Nullable
+    default Executor getPrefetchExecutor(XValue value) {
+        return null;
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.intellij.debug;
+
+import com.intellij.openapi.extensions.ExtensionPointName;
+import com.intellij.xdebugger.XDebugSession;
+import com.intellij.xdebugger.frame.XValue;
+import com.intellij.xdebugger.impl.ui.tree.nodes.XValueNodeImpl;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.util.List;
+
+/**
+ * BinEd debugger value converter extension point interface.
+ * <p>
+ * Converter provides binary data views for values of particular debugger.
+ * Converters are registered in optional plugin configurations, so only
+ * converters for installed debuggers are loaded.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public interface DebugValueConverter {
+
+    ExtensionPointName<DebugValueConverter> EP_NAME = ExtensionPointName.create("org.exbin.deltahex.intellij.debugValueConverter");
+
+    /**
+     * Returns fully qualified name of supported debugger value class.
+     * <p>
+     * Converter is used for values of given class and its subclasses.
+     *
+     * @return class name
+     */
+    @Nonnull
+    String getValueClassName();
+
+    /**
+     * Returns true if converter supports given value.
+     * <p>
+     * Method is called from action update and should be fast.
+     *
+     * @param value debugger value of supported class
+     * @return true if supported
+     */
+    default boolean isApplicable(XValue value) {
+        return true;
+    }
+
+    /**
+     * Adds data providers available for given debugger tree node.
+     *
+     * @param dataNode debugger tree node with value of supported class
+     * @param initialValue initial value text
+     * @param debugSession current debug session
+     * @param providers list to add providers to
+     */
+    void addProviders(XValueNodeImpl dataNode, @Nullable String initialValue, @Nullable XDebugSession debugSession, List<DebugViewDataProvider> providers);
+}
@@ -15,11 +15,19 @@
  */
 package org.exbin.bined.intellij.debug;
 
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ModalityState;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.Task;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.ui.DialogWrapper;
+import com.intellij.openapi.ui.Messages;
 import com.intellij.util.ui.JBUI;
 import com.intellij.util.ui.components.BorderLayoutPanel;
+import com.intellij.xdebugger.XDebugSession;
+import com.intellij.xdebugger.XDebugSessionListener;
 import com.intellij.xdebugger.impl.ui.tree.nodes.XValueNodeImpl;
+import org.exbin.bined.intellij.debug.cache.EditableOverlayBinaryData;
 import org.exbin.bined.intellij.debug.gui.DebugViewPanel;
 import org.exbin.bined.intellij.debug.intellij.XValueNodeConvertor;
 import org.exbin.framework.App;
@@ -32,6 +40,8 @@ import javax.swing.Action;
 import javax.swing.JComponent;
 import java.util.List;
 import java.util.ResourceBundle;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * Debugger value dual page data source.
@@ -47,6 +57,13 @@ public class DebugViewDataDialog extends DialogWrapper {
     private final DebugViewPanel viewPanel;
     private final XValueNodeImpl myDataNode;
     private final XValueNodeConvertor valueNodeConvertor = new XValueNodeConvertor();
+    private final XDebugSession debugSession;
+    private final XDebugSessionListener sessionListener = new XDebugSessionListener() {
+        @Override
+        public void sessionPaused() {
+            ApplicationManager.getApplication().invokeLater(viewPanel::refreshData, ModalityState.any());
+        }
+    };
 
     public DebugViewDataDialog(Project project, @Nullable String initialValue, @Nullable XValueNodeImpl dataNode) {
         super(project, false);
@@ -59,12 +76,18 @@ public class DebugViewDataDialog extends DialogWrapper {
         setCrossClosesWindow(true);
 
         viewPanel = new DebugViewPanel();
+        viewPanel.setContentDataChangedListener(() -> getOKAction().setEnabled(viewPanel.getEditableData() != null));
 
         List<DebugViewDataProvider> debugViewDataProviders = valueNodeConvertor.identifyAvailableProviders(myDataNode, initialValue);
         for (DebugViewDataProvider provider : debugViewDataProviders) {
             viewPanel.addProvider(provider);
         }
 
+        debugSession = XValueNodeConvertor.getDebugSession(myDataNode);
+        if (debugSession != null) {
+            debugSession.addSessionListener(sessionListener);
+        }
+
         init();
     }
 
@@ -79,12 +102,43 @@ public class DebugViewDataDialog extends DialogWrapper {
 
     @Override
     protected void doOKAction() {
-//            if (myDataNode != null) {
-//                DebuggerUIUtil.setTreeNodeValue(myDataNode,
-//                        StringUtil.wrapWithDoubleQuote(DebuggerUtils.translateStringValue(codeArea.getData())),
-//                        errorMessage -> Messages.showErrorDialog(myDataNode.getTree(), errorMessage));
-//            }
-        super.doOKAction();
+        EditableOverlayBinaryData editableData = viewPanel.getEditableData();
+        if (editableData == null || !editableData.isModified()) {
+            super.doOKAction();
+            return;
+        }
+
+        // Only changed ranges are written to debugged process, dialog is closed when written
+        new Task.Modal(project, resourceBundle.getString("write.title"), false) {
+            @Override
+            public void run(ProgressIndicator indicator) {
+                indicator.setIndeterminate(false);
+                editableData.writeChanges(indicator::setFraction);
+            }
+
+            @Override
+            public void onSuccess() {
+                if (debugSession != null) {
+                    debugSession.rebuildViews();
+                }
+                DebugViewDataDialog.super.doOKAction();
+            }
+
+            @Override
+            public void onThrowable(Throwable error) {
+                Logger.getLogger(DebugViewDataDialog.class.getName()).log(Level.WARNING, "Unable to store modified data", error);
+                Messages.showErrorDialog(project, String.valueOf(error.getMessage()), resourceBundle.getString("writeFailed.title"));
+            }
+        }.queue();
+    }
+
+    @Override
+    protected void dispose() {
+        if (debugSession != null) {
+            debugSession.removeSessionListener(sessionListener);
+        }
+        viewPanel.dispose();
+        super.dispose();
     }
 
     @Nonnull
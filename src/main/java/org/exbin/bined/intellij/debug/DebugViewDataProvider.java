@@ -27,9 +27,24 @@ import org.exbin.auxiliary.binary_data.BinaryData;
 @ParametersAreNonnullByDefault
 public interface DebugViewDataProvider {
 
+    /**
+     * Returns name of the provider.
+     * <p>
+     * Name can be refined with details found when data are computed.
+     *
+     * @return name
+     */
     @Nonnull
     String getName();
 
+    /**
+     * Returns data of the provider.
+     * <p>
+     * Might be expensive, it's called outside of dispatch thread and can be
+     * cancelled by thread interruption.
+     *
+     * @return binary data
+     */
     @Nonnull
     BinaryData getData();
 }
@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.intellij.debug;
+
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.Messages;
+import org.exbin.auxiliary.binary_data.BinaryData;
+import org.exbin.bined.intellij.debug.cache.AsyncPageBinaryData;
+import org.exbin.bined.intellij.debug.cache.EditableOverlayBinaryData;
+import org.exbin.bined.intellij.debug.cache.PipelinedPageReader;
+import org.exbin.framework.bined.objectdata.PageProviderBinaryData;
+
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Background task exporting debugger value data to file.
+ * <p>
+ * Pages are fetched ahead while previous pages are written, only pages in
+ * flight are kept in memory.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class ExportDebugDataTask extends Task.Backgroundable {
+
+    private final BinaryData data;
+    private final File targetFile;
+    private final String errorTitle;
+
+    public ExportDebugDataTask(@Nullable Project project, String title, String errorTitle, BinaryData data, File targetFile) {
+        super(project, title, true);
+        this.data = data;
+        this.targetFile = targetFile;
+        this.errorTitle = errorTitle;
+    }
+
+    @Override
+    public void run(ProgressIndicator indicator) {
+        indicator.setIndeterminate(false);
+        try (FileChannel channel = FileChannel.open(targetFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            if (data instanceof EditableOverlayBinaryData) {
+                EditableOverlayBinaryData editableData = (EditableOverlayBinaryData) data;
+                exportPages(editableData.getSourceData(), editableData, channel, indicator);
+            } else if (data instanceof AsyncPageBinaryData) {
+                exportPages((AsyncPageBinaryData) data, null, channel, indicator);
+            } else {
+                exportData(channel, indicator);
+            }
+        } catch (IOException ex) {
+            throw new IllegalStateException("Unable to write file " + targetFile.getName(), ex);
+        }
+    }
+
+    private static void exportPages(AsyncPageBinaryData pageData, @Nullable EditableOverlayBinaryData editableData, FileChannel channel, ProgressIndicator indicator) throws IOException {
+        PipelinedPageReader pageReader = new PipelinedPageReader(pageData, PipelinedPageReader.DEFAULT_PAGES_IN_FLIGHT, false);
+        try {
+            while (pageReader.hasNext()) {
+                indicator.checkCanceled();
+                long pageIndex = pageReader.getNextPageIndex();
+                byte[] page = pageReader.next();
+                if (editableData != null) {
+                    page = editableData.getPage(pageIndex, page);
+                }
+                writeFully(channel, page, page.length);
+                indicator.setFraction((double) pageReader.getNextPageIndex() / pageReader.getPagesCount());
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ProcessCanceledException(ex);
+        } finally {
+            pageReader.close();
+        }
+    }
+
+    private void exportData(FileChannel channel, ProgressIndicator indicator) throws IOException {
+        long dataSize = data.getDataSize();
+        byte[] buffer = new byte[PageProviderBinaryData.PAGE_SIZE];
+        for (long position = 0; position < dataSize; position += buffer.length) {
+            indicator.checkCanceled();
+            int length = (int) Math.min(dataSize - position, buffer.length);
+            data.copyToArray(position, buffer, 0, length);
+            writeFully(channel, buffer, length);
+            indicator.setFraction((double) (position + length) / dataSize);
+        }
+    }
+
+    private static void writeFully(FileChannel channel, byte[] data, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(data, 0, length);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    @Override
+    public void onCancel() {
+        deleteTargetFile();
+    }
+
+    @Override
+    public void onThrowable(Throwable error) {
+        Logger.getLogger(ExportDebugDataTask.class.getName()).log(Level.WARNING, "Data export failed", error);
+        deleteTargetFile();
+        Messages.showErrorDialog(getProject(), String.valueOf(error.getMessage()), errorTitle);
+    }
+
+    private void deleteTargetFile() {
+        if (targetFile.exists() && !targetFile.delete()) {
+            Logger.getLogger(ExportDebugDataTask.class.getName()).log(Level.WARNING, "Unable to delete incomplete file {0}", targetFile);
+        }
+    }
+}
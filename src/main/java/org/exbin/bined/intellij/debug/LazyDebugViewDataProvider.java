@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.intellij.debug;
+
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.exbin.auxiliary.binary_data.BinaryData;
+
+import java.util.function.Supplier;
+
+/**
+ * Data source for debugging with data computed on first request.
+ * <p>
+ * Data are not retained if computation fails or is cancelled.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class LazyDebugViewDataProvider implements DebugViewDataProvider {
+
+    private final String name;
+    private final Supplier<BinaryData> dataSupplier;
+    private BinaryData data = null;
+
+    public LazyDebugViewDataProvider(String name, Supplier<BinaryData> dataSupplier) {
+        this.name = name;
+        this.dataSupplier = dataSupplier;
+    }
+
+    @Nonnull
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Nonnull
+    @Override
+    public synchronized BinaryData getData() {
+        if (data == null) {
+            data = dataSupplier.get();
+        }
+        return data;
+    }
+}
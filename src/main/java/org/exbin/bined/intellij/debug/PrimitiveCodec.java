@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.intellij.debug;
+
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Codec for writing primitive values to byte arrays.
+ * <p>
+ * Values are written in bulk through typed views of byte buffer using
+ * selected byte order.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public final class PrimitiveCodec {
+
+    public static final PrimitiveCodec BIG_ENDIAN = new PrimitiveCodec(ByteOrder.BIG_ENDIAN);
+    public static final PrimitiveCodec LITTLE_ENDIAN = new PrimitiveCodec(ByteOrder.LITTLE_ENDIAN);
+
+    private final ByteOrder byteOrder;
+
+    private PrimitiveCodec(ByteOrder byteOrder) {
+        this.byteOrder = byteOrder;
+    }
+
+    @Nonnull
+    public static PrimitiveCodec of(ByteOrder byteOrder) {
+        return byteOrder == ByteOrder.LITTLE_ENDIAN ? LITTLE_ENDIAN : BIG_ENDIAN;
+    }
+
+    @Nonnull
+    public ByteOrder getByteOrder() {
+        return byteOrder;
+    }
+
+    public void putShorts(short[] values, int count, byte[] target, int offset) {
+        wrap(target, offset, count * Short.BYTES).asShortBuffer().put(values, 0, count);
+    }
+
+    public void putChars(char[] values, int count, byte[] target, int offset) {
+        wrap(target, offset, count * Character.BYTES).asCharBuffer().put(values, 0, count);
+    }
+
+    public void putInts(int[] values, int count, byte[] target, int offset) {
+        wrap(target, offset, count * Integer.BYTES).asIntBuffer().put(values, 0, count);
+    }
+
+    public void putLongs(long[] values, int count, byte[] target, int offset) {
+        wrap(target, offset, count * Long.BYTES).asLongBuffer().put(values, 0, count);
+    }
+
+    public void putFloats(float[] values, int count, byte[] target, int offset) {
+        wrap(target, offset, count * Float.BYTES).asFloatBuffer().put(values, 0, count);
+    }
+
+    public void putDoubles(double[] values, int count, byte[] target, int offset) {
+        wrap(target, offset, count * Double.BYTES).asDoubleBuffer().put(values, 0, count);
+    }
+
+    /**
+     * Writes integer value of given byte size.
+     *
+     * @param value value
+     * @param byteSize byte size of value (1, 2, 4 or 8)
+     * @param target target array
+     * @param offset target offset
+     */
+    public void putValue(long value, int byteSize, byte[] target, int offset) {
+        ByteBuffer buffer = wrap(target, offset, byteSize);
+        switch (byteSize) {
+            case Byte.BYTES:
+                buffer.put((byte) value);
+                break;
+            case Short.BYTES:
+                buffer.putShort((short) value);
+                break;
+            case Integer.BYTES:
+                buffer.putInt((int) value);
+                break;
+            case Long.BYTES:
+                buffer.putLong(value);
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported value size " + byteSize);
+        }
+    }
+
+    @Nonnull
+    public byte[] encodeShort(short value) {
+        return wrap(new byte[Short.BYTES], 0, Short.BYTES).putShort(value).array();
+    }
+
+    @Nonnull
+    public byte[] encodeChar(char value) {
+        return wrap(new byte[Character.BYTES], 0, Character.BYTES).putChar(value).array();
+    }
+
+    @Nonnull
+    public byte[] encodeInt(int value) {
+        return wrap(new byte[Integer.BYTES], 0, Integer.BYTES).putInt(value).array();
+    }
+
+    @Nonnull
+    public byte[] encodeLong(long value) {
+        return wrap(new byte[Long.BYTES], 0, Long.BYTES).putLong(value).array();
+    }
+
+    @Nonnull
+    public byte[] encodeFloat(float value) {
+        return wrap(new byte[Float.BYTES], 0, Float.BYTES).putFloat(value).array();
+    }
+
+    @Nonnull
+    public byte[] encodeDouble(double value) {
+        return wrap(new byte[Double.BYTES], 0, Double.BYTES).putDouble(value).array();
+    }
+
+    @Nonnull
+    private ByteBuffer wrap(byte[] target, int offset, int length) {
+        return ByteBuffer.wrap(target, offset, length).order(byteOrder);
+    }
+}
@@ -0,0 +1,466 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.intellij.debug.cache;
+
+import com.intellij.util.concurrency.AppExecutorUtil;
+import org.exbin.auxiliary.binary_data.BinaryData;
+import org.exbin.auxiliary.binary_data.OutOfBoundsException;
+import org.exbin.auxiliary.binary_data.paged.PagedData;
+import org.exbin.framework.bined.objectdata.PageProviderBinaryData;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Binary data fetching pages of page provider asynchronously.
+ * <p>
+ * Reading of data which are not loaded yet returns zeros and schedules page
+ * fetching, listeners are notified when page is available.
+ * <p>
+ * Refreshable data can be refetched when debugger stops again, previously
+ * fetched content is shown until new page is available and changed bytes
+ * are tracked.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class AsyncPageBinaryData implements BinaryData {
+
+    public static final long FETCH_TIMEOUT_MS = 10_000;
+    public static final long RETRY_DELAY_MS = 5_000;
+    private static final int FETCH_THREADS = 2;
+    private static final Executor DEFAULT_FETCH_EXECUTOR = AppExecutorUtil.createBoundedApplicationPoolExecutor("BinEd Debug Page Fetch", FETCH_THREADS);
+    private static final ExecutorService PROVIDER_CALL_EXECUTOR = AppExecutorUtil.getAppExecutorService();
+
+    private final CachedPageProvider pageProvider;
+    private final Executor fetchExecutor;
+    private final Map<Long, CompletableFuture<byte[]>> pendingPages = new ConcurrentHashMap<>();
+    private final Map<Long, Long> failedPages = new ConcurrentHashMap<>();
+    private final List<PageLoadListener> pageLoadListeners = new CopyOnWriteArrayList<>();
+    private boolean refreshable = false;
+    @Nullable
+    private PageCache previousPages = null;
+    private final Map<Long, BitSet> pageChanges = new ConcurrentHashMap<>();
+
+    public AsyncPageBinaryData(CachedPageProvider pageProvider) {
+        this(pageProvider, DEFAULT_FETCH_EXECUTOR);
+    }
+
+    public AsyncPageBinaryData(CachedPageProvider pageProvider, Executor fetchExecutor) {
+        this.pageProvider = pageProvider;
+        this.fetchExecutor = fetchExecutor;
+    }
+
+    @Nonnull
+    public CachedPageProvider getPageProvider() {
+        return pageProvider;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return getDataSize() == 0;
+    }
+
+    @Override
+    public long getDataSize() {
+        return pageProvider.getDocumentSize();
+    }
+
+    @Override
+    public byte getByte(long position) {
+        checkBounds(position, 1);
+        byte[] page = getLoadedPage(position / PageProviderBinaryData.PAGE_SIZE);
+        return page == null ? 0 : page[(int) (position % PageProviderBinaryData.PAGE_SIZE)];
+    }
+
+    /**
+     * Returns true if data on given position are available.
+     *
+     * @param position position
+     * @return true if loaded
+     */
+    public boolean isLoaded(long position) {
+        return pageProvider.getPageCache().contains(position / PageProviderBinaryData.PAGE_SIZE);
+    }
+
+    @Nonnull
+    @Override
+    public BinaryData copy() {
+        return copy(0, getDataSize());
+    }
+
+    @Nonnull
+    @Override
+    public BinaryData copy(long startFrom, long length) {
+        checkBounds(startFrom, length);
+        PagedData result = new PagedData();
+        if (length == 0) {
+            return result;
+        }
+
+        long endPosition = startFrom + length;
+        PipelinedPageReader pageReader = new PipelinedPageReader(this, startFrom / PageProviderBinaryData.PAGE_SIZE,
+                (endPosition + PageProviderBinaryData.PAGE_SIZE - 1) / PageProviderBinaryData.PAGE_SIZE, PipelinedPageReader.DEFAULT_PAGES_IN_FLIGHT, true);
+        try {
+            while (pageReader.hasNext()) {
+                long pageStart = pageReader.getNextPageIndex() * PageProviderBinaryData.PAGE_SIZE;
+                byte[] page = pageReader.next();
+                int pagePosition = (int) Math.max(startFrom - pageStart, 0);
+                int copyLength = (int) Math.min(page.length, endPosition - pageStart) - pagePosition;
+                result.insert(result.getDataSize(), page, pagePosition, copyLength);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Page fetching interrupted", ex);
+        } finally {
+            pageReader.close();
+        }
+        return result;
+    }
+
+    @Override
+    public void copyToArray(long startFrom, byte[] target, int offset, int length) {
+        checkBounds(startFrom, length);
+        long position = startFrom;
+        int targetOffset = offset;
+        int remaining = length;
+        while (remaining > 0) {
+            long pageIndex = position / PageProviderBinaryData.PAGE_SIZE;
+            int pagePosition = (int) (position % PageProviderBinaryData.PAGE_SIZE);
+            int copyLength = Math.min(PageProviderBinaryData.PAGE_SIZE - pagePosition, remaining);
+            byte[] page = getLoadedPage(pageIndex);
+            if (page == null) {
+                Arrays.fill(target, targetOffset, targetOffset + copyLength, (byte) 0);
+            } else {
+                System.arraycopy(page, pagePosition, target, targetOffset, copyLength);
+            }
+            targetOffset += copyLength;
+            position += copyLength;
+            remaining -= copyLength;
+        }
+    }
+
+    @Override
+    public void saveToStream(OutputStream outputStream) throws IOException {
+        PipelinedPageReader pageReader = new PipelinedPageReader(this, PipelinedPageReader.DEFAULT_PAGES_IN_FLIGHT, true);
+        try {
+            while (pageReader.hasNext()) {
+                outputStream.write(pageReader.next());
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Page fetching interrupted", ex);
+        } finally {
+            pageReader.close();
+        }
+    }
+
+    @Nonnull
+    @Override
+    public InputStream getDataInputStream() {
+        return copy().getDataInputStream();
+    }
+
+    @Override
+    public void dispose() {
+        pendingPages.values().forEach(future -> future.cancel(false));
+        pendingPages.clear();
+        pageLoadListeners.clear();
+        PageCache previous;
+        synchronized (this) {
+            previous = previousPages;
+            previousPages = null;
+        }
+        if (previous != null) {
+            previous.clear();
+        }
+        pageChanges.clear();
+    }
+
+    public void addPageLoadListener(PageLoadListener listener) {
+        pageLoadListeners.add(listener);
+    }
+
+    public void removePageLoadListener(PageLoadListener listener) {
+        pageLoadListeners.remove(listener);
+    }
+
+    /**
+     * Returns page if already loaded, otherwise requests page loading.
+     *
+     * @param pageIndex page index
+     * @return page or null if not loaded yet
+     */
+    @Nullable
+    public byte[] getLoadedPage(long pageIndex) {
+        byte[] page = pageProvider.getPageCache().get(pageIndex);
+        if (page == null) {
+            requestPage(pageIndex);
+            PageCache previous = getPreviousPages();
+            page = previous == null ? null : previous.get(pageIndex);
+        }
+        return page;
+    }
+
+    public boolean isRefreshable() {
+        return refreshable;
+    }
+
+    /**
+     * Sets whether data can be refetched when debugger stops again.
+     *
+     * @param refreshable true if data source stays valid across suspend points
+     */
+    public void setRefreshable(boolean refreshable) {
+        this.refreshable = refreshable;
+    }
+
+    /**
+     * Drops fetched pages so that they are fetched again when requested.
+     * <p>
+     * Pages fetched since last refresh are kept as single previous generation
+     * to show data until new pages are available and to detect changed bytes.
+     * Previous pages are held in page cache accounted by cache manager, so
+     * they are evicted with other pages when memory budget is exceeded.
+     */
+    public void refresh() {
+        PageCache pageCache = pageProvider.getPageCache();
+        PageCache previous = new PageCache(pageCache.getCapacity());
+        pageCache.snapshot().forEach(previous::put);
+        PageCache replaced;
+        synchronized (this) {
+            replaced = previousPages;
+            previousPages = previous;
+        }
+        if (replaced != null) {
+            replaced.clear();
+        }
+        pageChanges.clear();
+
+        pendingPages.values().forEach(future -> future.cancel(false));
+        pendingPages.clear();
+        failedPages.clear();
+        pageCache.clear();
+    }
+
+    /**
+     * Returns true if byte on given position changed since last refresh.
+     *
+     * @param position position
+     * @return true if changed
+     */
+    public boolean isChanged(long position) {
+        BitSet changes = getPageChanges(position / PageProviderBinaryData.PAGE_SIZE);
+        return changes != null && changes.get((int) (position % PageProviderBinaryData.PAGE_SIZE));
+    }
+
+    @Nullable
+    private BitSet getPageChanges(long pageIndex) {
+        BitSet changes = pageChanges.get(pageIndex);
+        if (changes != null) {
+            return changes;
+        }
+
+        PageCache previous = getPreviousPages();
+        byte[] previousPage = previous == null ? null : previous.get(pageIndex);
+        if (previousPage == null) {
+            return null;
+        }
+        byte[] page = pageProvider.getPageCache().get(pageIndex);
+        if (page == null) {
+            return null;
+        }
+
+        changes = new BitSet();
+        if (!Arrays.equals(previousPage, page)) {
+            for (int i = 0; i < page.length; i++) {
+                if (i >= previousPage.length || page[i] != previousPage[i]) {
+                    changes.set(i);
+                }
+            }
+        }
+        pageChanges.put(pageIndex, changes);
+        return changes;
+    }
+
+    @Nullable
+    private synchronized PageCache getPreviousPages() {
+        return previousPages;
+    }
+
+    /**
+     * Returns page waiting for it at most for fetch timeout.
+     *
+     * @param pageIndex page index
+     * @return page
+     */
+    @Nonnull
+    public byte[] fetchPage(long pageIndex) {
+        byte[] page = pageProvider.getPageCache().get(pageIndex);
+        if (page != null) {
+            return page;
+        }
+
+        failedPages.remove(pageIndex);
+        CompletableFuture<byte[]> future = requestPage(pageIndex);
+        try {
+            return future.get(FETCH_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Page fetching interrupted", ex);
+        } catch (ExecutionException | TimeoutException ex) {
+            throw new IllegalStateException("Unable to fetch page " + pageIndex, ex);
+        }
+    }
+
+    /**
+     * Requests page without waiting for it.
+     *
+     * @param pageIndex page index
+     * @return future page
+     */
+    @Nonnull
+    public CompletableFuture<byte[]> loadPage(long pageIndex) {
+        byte[] page = pageProvider.getPageCache().get(pageIndex);
+        if (page != null) {
+            return CompletableFuture.completedFuture(page);
+        }
+
+        failedPages.remove(pageIndex);
+        return requestPage(pageIndex);
+    }
+
+    @Nonnull
+    private CompletableFuture<byte[]> requestPage(long pageIndex) {
+        CompletableFuture<byte[]> pendingPage = pendingPages.get(pageIndex);
+        if (pendingPage != null) {
+            return pendingPage;
+        }
+
+        Long failedTime = failedPages.get(pageIndex);
+        if (failedTime != null && System.currentTimeMillis() - failedTime < RETRY_DELAY_MS) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Page fetching recently failed"));
+        }
+
+        CompletableFuture<byte[]> future = new CompletableFuture<>();
+        pendingPage = pendingPages.putIfAbsent(pageIndex, future);
+        if (pendingPage != null) {
+            return pendingPage;
+        }
+
+        future.whenComplete((page, ex) -> {
+            pendingPages.remove(pageIndex);
+            if (ex != null) {
+                failedPages.put(pageIndex, System.currentTimeMillis());
+                Logger.getLogger(AsyncPageBinaryData.class.getName()).log(Level.WARNING, "Unable to fetch page " + pageIndex, ex);
+            } else {
+                failedPages.remove(pageIndex);
+            }
+            notifyPageLoaded(pageIndex);
+        });
+
+        try {
+            fetchExecutor.execute(() -> fetchFromProvider(pageIndex, future));
+        } catch (Exception ex) {
+            future.completeExceptionally(ex);
+        }
+        return future;
+    }
+
+    /**
+     * Fetches page from provider on unbounded pool while fetch thread waits.
+     * <p>
+     * Timeout is measured from the start of provider call. Provider call
+     * which does not finish in time is interrupted and left on the unbounded
+     * pool, so that it does not block following pages.
+     */
+    private void fetchFromProvider(long pageIndex, CompletableFuture<byte[]> future) {
+        if (future.isDone()) {
+            return;
+        }
+
+        Future<?> providerCall = PROVIDER_CALL_EXECUTOR.submit(() -> {
+            try {
+                byte[] page = pageProvider.getPage(pageIndex);
+                if (!future.complete(page)) {
+                    // Page arrived after timeout
+                    notifyPageLoaded(pageIndex);
+                }
+            } catch (Throwable ex) {
+                future.completeExceptionally(ex);
+            }
+        });
+        try {
+            future.get(FETCH_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            providerCall.cancel(true);
+            future.completeExceptionally(ex);
+        } catch (ExecutionException ex) {
+            // Provider call failed
+        } catch (CancellationException ex) {
+            providerCall.cancel(true);
+        } catch (TimeoutException ex) {
+            providerCall.cancel(true);
+            future.completeExceptionally(ex);
+        }
+    }
+
+    private void notifyPageLoaded(long pageIndex) {
+        for (PageLoadListener listener : pageLoadListeners) {
+            listener.pageLoaded(pageIndex);
+        }
+    }
+
+    private void checkBounds(long startFrom, long length) {
+        if (startFrom < 0 || length < 0 || startFrom + length > getDataSize()) {
+            throw new OutOfBoundsException();
+        }
+    }
+
+    /**
+     * Listener for page load completion.
+     */
+    public interface PageLoadListener {
+
+        /**
+         * Page loading finished, successfully or not.
+         *
+         * @param pageIndex page index
+         */
+        void pageLoaded(long pageIndex);
+    }
+}
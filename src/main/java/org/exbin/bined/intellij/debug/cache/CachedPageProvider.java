@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.intellij.debug.cache;
+
+import org.exbin.framework.bined.objectdata.PageProvider;
+import org.exbin.framework.bined.objectdata.PageProviderBinaryData;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Page provider caching pages of another provider.
+ * <p>
+ * When pages are requested sequentially, following pages in the same direction
+ * are fetched ahead using given executor.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class CachedPageProvider implements PageProvider {
+
+    public static final int PREFETCH_PAGES = 2;
+
+    private final PageProvider pageProvider;
+    private final PageCache pageCache;
+    @Nullable
+    private final Executor prefetchExecutor;
+    private final Set<Long> pendingPages = ConcurrentHashMap.newKeySet();
+    private volatile long lastPageIndex = -1;
+
+    public CachedPageProvider(PageProvider pageProvider) {
+        this(pageProvider, new PageCache(), null);
+    }
+
+    public CachedPageProvider(PageProvider pageProvider, PageCache pageCache, @Nullable Executor prefetchExecutor) {
+        this.pageProvider = pageProvider;
+        this.pageCache = pageCache;
+        this.prefetchExecutor = prefetchExecutor;
+    }
+
+    @Nonnull
+    @Override
+    public byte[] getPage(long pageIndex) {
+        byte[] page = pageCache.get(pageIndex);
+        if (page == null) {
+            // Page read before cache is cleared is not stored
+            long generation = pageCache.getGeneration();
+            page = pageProvider.getPage(pageIndex);
+            pageCache.putIfGeneration(generation, pageIndex, page);
+        }
+
+        long previousPageIndex = lastPageIndex;
+        lastPageIndex = pageIndex;
+        if (prefetchExecutor != null && previousPageIndex >= 0) {
+            if (pageIndex == previousPageIndex + 1) {
+                prefetch(pageIndex, 1);
+            } else if (pageIndex == previousPageIndex - 1) {
+                prefetch(pageIndex, -1);
+            }
+        }
+
+        return page;
+    }
+
+    @Override
+    public long getDocumentSize() {
+        return pageProvider.getDocumentSize();
+    }
+
+    @Nonnull
+    public PageProvider getSourcePageProvider() {
+        return pageProvider;
+    }
+
+    @Nonnull
+    public PageCache getPageCache() {
+        return pageCache;
+    }
+
+    private void prefetch(long pageIndex, int direction) {
+        long pagesCount = (getDocumentSize() + PageProviderBinaryData.PAGE_SIZE - 1) / PageProviderBinaryData.PAGE_SIZE;
+        for (int i = 1; i <= PREFETCH_PAGES; i++) {
+            long prefetchPageIndex = pageIndex + i * direction;
+            if (prefetchPageIndex < 0 || prefetchPageIndex >= pagesCount) {
+                break;
+            }
+
+            if (pageCache.contains(prefetchPageIndex) || !pendingPages.add(prefetchPageIndex)) {
+                continue;
+            }
+
+            // Task can be cancelled by executor without running
+            FutureTask<Void> prefetchTask = new FutureTask<Void>(() -> {
+                try {
+                    long generation = pageCache.getGeneration();
+                    if (!pageCache.contains(prefetchPageIndex)) {
+                        pageCache.putIfGeneration(generation, prefetchPageIndex, pageProvider.getPage(prefetchPageIndex));
+                    }
+                } catch (Exception ex) {
+                    Logger.getLogger(CachedPageProvider.class.getName()).log(Level.FINE, "Page prefetch failed", ex);
+                }
+            }, null) {
+                @Override
+                protected void done() {
+                    pendingPages.remove(prefetchPageIndex);
+                }
+            };
+            try {
+                prefetchExecutor.execute(prefetchTask);
+            } catch (RejectedExecutionException ex) {
+                pendingPages.remove(prefetchPageIndex);
+            }
+        }
+    }
+}
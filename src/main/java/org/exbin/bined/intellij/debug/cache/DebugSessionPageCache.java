@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.intellij.debug.cache;
+
+import com.intellij.xdebugger.XDebugSession;
+import com.intellij.xdebugger.XDebugSessionListener;
+import com.intellij.xdebugger.frame.XStackFrame;
+import org.exbin.framework.bined.objectdata.PageProviderBinaryData;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.WeakHashMap;
+
+/**
+ * Cache of fetched data pages valid while debug session stays suspended.
+ * <p>
+ * Page caches are kept per value identity and stack frame and dropped when
+ * session is resumed or stopped. Count of cached values is limited so that
+ * memory budget is not exceeded.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class DebugSessionPageCache implements XDebugSessionListener {
+
+    public static final long MEMORY_BUDGET = 16 * 1024 * 1024;
+    private static final int MAX_VALUES = (int) (MEMORY_BUDGET / ((long) PageCache.DEFAULT_CAPACITY * PageProviderBinaryData.PAGE_SIZE));
+
+    private static final Map<XDebugSession, DebugSessionPageCache> SESSION_CACHES = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final XDebugSession session;
+    private final Map<ValueKey, PageCache> valueCaches = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ValueKey, PageCache> eldest) {
+            return size() > MAX_VALUES;
+        }
+    };
+
+    private DebugSessionPageCache(XDebugSession session) {
+        this.session = session;
+    }
+
+    /**
+     * Returns page cache for value of given debug session.
+     * <p>
+     * New unshared cache is returned when session or value identity is not
+     * known.
+     *
+     * @param session debug session
+     * @param kind kind of data provider
+     * @param valueIdentity identity of value like object id or evaluation expression
+     * @return page cache
+     */
+    @Nonnull
+    public static PageCache getPageCache(@Nullable XDebugSession session, String kind, @Nullable Object valueIdentity) {
+        if (session == null || valueIdentity == null || session.isStopped() || !session.isSuspended()) {
+            return new PageCache();
+        }
+
+        DebugSessionPageCache sessionCache;
+        synchronized (SESSION_CACHES) {
+            sessionCache = SESSION_CACHES.get(session);
+            if (sessionCache == null) {
+                sessionCache = new DebugSessionPageCache(session);
+                SESSION_CACHES.put(session, sessionCache);
+                session.addSessionListener(sessionCache);
+            }
+        }
+
+        XStackFrame stackFrame = session.getCurrentStackFrame();
+        Object frameIdentity = stackFrame == null ? null : stackFrame.getEqualityObject();
+        return sessionCache.getPageCache(new ValueKey(kind, valueIdentity, frameIdentity == null ? stackFrame : frameIdentity));
+    }
+
+    @Nonnull
+    private synchronized PageCache getPageCache(ValueKey valueKey) {
+        return valueCaches.computeIfAbsent(valueKey, key -> new PageCache());
+    }
+
+    /**
+     * Drops cached pages, already opened views keep their own pages.
+     */
+    public synchronized void invalidate() {
+        valueCaches.clear();
+    }
+
+    @Override
+    public void sessionResumed() {
+        invalidate();
+    }
+
+    @Override
+    public void sessionStopped() {
+        invalidate();
+        SESSION_CACHES.remove(session);
+        session.removeSessionListener(this);
+    }
+
+    private static class ValueKey {
+
+        private final String kind;
+        private final Object valueIdentity;
+        private final Object frameIdentity;
+
+        private ValueKey(String kind, Object valueIdentity, @Nullable Object frameIdentity) {
+            this.kind = kind;
+            this.valueIdentity = valueIdentity;
+            this.frameIdentity = frameIdentity;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            ValueKey that = (ValueKey) o;
+            return kind.equals(that.kind) && valueIdentity.equals(that.valueIdentity) && Objects.equals(frameIdentity, that.frameIdentity);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(kind, valueIdentity, frameIdentity);
+        }
+    }
+}
@@ -0,0 +1,421 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.intellij.debug.cache;
+
+import org.exbin.auxiliary.binary_data.BinaryData;
+import org.exbin.auxiliary.binary_data.ByteArrayData;
+import org.exbin.auxiliary.binary_data.EditableBinaryData;
+import org.exbin.auxiliary.binary_data.OutOfBoundsException;
+import org.exbin.framework.bined.objectdata.PageProviderBinaryData;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.DoubleConsumer;
+
+/**
+ * Editable overlay of asynchronously fetched data.
+ * <p>
+ * Only overwriting is supported, modified pages are kept in overlay and only
+ * ranges which differ from fetched data are written back.
+ * <p>
+ * Only pages which are already loaded can be modified, edits of other pages
+ * are ignored and loading of such pages is requested. Modifications are
+ * dropped when data are refreshed.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class EditableOverlayBinaryData implements EditableBinaryData {
+
+    private final AsyncPageBinaryData sourceData;
+    private final int valueByteSize;
+    private final DataWriter dataWriter;
+    private final Map<Long, byte[]> originalPages = new HashMap<>();
+    private final TreeMap<Long, byte[]> modifiedPages = new TreeMap<>();
+
+    /**
+     * Creates editable overlay.
+     *
+     * @param sourceData source data
+     * @param valueByteSize size of value, written ranges are aligned to it
+     * @param dataWriter writer of changed ranges
+     */
+    public EditableOverlayBinaryData(AsyncPageBinaryData sourceData, int valueByteSize, DataWriter dataWriter) {
+        this.sourceData = sourceData;
+        this.valueByteSize = valueByteSize;
+        this.dataWriter = dataWriter;
+    }
+
+    @Nonnull
+    public AsyncPageBinaryData getSourceData() {
+        return sourceData;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return sourceData.isEmpty();
+    }
+
+    @Override
+    public long getDataSize() {
+        return sourceData.getDataSize();
+    }
+
+    @Override
+    public synchronized byte getByte(long position) {
+        byte[] page = modifiedPages.get(position / PageProviderBinaryData.PAGE_SIZE);
+        return page == null ? sourceData.getByte(position) : page[(int) (position % PageProviderBinaryData.PAGE_SIZE)];
+    }
+
+    @Nonnull
+    @Override
+    public BinaryData copy() {
+        return copy(0, getDataSize());
+    }
+
+    @Nonnull
+    @Override
+    public BinaryData copy(long startFrom, long length) {
+        byte[] result = new byte[(int) length];
+        copyToArray(startFrom, result, 0, (int) length);
+        return new ByteArrayData(result);
+    }
+
+    @Override
+    public synchronized void copyToArray(long startFrom, byte[] target, int offset, int length) {
+        checkBounds(startFrom, length);
+        long position = startFrom;
+        int targetOffset = offset;
+        int remaining = length;
+        while (remaining > 0) {
+            long pageIndex = position / PageProviderBinaryData.PAGE_SIZE;
+            int pagePosition = (int) (position % PageProviderBinaryData.PAGE_SIZE);
+            int copyLength = Math.min(PageProviderBinaryData.PAGE_SIZE - pagePosition, remaining);
+            byte[] page = modifiedPages.get(pageIndex);
+            if (page == null) {
+                sourceData.copyToArray(position, target, targetOffset, copyLength);
+            } else {
+                System.arraycopy(page, pagePosition, target, targetOffset, copyLength);
+            }
+            targetOffset += copyLength;
+            position += copyLength;
+            remaining -= copyLength;
+        }
+    }
+
+    @Override
+    public void saveToStream(OutputStream outputStream) throws IOException {
+        long dataSize = getDataSize();
+        long pagesCount = (dataSize + PageProviderBinaryData.PAGE_SIZE - 1) / PageProviderBinaryData.PAGE_SIZE;
+        for (long pageIndex = 0; pageIndex < pagesCount; pageIndex++) {
+            byte[] page;
+            synchronized (this) {
+                page = modifiedPages.get(pageIndex);
+            }
+            outputStream.write(page == null ? sourceData.fetchPage(pageIndex) : page);
+        }
+    }
+
+    @Nonnull
+    @Override
+    public InputStream getDataInputStream() {
+        return copy().getDataInputStream();
+    }
+
+    @Override
+    public synchronized void setByte(long position, byte value) {
+        checkBounds(position, 1);
+        byte[] page = getModifiedPage(position / PageProviderBinaryData.PAGE_SIZE);
+        if (page != null) {
+            page[(int) (position % PageProviderBinaryData.PAGE_SIZE)] = value;
+        }
+    }
+
+    @Override
+    public void replace(long targetPosition, BinaryData replacingData) {
+        replace(targetPosition, replacingData, 0, replacingData.getDataSize());
+    }
+
+    @Override
+    public void replace(long targetPosition, BinaryData replacingData, long startFrom, long length) {
+        checkBounds(targetPosition, length);
+        long offset = 0;
+        while (offset < length) {
+            int chunkLength = (int) Math.min(length - offset, PageProviderBinaryData.PAGE_SIZE);
+            byte[] chunk = new byte[chunkLength];
+            replacingData.copyToArray(startFrom + offset, chunk, 0, chunkLength);
+            replace(targetPosition + offset, chunk, 0, chunkLength);
+            offset += chunkLength;
+        }
+    }
+
+    @Override
+    public void replace(long targetPosition, byte[] replacingData) {
+        replace(targetPosition, replacingData, 0, replacingData.length);
+    }
+
+    @Override
+    public synchronized void replace(long targetPosition, byte[] replacingData, int replacingDataOffset, int length) {
+        checkBounds(targetPosition, length);
+        long position = targetPosition;
+        int sourceOffset = replacingDataOffset;
+        int remaining = length;
+        while (remaining > 0) {
+            int pagePosition = (int) (position % PageProviderBinaryData.PAGE_SIZE);
+            int copyLength = Math.min(PageProviderBinaryData.PAGE_SIZE - pagePosition, remaining);
+            byte[] page = getModifiedPage(position / PageProviderBinaryData.PAGE_SIZE);
+            if (page != null) {
+                System.arraycopy(replacingData, sourceOffset, page, pagePosition, copyLength);
+            }
+            sourceOffset += copyLength;
+            position += copyLength;
+            remaining -= copyLength;
+        }
+    }
+
+    @Override
+    public void fillData(long startFrom, long length) {
+        fillData(startFrom, length, (byte) 0);
+    }
+
+    @Override
+    public void fillData(long startFrom, long length, byte fill) {
+        checkBounds(startFrom, length);
+        for (long position = startFrom; position < startFrom + length; position++) {
+            setByte(position, fill);
+        }
+    }
+
+    @Override
+    public void setDataSize(long size) {
+        if (size != getDataSize()) {
+            throw new UnsupportedOperationException("Data size cannot be changed");
+        }
+    }
+
+    @Override
+    public void insertUninitialized(long startFrom, long length) {
+        throw new UnsupportedOperationException("Data size cannot be changed");
+    }
+
+    @Override
+    public void insert(long startFrom, long length) {
+        throw new UnsupportedOperationException("Data size cannot be changed");
+    }
+
+    @Override
+    public void insert(long startFrom, byte[] insertedData) {
+        throw new UnsupportedOperationException("Data size cannot be changed");
+    }
+
+    @Override
+    public void insert(long startFrom, byte[] insertedData, int insertedDataOffset, int insertedDataLength) {
+        throw new UnsupportedOperationException("Data size cannot be changed");
+    }
+
+    @Override
+    public void insert(long startFrom, BinaryData insertedData) {
+        throw new UnsupportedOperationException("Data size cannot be changed");
+    }
+
+    @Override
+    public void insert(long startFrom, BinaryData insertedData, long insertedDataOffset, long insertedDataLength) {
+        throw new UnsupportedOperationException("Data size cannot be changed");
+    }
+
+    @Override
+    public long insert(long startFrom, InputStream inputStream, long maximumDataSize) throws IOException {
+        throw new UnsupportedOperationException("Data size cannot be changed");
+    }
+
+    @Override
+    public void remove(long startFrom, long length) {
+        throw new UnsupportedOperationException("Data size cannot be changed");
+    }
+
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException("Data size cannot be changed");
+    }
+
+    @Override
+    public void loadFromStream(InputStream inputStream) throws IOException {
+        throw new UnsupportedOperationException("Data size cannot be changed");
+    }
+
+    @Nonnull
+    @Override
+    public OutputStream getDataOutputStream() {
+        throw new UnsupportedOperationException("Data size cannot be changed");
+    }
+
+    @Override
+    public void dispose() {
+        sourceData.dispose();
+    }
+
+    /**
+     * Returns true if data differ from fetched data.
+     *
+     * @return true if modified
+     */
+    public boolean isModified() {
+        return !getChangedRanges().isEmpty();
+    }
+
+    /**
+     * Returns page as shown, either modified page or given page of source
+     * data.
+     *
+     * @param pageIndex page index
+     * @param sourcePage page of source data
+     * @return page data
+     */
+    @Nonnull
+    public synchronized byte[] getPage(long pageIndex, byte[] sourcePage) {
+        byte[] page = modifiedPages.get(pageIndex);
+        return page == null ? sourcePage : page.clone();
+    }
+
+    /**
+     * Drops modifications and refetches source data.
+     */
+    public void refresh() {
+        synchronized (this) {
+            originalPages.clear();
+            modifiedPages.clear();
+        }
+        sourceData.refresh();
+    }
+
+    /**
+     * Writes changed ranges using data writer, each contiguous run of changed
+     * values is written using single request.
+     *
+     * @param progressListener listener of fraction of written ranges
+     */
+    public void writeChanges(DoubleConsumer progressListener) {
+        PageCache pageCache = sourceData.getPageProvider().getPageCache();
+        long generation = pageCache.getGeneration();
+        List<long[]> changedRanges = getChangedRanges();
+        for (int i = 0; i < changedRanges.size(); i++) {
+            long[] range = changedRanges.get(i);
+            byte[] data = new byte[(int) range[1]];
+            copyToArray(range[0], data, 0, data.length);
+            dataWriter.writeData(range[0], data);
+            progressListener.accept((double) (i + 1) / changedRanges.size());
+        }
+
+        // Written pages become fetched content unless data were refreshed meanwhile
+        synchronized (this) {
+            for (Map.Entry<Long, byte[]> entry : modifiedPages.entrySet()) {
+                originalPages.put(entry.getKey(), entry.getValue().clone());
+                pageCache.putIfGeneration(generation, entry.getKey(), entry.getValue().clone());
+            }
+        }
+    }
+
+    /**
+     * Returns ranges of changed data aligned to value size.
+     *
+     * @return list of start position and length pairs
+     */
+    @Nonnull
+    private synchronized List<long[]> getChangedRanges() {
+        List<long[]> ranges = new ArrayList<>();
+        long rangeStart = -1;
+        long rangeEnd = -1;
+        for (Map.Entry<Long, byte[]> entry : modifiedPages.entrySet()) {
+            long pageStart = entry.getKey() * PageProviderBinaryData.PAGE_SIZE;
+            byte[] page = entry.getValue();
+            byte[] originalPage = originalPages.get(entry.getKey());
+            for (int i = 0; i < page.length; i++) {
+                if (page[i] == originalPage[i]) {
+                    continue;
+                }
+
+                long position = pageStart + i;
+                long valueStart = position - position % valueByteSize;
+                if (rangeEnd >= valueStart) {
+                    rangeEnd = Math.max(rangeEnd, valueStart + valueByteSize);
+                    continue;
+                }
+
+                if (rangeStart >= 0) {
+                    ranges.add(new long[]{rangeStart, rangeEnd - rangeStart});
+                }
+                rangeStart = valueStart;
+                rangeEnd = valueStart + valueByteSize;
+            }
+        }
+        if (rangeStart >= 0) {
+            ranges.add(new long[]{rangeStart, Math.min(rangeEnd, getDataSize()) - rangeStart});
+        }
+        return ranges;
+    }
+
+    /**
+     * Returns modified page, creating it from page of current source data.
+     *
+     * @param pageIndex page index
+     * @return page or null if page is not loaded yet
+     */
+    @Nullable
+    private synchronized byte[] getModifiedPage(long pageIndex) {
+        byte[] page = modifiedPages.get(pageIndex);
+        if (page == null) {
+            // Previous generation of pages must not be used as original content
+            byte[] originalPage = sourceData.getPageProvider().getPageCache().get(pageIndex);
+            if (originalPage == null) {
+                sourceData.loadPage(pageIndex);
+                return null;
+            }
+            originalPages.put(pageIndex, originalPage.clone());
+            page = originalPage.clone();
+            modifiedPages.put(pageIndex, page);
+        }
+        return page;
+    }
+
+    private void checkBounds(long startFrom, long length) {
+        if (startFrom < 0 || length < 0 || startFrom + length > getDataSize()) {
+            throw new OutOfBoundsException();
+        }
+    }
+
+    /**
+     * Writer of modified data.
+     */
+    public interface DataWriter {
+
+        /**
+         * Writes data to given position of the source.
+         *
+         * @param position position
+         * @param data data
+         */
+        void writeData(long position, byte[] data);
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.intellij.debug.cache;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Least recently used cache of data pages.
+ * <p>
+ * Memory used by pages is accounted by page cache manager which can evict
+ * pages when shared budget is exceeded.
+ * <p>
+ * Generation of cache is increased when cache is cleared, so that pages read
+ * before clearing can be refused.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class PageCache {
+
+    public static final int DEFAULT_CAPACITY = 64;
+
+    private static final AtomicLong NEXT_CACHE_ID = new AtomicLong();
+
+    private final long cacheId = NEXT_CACHE_ID.getAndIncrement();
+    private final int capacity;
+    @Nullable
+    private final PageCacheManager cacheManager;
+    private final Map<Long, byte[]> pages = new LinkedHashMap<>(16, 0.75f, true);
+    private long generation = 0;
+
+    public PageCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public PageCache(int capacity) {
+        this(capacity, PageCacheManager.getInstance());
+    }
+
+    public PageCache(int capacity, @Nullable PageCacheManager cacheManager) {
+        this.capacity = capacity;
+        this.cacheManager = cacheManager;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    @Nullable
+    public byte[] get(long pageIndex) {
+        byte[] page;
+        synchronized (this) {
+            page = pages.get(pageIndex);
+        }
+        if (cacheManager != null) {
+            if (page != null) {
+                cacheManager.pageHit(this, pageIndex);
+            } else {
+                cacheManager.pageMissed();
+            }
+        }
+        return page;
+    }
+
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    public void put(long pageIndex, byte[] page) {
+        putPage(null, pageIndex, page);
+    }
+
+    /**
+     * Stores page only if cache was not cleared since given generation.
+     *
+     * @param generation generation captured before page was read
+     * @param pageIndex page index
+     * @param page page
+     * @return true if page was stored
+     */
+    public boolean putIfGeneration(long generation, long pageIndex, byte[] page) {
+        return putPage(generation, pageIndex, page);
+    }
+
+    private boolean putPage(@Nullable Long expectedGeneration, long pageIndex, byte[] page) {
+        List<Long> removedPages = new ArrayList<>();
+        synchronized (this) {
+            if (expectedGeneration != null && expectedGeneration != generation) {
+                return false;
+            }
+
+            pages.put(pageIndex, page);
+            Iterator<Long> iterator = pages.keySet().iterator();
+            while (pages.size() > capacity && iterator.hasNext()) {
+                removedPages.add(iterator.next());
+                iterator.remove();
+            }
+        }
+        if (cacheManager != null) {
+            for (Long removedPage : removedPages) {
+                cacheManager.pageRemoved(this, removedPage);
+            }
+            cacheManager.pageAdded(this, pageIndex, page.length);
+        }
+        return true;
+    }
+
+    public synchronized boolean contains(long pageIndex) {
+        return pages.containsKey(pageIndex);
+    }
+
+    /**
+     * Returns copy of currently cached pages.
+     *
+     * @return map of pages per page index
+     */
+    @Nonnull
+    public synchronized Map<Long, byte[]> snapshot() {
+        return new HashMap<>(pages);
+    }
+
+    public void clear() {
+        synchronized (this) {
+            pages.clear();
+            generation++;
+        }
+        if (cacheManager != null) {
+            cacheManager.cacheCleared(this);
+        }
+    }
+
+    long getCacheId() {
+        return cacheId;
+    }
+
+    /**
+     * Removes page evicted by cache manager.
+     *
+     * @param pageIndex page index
+     */
+    synchronized void evict(long pageIndex) {
+        pages.remove(pageIndex);
+    }
+}
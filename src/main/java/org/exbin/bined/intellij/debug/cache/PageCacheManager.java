@@ -0,0 +1,216 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.intellij.debug.cache;
+
+import com.intellij.openapi.util.LowMemoryWatcher;
+
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Manager of memory used by page caches of all open debug views.
+ * <p>
+ * Least recently used pages are evicted across all caches when byte budget
+ * is exceeded, all pages are dropped when IDE is low on memory.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public final class PageCacheManager {
+
+    public static final String MEMORY_BUDGET_PROPERTY = "bined.debug.pageCacheBudget";
+    public static final long DEFAULT_MEMORY_BUDGET = 64L * 1024 * 1024;
+
+    private static PageCacheManager instance = null;
+
+    private final Map<PageKey, Integer> pageSizes = new LinkedHashMap<>(256, 0.75f, true);
+    private final Map<Long, WeakReference<PageCache>> caches = new HashMap<>();
+    private long memoryBudget;
+    private long usedBytes = 0;
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+    @SuppressWarnings({"unused", "FieldCanBeLocal"})
+    private LowMemoryWatcher lowMemoryWatcher = null;
+
+    PageCacheManager(long memoryBudget) {
+        this.memoryBudget = memoryBudget;
+    }
+
+    @Nonnull
+    public static synchronized PageCacheManager getInstance() {
+        if (instance == null) {
+            instance = new PageCacheManager(Long.getLong(MEMORY_BUDGET_PROPERTY, DEFAULT_MEMORY_BUDGET));
+            instance.lowMemoryWatcher = LowMemoryWatcher.register(instance::evictAll);
+        }
+        return instance;
+    }
+
+    public synchronized long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    /**
+     * Sets byte budget for all cached pages.
+     *
+     * @param memoryBudget budget in bytes
+     */
+    public void setMemoryBudget(long memoryBudget) {
+        List<PageKey> evicted;
+        synchronized (this) {
+            this.memoryBudget = memoryBudget;
+            evicted = collectOverBudget();
+        }
+        evictPages(evicted);
+    }
+
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    /**
+     * Drops all cached pages of all caches.
+     */
+    public void evictAll() {
+        List<PageKey> evicted;
+        synchronized (this) {
+            evicted = new ArrayList<>(pageSizes.keySet());
+            pageSizes.clear();
+            usedBytes = 0;
+        }
+        evictPages(evicted);
+    }
+
+    synchronized void pageHit(PageCache pageCache, long pageIndex) {
+        hitCount.incrementAndGet();
+        // Updates access order
+        pageSizes.get(new PageKey(pageCache.getCacheId(), pageIndex));
+    }
+
+    void pageMissed() {
+        missCount.incrementAndGet();
+    }
+
+    void pageAdded(PageCache pageCache, long pageIndex, int pageSize) {
+        List<PageKey> evicted;
+        synchronized (this) {
+            caches.computeIfAbsent(pageCache.getCacheId(), id -> new WeakReference<>(pageCache));
+            Integer previousSize = pageSizes.put(new PageKey(pageCache.getCacheId(), pageIndex), pageSize);
+            usedBytes += pageSize - (previousSize == null ? 0 : previousSize);
+            evicted = collectOverBudget();
+        }
+        evictPages(evicted);
+    }
+
+    synchronized void pageRemoved(PageCache pageCache, long pageIndex) {
+        Integer size = pageSizes.remove(new PageKey(pageCache.getCacheId(), pageIndex));
+        if (size != null) {
+            usedBytes -= size;
+        }
+    }
+
+    synchronized void cacheCleared(PageCache pageCache) {
+        long cacheId = pageCache.getCacheId();
+        Iterator<Map.Entry<PageKey, Integer>> iterator = pageSizes.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<PageKey, Integer> entry = iterator.next();
+            if (entry.getKey().cacheId == cacheId) {
+                usedBytes -= entry.getValue();
+                iterator.remove();
+            }
+        }
+        caches.remove(cacheId);
+    }
+
+    @Nonnull
+    private List<PageKey> collectOverBudget() {
+        List<PageKey> evicted = new ArrayList<>();
+        Iterator<Map.Entry<PageKey, Integer>> iterator = pageSizes.entrySet().iterator();
+        while (usedBytes > memoryBudget && iterator.hasNext()) {
+            Map.Entry<PageKey, Integer> entry = iterator.next();
+            usedBytes -= entry.getValue();
+            iterator.remove();
+            evicted.add(entry.getKey());
+        }
+        return evicted;
+    }
+
+    private void evictPages(List<PageKey> evicted) {
+        for (PageKey pageKey : evicted) {
+            PageCache pageCache;
+            synchronized (this) {
+                WeakReference<PageCache> cacheRef = caches.get(pageKey.cacheId);
+                pageCache = cacheRef == null ? null : cacheRef.get();
+                if (cacheRef != null && pageCache == null) {
+                    caches.remove(pageKey.cacheId);
+                }
+            }
+            if (pageCache != null) {
+                pageCache.evict(pageKey.pageIndex);
+            }
+            evictionCount.incrementAndGet();
+        }
+    }
+
+    private static final class PageKey {
+
+        private final long cacheId;
+        private final long pageIndex;
+
+        private PageKey(long cacheId, long pageIndex) {
+            this.cacheId = cacheId;
+            this.pageIndex = pageIndex;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            PageKey pageKey = (PageKey) o;
+            return cacheId == pageKey.cacheId && pageIndex == pageKey.pageIndex;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(cacheId, pageIndex);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.intellij.debug.cache;
+
+import com.intellij.util.concurrency.AppExecutorUtil;
+import org.exbin.framework.bined.objectdata.PageProvider;
+import org.exbin.framework.bined.objectdata.PageProviderBinaryData;
+
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Sequential reader of pages requesting several following pages ahead.
+ * <p>
+ * Reader either shares pages with page cache of the data or fetches pages
+ * directly from source provider, which keeps only pages in flight in
+ * memory.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class PipelinedPageReader {
+
+    public static final int DEFAULT_PAGES_IN_FLIGHT = 4;
+    private static final Executor DIRECT_FETCH_EXECUTOR = AppExecutorUtil.createBoundedApplicationPoolExecutor("BinEd Debug Page Pipeline", 2);
+
+    private final AsyncPageBinaryData pageData;
+    private final int pagesInFlight;
+    private final boolean useCache;
+    private final long pagesCount;
+    private final Deque<CompletableFuture<byte[]>> pendingPages = new ArrayDeque<>();
+    private long nextPageIndex;
+    private long nextRequestIndex;
+
+    /**
+     * Creates reader.
+     *
+     * @param pageData paged data
+     * @param pagesInFlight number of pages requested ahead
+     * @param useCache true to store fetched pages to page cache
+     */
+    public PipelinedPageReader(AsyncPageBinaryData pageData, int pagesInFlight, boolean useCache) {
+        this(pageData, 0, (pageData.getDataSize() + PageProviderBinaryData.PAGE_SIZE - 1) / PageProviderBinaryData.PAGE_SIZE, pagesInFlight, useCache);
+    }
+
+    /**
+     * Creates reader of range of pages.
+     *
+     * @param pageData paged data
+     * @param firstPageIndex index of first page to read
+     * @param endPageIndex index of page after last page to read
+     * @param pagesInFlight number of pages requested ahead
+     * @param useCache true to store fetched pages to page cache
+     */
+    public PipelinedPageReader(AsyncPageBinaryData pageData, long firstPageIndex, long endPageIndex, int pagesInFlight, boolean useCache) {
+        this.pageData = pageData;
+        this.pagesInFlight = pagesInFlight;
+        this.useCache = useCache;
+        pagesCount = endPageIndex;
+        nextPageIndex = firstPageIndex;
+        nextRequestIndex = firstPageIndex;
+    }
+
+    public boolean hasNext() {
+        return nextPageIndex < pagesCount;
+    }
+
+    public long getNextPageIndex() {
+        return nextPageIndex;
+    }
+
+    public long getPagesCount() {
+        return pagesCount;
+    }
+
+    /**
+     * Returns next page, waiting for it if not available yet.
+     *
+     * @return page data
+     * @throws InterruptedException if waiting was interrupted
+     */
+    @Nonnull
+    public byte[] next() throws InterruptedException {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        while (nextRequestIndex < pagesCount && nextRequestIndex < nextPageIndex + pagesInFlight) {
+            pendingPages.add(requestPage(nextRequestIndex));
+            nextRequestIndex++;
+        }
+
+        long pageIndex = nextPageIndex;
+        nextPageIndex++;
+        try {
+            return pendingPages.remove().get();
+        } catch (ExecutionException ex) {
+            // Queued request might time out, try again directly
+            return useCache ? pageData.fetchPage(pageIndex) : pageData.getPageProvider().getSourcePageProvider().getPage(pageIndex);
+        }
+    }
+
+    /**
+     * Cancels pages requested ahead.
+     */
+    public void close() {
+        pendingPages.forEach(future -> future.cancel(false));
+        pendingPages.clear();
+    }
+
+    @Nonnull
+    private CompletableFuture<byte[]> requestPage(long pageIndex) {
+        if (useCache) {
+            return pageData.loadPage(pageIndex);
+        }
+
+        byte[] page = pageData.getPageProvider().getPageCache().get(pageIndex);
+        if (page != null) {
+            return CompletableFuture.completedFuture(page);
+        }
+
+        PageProvider sourceProvider = pageData.getPageProvider().getSourcePageProvider();
+        return CompletableFuture.supplyAsync(() -> sourceProvider.getPage(pageIndex), DIRECT_FETCH_EXECUTOR);
+    }
+}
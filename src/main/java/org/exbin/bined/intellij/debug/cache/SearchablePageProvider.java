@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.intellij.debug.cache;
+
+import org.exbin.framework.bined.objectdata.PageProvider;
+
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+/**
+ * Page provider able to search data directly in the source.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public interface SearchablePageProvider extends PageProvider {
+
+    /**
+     * Returns true if searching in source is available.
+     *
+     * @return true if supported
+     */
+    boolean isSearchSupported();
+
+    /**
+     * Finds batch of next occurrences of given pattern.
+     *
+     * @param pattern searched bytes
+     * @param fromPosition position to search from
+     * @param maxMatches maximum number of returned matches
+     * @return ascending positions of matches, less than maximum number of
+     * matches is returned only if there is no further match
+     */
+    @Nonnull
+    long[] findMatches(byte[] pattern, long fromPosition, int maxMatches);
+}
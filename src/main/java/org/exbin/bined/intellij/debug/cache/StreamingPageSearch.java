@@ -0,0 +1,209 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.intellij.debug.cache;
+
+import org.exbin.auxiliary.binary_data.BinaryData;
+import org.exbin.framework.bined.objectdata.PageProvider;
+import org.exbin.framework.bined.objectdata.PageProviderBinaryData;
+
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+/**
+ * Search of byte pattern in data fetched by pages.
+ * <p>
+ * Search is performed in source when supported, otherwise several pages
+ * are requested ahead and scanned as they arrive. Matches are reported as
+ * soon as they are found.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class StreamingPageSearch {
+
+    public static final int MAX_MATCHES = 10_000;
+    public static final int SOURCE_MATCHES_BATCH = 1_000;
+
+    private final BinaryData data;
+    private final byte[] pattern;
+    private final MatchListener matchListener;
+    private volatile boolean cancelled = false;
+    private int matchesCount = 0;
+
+    public StreamingPageSearch(BinaryData data, byte[] pattern, MatchListener matchListener) {
+        this.data = data;
+        this.pattern = pattern;
+        this.matchListener = matchListener;
+    }
+
+    /**
+     * Performs search, blocks until search is finished or cancelled.
+     */
+    public void run() {
+        boolean completed;
+        try {
+            if (pattern.length == 0 || data.getDataSize() < pattern.length) {
+                completed = true;
+            } else if (data instanceof EditableOverlayBinaryData) {
+                // Modified data are searched as shown
+                EditableOverlayBinaryData editableData = (EditableOverlayBinaryData) data;
+                completed = searchPages(editableData.getSourceData(), editableData);
+            } else if (data instanceof AsyncPageBinaryData) {
+                AsyncPageBinaryData pageData = (AsyncPageBinaryData) data;
+                PageProvider sourceProvider = pageData.getPageProvider().getSourcePageProvider();
+                if (sourceProvider instanceof SearchablePageProvider && ((SearchablePageProvider) sourceProvider).isSearchSupported()) {
+                    completed = searchInSource((SearchablePageProvider) sourceProvider);
+                } else {
+                    completed = searchPages(pageData, null);
+                }
+            } else {
+                completed = searchData();
+            }
+        } catch (RuntimeException ex) {
+            completed = false;
+        }
+        matchListener.searchFinished(completed && !cancelled);
+    }
+
+    /**
+     * Stops search as soon as possible.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    private boolean searchInSource(SearchablePageProvider sourceProvider) {
+        long position = 0;
+        while (!cancelled && matchesCount < MAX_MATCHES) {
+            // Matches are requested in batches to limit number of requests to the source
+            int batchSize = Math.min(SOURCE_MATCHES_BATCH, MAX_MATCHES - matchesCount);
+            long[] matches = sourceProvider.findMatches(pattern, position, batchSize);
+            for (long matchPosition : matches) {
+                if (cancelled) {
+                    return false;
+                }
+                reportMatch(matchPosition);
+            }
+            if (matches.length < batchSize) {
+                return true;
+            }
+            position = matches[matches.length - 1] + 1;
+        }
+        return !cancelled;
+    }
+
+    private boolean searchPages(AsyncPageBinaryData pageData, @Nullable EditableOverlayBinaryData editableData) {
+        PipelinedPageReader pageReader = new PipelinedPageReader(pageData, PipelinedPageReader.DEFAULT_PAGES_IN_FLIGHT, true);
+        byte[] carry = new byte[0];
+        try {
+            while (pageReader.hasNext()) {
+                long pageIndex = pageReader.getNextPageIndex();
+                byte[] page = pageReader.next();
+                if (editableData != null) {
+                    page = editableData.getPage(pageIndex, page);
+                }
+                if (cancelled || matchesCount >= MAX_MATCHES) {
+                    return false;
+                }
+
+                carry = scan(carry, page, pageIndex * PageProviderBinaryData.PAGE_SIZE);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            pageReader.close();
+        }
+        return true;
+    }
+
+    private boolean searchData() {
+        long dataSize = data.getDataSize();
+        byte[] carry = new byte[0];
+        for (long position = 0; position < dataSize; position += PageProviderBinaryData.PAGE_SIZE) {
+            if (cancelled || matchesCount >= MAX_MATCHES) {
+                return false;
+            }
+
+            byte[] page = new byte[(int) Math.min(dataSize - position, PageProviderBinaryData.PAGE_SIZE)];
+            data.copyToArray(position, page, 0, page.length);
+            carry = scan(carry, page, position);
+        }
+        return true;
+    }
+
+    /**
+     * Scans page prepended with remaining bytes of previous page.
+     *
+     * @param carry end of previous data shorter than pattern
+     * @param page page data
+     * @param pagePosition position of the page
+     * @return end of scanned data to carry to next page
+     */
+    private byte[] scan(byte[] carry, byte[] page, long pagePosition) {
+        byte[] buffer = new byte[carry.length + page.length];
+        System.arraycopy(carry, 0, buffer, 0, carry.length);
+        System.arraycopy(page, 0, buffer, carry.length, page.length);
+        long bufferPosition = pagePosition - carry.length;
+        byte first = pattern[0];
+        for (int i = 0; i <= buffer.length - pattern.length; i++) {
+            if (buffer[i] != first) {
+                continue;
+            }
+
+            int j = 1;
+            while (j < pattern.length && buffer[i + j] == pattern[j]) {
+                j++;
+            }
+            if (j == pattern.length) {
+                reportMatch(bufferPosition + i);
+                if (matchesCount >= MAX_MATCHES) {
+                    break;
+                }
+            }
+        }
+
+        int carryLength = Math.min(pattern.length - 1, buffer.length);
+        byte[] nextCarry = new byte[carryLength];
+        System.arraycopy(buffer, buffer.length - carryLength, nextCarry, 0, carryLength);
+        return nextCarry;
+    }
+
+    private void reportMatch(long position) {
+        matchesCount++;
+        matchListener.matchFound(position);
+    }
+
+    /**
+     * Listener for search results.
+     */
+    public interface MatchListener {
+
+        /**
+         * Match was found.
+         *
+         * @param position position of match
+         */
+        void matchFound(long position);
+
+        /**
+         * Search finished.
+         *
+         * @param completed true if whole data was searched
+         */
+        void searchFinished(boolean completed);
+    }
+}
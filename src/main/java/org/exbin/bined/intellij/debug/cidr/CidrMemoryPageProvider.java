@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.intellij.debug.cidr;
+
+import com.jetbrains.cidr.execution.debugger.CidrDebugProcess;
+import com.jetbrains.cidr.execution.debugger.backend.LLMemoryHunk;
+import com.jetbrains.cidr.execution.debugger.memory.Address;
+import com.jetbrains.cidr.execution.debugger.memory.AddressRange;
+import org.exbin.auxiliary.binary_data.OutOfBoundsException;
+import org.exbin.bined.intellij.debug.intellij.EvaluatedPageProvider;
+import org.exbin.framework.bined.objectdata.PageProvider;
+import org.exbin.framework.bined.objectdata.PageProviderBinaryData;
+
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Native memory data source for debugger view.
+ * <p>
+ * Each page is read from target memory by GDB / LLDB driver memory dump
+ * command, reading of page fails if any part of it is not readable.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class CidrMemoryPageProvider implements PageProvider {
+
+    private final CidrDebugProcess debugProcess;
+    private final long address;
+    private final long length;
+
+    /**
+     * Creates data source for range of target memory.
+     *
+     * @param debugProcess debug process
+     * @param address address of first byte
+     * @param length length of range
+     */
+    public CidrMemoryPageProvider(CidrDebugProcess debugProcess, long address, long length) {
+        this.debugProcess = debugProcess;
+        this.address = address;
+        this.length = length;
+    }
+
+    @Nonnull
+    @Override
+    public byte[] getPage(long pageIndex) {
+        long pageStart = pageIndex * PageProviderBinaryData.PAGE_SIZE;
+        if (pageStart >= length) {
+            throw new OutOfBoundsException();
+        }
+
+        int pageLength = (int) Math.min(length - pageStart, PageProviderBinaryData.PAGE_SIZE);
+        long start = address + pageStart;
+        AddressRange range = new AddressRange(Address.fromUnsignedLong(start), Address.fromUnsignedLong(start + pageLength - 1));
+        byte[] page = new byte[pageLength];
+        // Unreadable memory must not be shown as zeros, failed page can be retried
+        List<LLMemoryHunk> hunks = execute(debugProcess, driver -> driver.dumpMemory(range));
+        boolean[] covered = new boolean[pageLength];
+        int coveredCount = 0;
+        for (LLMemoryHunk hunk : hunks) {
+            long offset = hunk.getRange().getStart().getUnsignedLongValue() - start;
+            List<Byte> bytes = hunk.getBytes();
+            for (int i = 0; i < bytes.size(); i++) {
+                long pagePosition = offset + i;
+                if (pagePosition >= 0 && pagePosition < pageLength) {
+                    page[(int) pagePosition] = bytes.get(i);
+                    if (!covered[(int) pagePosition]) {
+                        covered[(int) pagePosition] = true;
+                        coveredCount++;
+                    }
+                }
+            }
+        }
+        if (coveredCount < pageLength) {
+            throw new IllegalStateException("Unable to read memory at " + range);
+        }
+        return page;
+    }
+
+    @Override
+    public long getDocumentSize() {
+        return length;
+    }
+
+    public long getAddress() {
+        return address;
+    }
+
+    /**
+     * Executes command on debugger driver and waits for its result.
+     *
+     * @param debugProcess debug process
+     * @param command command
+     * @param <T> result type
+     * @return command result
+     * @throws IllegalStateException if command failed or timed out
+     */
+    public static <T> T execute(CidrDebugProcess debugProcess, CidrDebugProcess.DebuggerCommand<T> command) {
+        try {
+            return debugProcess.postCommand(command).get(EvaluatedPageProvider.TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Debugger command interrupted", ex);
+        } catch (ExecutionException | TimeoutException ex) {
+            throw new IllegalStateException("Debugger command failed", ex);
+        }
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.intellij.debug.cidr;
+
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ModalityState;
+import com.intellij.openapi.ui.InputValidator;
+import com.intellij.openapi.ui.Messages;
+import com.intellij.xdebugger.XDebugSession;
+import com.intellij.xdebugger.frame.XValue;
+import com.intellij.xdebugger.impl.ui.tree.nodes.XValueNodeImpl;
+import com.jetbrains.cidr.execution.debugger.evaluation.CidrMemberValue;
+import com.jetbrains.cidr.execution.debugger.evaluation.CidrPhysicalValue;
+import com.jetbrains.cidr.execution.debugger.memory.Address;
+import org.exbin.auxiliary.binary_data.BinaryData;
+import org.exbin.auxiliary.binary_data.ByteArrayData;
+import org.exbin.bined.intellij.debug.DebugValueConverter;
+import org.exbin.bined.intellij.debug.DebugViewDataProvider;
+import org.exbin.bined.intellij.debug.LazyDebugViewDataProvider;
+import org.exbin.bined.intellij.debug.cache.AsyncPageBinaryData;
+import org.exbin.bined.intellij.debug.cache.CachedPageProvider;
+import org.exbin.bined.intellij.debug.cache.DebugSessionPageCache;
+import org.exbin.bined.intellij.debug.cache.PageCache;
+import org.exbin.bined.intellij.debug.intellij.ChildNodesPageProvider;
+import org.exbin.bined.intellij.debug.intellij.XValueNodeConvertor;
+import org.exbin.framework.bined.objectdata.PageProvider;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+/**
+ * C/C++ debugger values converter.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class CidrValueConverter implements DebugValueConverter {
+
+    private static final long DEFAULT_POINTER_LENGTH = 256;
+
+    @Nonnull
+    @Override
+    public String getValueClassName() {
+        return "com.jetbrains.cidr.execution.debugger.evaluation.CidrValue";
+    }
+
+    @Override
+    public void addProviders(XValueNodeImpl dataNode, @Nullable String initialValue, @Nullable XDebugSession debugSession, List<DebugViewDataProvider> providers) {
+        XValue container = dataNode.getValueContainer();
+        ChildNodesPageProvider.ValueType childValueType = null;
+        ChildNodesPageProvider.ValueExtractor childValueExtractor = null;
+        long childValueSize = 0;
+
+        if (container instanceof CidrPhysicalValue) {
+            String typeName = ((CidrPhysicalValue) container).getType();
+            int arraySizePos = typeName.indexOf("[");
+            if (arraySizePos > 0) {
+                try {
+                    String childType = typeName.substring(0, arraySizePos).strip();
+                    int arraySize = Integer.parseInt(typeName.substring(arraySizePos + 1, typeName.length() - 1));
+                    childValueExtractor = CidrValueConverter::getCValueText;
+                    switch (childType) {
+                        case "signed char":
+                        case "unsigned char": {
+                            childValueType = ChildNodesPageProvider.ValueType.BYTE;
+                            childValueSize = arraySize;
+                            break;
+                        }
+                        case "signed short":
+                        case "unsigned short": {
+                            childValueType = ChildNodesPageProvider.ValueType.SHORT;
+                            childValueSize = arraySize;
+                            break;
+                        }
+                        case "signed int":
+                        case "unsigned int": {
+                            childValueType = ChildNodesPageProvider.ValueType.INTEGER;
+                            childValueSize = arraySize;
+                            break;
+                        }
+                        case "signed long":
+                        case "unsigned long": {
+                            childValueType = ChildNodesPageProvider.ValueType.LONG;
+                            childValueSize = arraySize;
+                            break;
+                        }
+                    }
+                } catch (Exception ex) {
+                }
+            }
+
+            // Raw memory is read directly by debugger driver
+            CidrPhysicalValue physicalValue = (CidrPhysicalValue) container;
+            providers.add(new LazyDebugViewDataProvider("Native memory", () -> {
+                BinaryData data = processCidrMemoryData(physicalValue, debugSession);
+                return data != null ? data : new ByteArrayData();
+            }));
+            if (typeName.endsWith("*")) {
+                providers.add(new LazyDebugViewDataProvider("Pointer target memory", () -> {
+                    BinaryData data = processCidrPointerData(physicalValue, debugSession);
+                    return data != null ? data : new ByteArrayData();
+                }));
+            }
+        }
+
+        if (childValueType != null) {
+            providers.add(XValueNodeConvertor.createChildNodesProvider(container, childValueType, childValueSize, childValueExtractor, debugSession));
+        }
+    }
+
+    @Nullable
+    private static BinaryData processCidrMemoryData(CidrPhysicalValue value, @Nullable XDebugSession debugSession) {
+        Long address = value.getVar().getAddress();
+        String expression = value.getEvaluationExpression();
+        if (address == null || expression == null) {
+            return null;
+        }
+
+        long length = CidrMemoryPageProvider.execute(value.getProcess(),
+                driver -> value.createEvaluationContext(driver, null).evaluateData("sizeof(" + expression + ")").intValue());
+        return createCidrMemoryData(value, address, length, debugSession);
+    }
+
+    @Nullable
+    private static BinaryData processCidrPointerData(CidrPhysicalValue value, @Nullable XDebugSession debugSession) {
+        String expression = value.getEvaluationExpression();
+        if (expression == null) {
+            return null;
+        }
+
+        Address targetAddress = CidrMemoryPageProvider.execute(value.getProcess(),
+                driver -> value.getVarData(value.createEvaluationContext(driver, null)).getPointerAddress());
+        if (targetAddress == null || targetAddress.isNull()) {
+            return null;
+        }
+
+        long targetSize;
+        try {
+            targetSize = CidrMemoryPageProvider.execute(value.getProcess(),
+                    driver -> value.createEvaluationContext(driver, null).evaluateData("sizeof(*(" + expression + "))").intValue());
+        } catch (IllegalStateException ex) {
+            // Pointer to void or incomplete type
+            targetSize = DEFAULT_POINTER_LENGTH;
+        }
+
+        // Length of pointed data is not known, user has to provide it
+        String initialLength = String.valueOf(targetSize);
+        String[] lengthText = new String[1];
+        ApplicationManager.getApplication().invokeAndWait(() -> lengthText[0] = Messages.showInputDialog(
+                "Length of data at " + targetAddress + " in bytes:", "Pointer Target Memory", null, initialLength, new InputValidator() {
+                    @Override
+                    public boolean checkInput(String inputString) {
+                        return parseLength(inputString) > 0;
+                    }
+
+                    @Override
+                    public boolean canClose(String inputString) {
+                        return checkInput(inputString);
+                    }
+                }), ModalityState.any());
+        if (lengthText[0] == null) {
+            // Prompt is shown again when data are requested next time
+            throw new CancellationException("Pointer target length not provided");
+        }
+
+        return createCidrMemoryData(value, targetAddress.getUnsignedLongValue(), parseLength(lengthText[0]), debugSession);
+    }
+
+    @Nonnull
+    private static BinaryData createCidrMemoryData(CidrPhysicalValue value, long address, long length, @Nullable XDebugSession debugSession) {
+        PageProvider pageProvider = new CidrMemoryPageProvider(value.getProcess(), address, length);
+        PageCache pageCache = DebugSessionPageCache.getPageCache(debugSession, "native-memory", address + ":" + length);
+        AsyncPageBinaryData data = new AsyncPageBinaryData(new CachedPageProvider(pageProvider, pageCache, null));
+        // Same address range is read again after debugger stops
+        data.setRefreshable(true);
+        return data;
+    }
+
+    private static long parseLength(String lengthText) {
+        try {
+            return Long.decode(lengthText.trim());
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    @Nonnull
+    public static String getCValueText(XValue valueContainer) {
+        try {
+            if (!((CidrMemberValue) valueContainer).isValueDataAvailable()) {
+                // ((CidrMemberValue) valueContainer).getVarData(((CidrMemberValue) valueContainer).createEvaluationContext( Expirable.));
+                return "0";
+            }
+
+            return ((CidrMemberValue) valueContainer).getPreparedVarData().splitNumberAndData().first;
+        } catch (ClassCastException e) {
+            return "0";
+        }
+    }
+}
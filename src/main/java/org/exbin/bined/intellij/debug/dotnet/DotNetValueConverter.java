@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.intellij.debug.dotnet;
+
+import com.intellij.xdebugger.XDebugSession;
+import com.intellij.xdebugger.evaluation.XDebuggerEvaluator;
+import com.intellij.xdebugger.frame.XStackFrame;
+import com.intellij.xdebugger.frame.XValue;
+import com.intellij.xdebugger.impl.ui.tree.nodes.XValueNodeImpl;
+import org.exbin.auxiliary.binary_data.BinaryData;
+import org.exbin.auxiliary.binary_data.ByteArrayData;
+import org.exbin.bined.intellij.debug.DebugValueConverter;
+import org.exbin.bined.intellij.debug.DebugViewDataProvider;
+import org.exbin.bined.intellij.debug.LazyDebugViewDataProvider;
+import org.exbin.bined.intellij.debug.cache.AsyncPageBinaryData;
+import org.exbin.bined.intellij.debug.cache.CachedPageProvider;
+import org.exbin.bined.intellij.debug.cache.DebugSessionPageCache;
+import org.exbin.bined.intellij.debug.cache.PageCache;
+import org.exbin.bined.intellij.debug.intellij.ChildNodesPageProvider;
+import org.exbin.bined.intellij.debug.intellij.EvaluatedPageProvider;
+import org.exbin.bined.intellij.debug.intellij.ReflectiveFieldCache;
+import org.exbin.bined.intellij.debug.intellij.XValueNodeConvertor;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.util.List;
+
+/**
+ * .NET debugger values converter.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class DotNetValueConverter implements DebugValueConverter {
+
+    @Nonnull
+    @Override
+    public String getValueClassName() {
+        return "com.jetbrains.rider.debugger.DotNetNamedValue";
+    }
+
+    @Override
+    public void addProviders(XValueNodeImpl dataNode, @Nullable String initialValue, @Nullable XDebugSession debugSession, List<DebugViewDataProvider> providers) {
+        XValue container = dataNode.getValueContainer();
+        ChildNodesPageProvider.ValueType childValueType = null;
+        ChildNodesPageProvider.ValueExtractor childValueExtractor = null;
+        long childValueSize = 0;
+
+        String typeName = dataNode.getRawValue();
+        int arraySizePos = typeName.indexOf("[");
+        if (arraySizePos > 0) {
+            try {
+                String childType = typeName.substring(0, arraySizePos);
+                int arraySize = Integer.parseInt(typeName.substring(arraySizePos + 1, typeName.length() - 1));
+                childValueExtractor = DotNetValueConverter::getDotNetValueText;
+                switch (childType) {
+                    case "bool": {
+                        childValueType = ChildNodesPageProvider.ValueType.BOOLEAN;
+                        childValueSize = arraySize;
+                        break;
+                    }
+                    case "byte": {
+                        childValueType = ChildNodesPageProvider.ValueType.BYTE;
+                        childValueSize = arraySize;
+                        // Values without evaluation expression are read using child nodes only
+                        if (container.getEvaluationExpression() != null) {
+                            providers.add(new LazyDebugViewDataProvider(".NET byte array (Base64 pages)", () -> {
+                                BinaryData data = processDotNetByteArrayData(container, arraySize, debugSession);
+                                return data != null ? data : new ByteArrayData();
+                            }));
+                        }
+                        break;
+                    }
+                    case "short": {
+                        childValueType = ChildNodesPageProvider.ValueType.SHORT;
+                        childValueSize = arraySize;
+                        break;
+                    }
+                    case "int": {
+                        childValueType = ChildNodesPageProvider.ValueType.INTEGER;
+                        childValueSize = arraySize;
+                        break;
+                    }
+                    case "long": {
+                        childValueType = ChildNodesPageProvider.ValueType.LONG;
+                        childValueSize = arraySize;
+                        break;
+                    }
+                }
+            } catch (Exception ex) {
+            }
+        }
+
+        if (childValueType != null) {
+            providers.add(XValueNodeConvertor.createChildNodesProvider(container, childValueType, childValueSize, childValueExtractor, debugSession));
+        }
+    }
+
+    @Nullable
+    private static BinaryData processDotNetByteArrayData(XValue container, int arraySize, @Nullable XDebugSession debugSession) {
+        XStackFrame stackFrame = debugSession == null ? null : debugSession.getCurrentStackFrame();
+        XDebuggerEvaluator evaluator = stackFrame == null ? null : stackFrame.getEvaluator();
+        String expression = container.getEvaluationExpression();
+        if (evaluator == null || expression == null) {
+            return null;
+        }
+
+        // Page is encoded by runtime in single call instead of per element
+        String arrayExpression = expression;
+        EvaluatedPageProvider pageProvider = new EvaluatedPageProvider(evaluator, arraySize,
+                (startPosition, length) -> "System.Convert.ToBase64String(" + arrayExpression + ", " + startPosition + ", " + length + ")",
+                EvaluatedPageProvider.TextEncoding.BASE64);
+        PageCache pageCache = DebugSessionPageCache.getPageCache(debugSession, "dotnet-byte-array", expression);
+        return new AsyncPageBinaryData(new CachedPageProvider(pageProvider, pageCache, EvaluatedPageProvider.PREFETCH_EXECUTOR));
+    }
+
+    @Nonnull
+    public static String getDotNetValueText(XValue valueContainer) {
+        Object value = ReflectiveFieldCache.getFieldValue(valueContainer, "value");
+        Object properties = ReflectiveFieldCache.getFieldValue(value, "lastComputedProperties");
+        if (properties == null) {
+            // TODO Not loaded, no idea how to force
+            return "0";
+        }
+        Class<?> propertiesType = properties.getClass().getSuperclass();
+        propertiesType = propertiesType == null ? null : propertiesType.getSuperclass();
+        if (propertiesType == null) {
+            return "0";
+        }
+        Object propertyValues = ReflectiveFieldCache.getFieldValue(properties, propertiesType, "value");
+        if (!(propertyValues instanceof List) || ((List<?>) propertyValues).isEmpty()) {
+            return "0";
+        }
+        Object propertyValue = ReflectiveFieldCache.getFieldValue(((List<?>) propertyValues).get(0), "value");
+        return propertyValue instanceof String ? (String) propertyValue : "0";
+    }
+}
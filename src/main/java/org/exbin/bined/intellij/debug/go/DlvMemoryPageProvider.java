@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.intellij.debug.go;
+
+import com.intellij.xdebugger.evaluation.XDebuggerEvaluator;
+import com.intellij.xdebugger.frame.XValue;
+import org.exbin.auxiliary.binary_data.OutOfBoundsException;
+import org.exbin.bined.intellij.debug.intellij.EvaluatedPageProvider;
+import org.exbin.bined.intellij.debug.intellij.ReflectiveFieldCache;
+import org.exbin.framework.bined.objectdata.PageProvider;
+import org.exbin.framework.bined.objectdata.PageProviderBinaryData;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.math.BigInteger;
+
+/**
+ * Go memory data source for debugger view.
+ * <p>
+ * Memory of page is evaluated by Delve as byte array at given address, array
+ * is read in multiple parts if Delve limits count of loaded values.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class DlvMemoryPageProvider implements PageProvider {
+
+    private final XDebuggerEvaluator evaluator;
+    private final BigInteger address;
+    private final long length;
+
+    /**
+     * Creates data source for range of target memory.
+     *
+     * @param evaluator evaluator of current frame
+     * @param address address of first byte
+     * @param length length of range
+     */
+    public DlvMemoryPageProvider(XDebuggerEvaluator evaluator, BigInteger address, long length) {
+        this.evaluator = evaluator;
+        this.address = address;
+        this.length = length;
+    }
+
+    @Nonnull
+    @Override
+    public byte[] getPage(long pageIndex) {
+        long pageStart = pageIndex * PageProviderBinaryData.PAGE_SIZE;
+        if (pageStart >= length) {
+            throw new OutOfBoundsException();
+        }
+
+        int pageLength = (int) Math.min(length - pageStart, PageProviderBinaryData.PAGE_SIZE);
+        byte[] page = new byte[pageLength];
+        int offset = 0;
+        while (offset < pageLength) {
+            BigInteger start = address.add(BigInteger.valueOf(pageStart + offset));
+            String expression = "*(*[" + (pageLength - offset) + "]uint8)(0x" + start.toString(16) + ")";
+            Object[] children = getChildren(EvaluatedPageProvider.evaluate(evaluator, expression));
+            if (children == null || children.length == 0) {
+                throw new IllegalStateException("Unable to read memory at 0x" + start.toString(16));
+            }
+
+            for (int i = 0; i < children.length && offset < pageLength; i++) {
+                page[offset] = parseByte(ReflectiveFieldCache.getFieldValue(children[i], "value"));
+                offset++;
+            }
+        }
+        return page;
+    }
+
+    @Override
+    public long getDocumentSize() {
+        return length;
+    }
+
+    @Nullable
+    private static Object[] getChildren(XValue value) {
+        Object variable = ReflectiveFieldCache.getFieldValue(value, "myVariable");
+        Object children = ReflectiveFieldCache.getFieldValue(variable, "children");
+        return children instanceof Object[] ? (Object[]) children : null;
+    }
+
+    private static byte parseByte(@Nullable Object value) {
+        if (!(value instanceof String)) {
+            return 0;
+        }
+        try {
+            return (byte) Integer.parseInt((String) value);
+        } catch (NumberFormatException ex) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,289 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.intellij.debug.go;
+
+import com.intellij.xdebugger.XDebugSession;
+import com.intellij.xdebugger.evaluation.XDebuggerEvaluator;
+import com.intellij.xdebugger.frame.XStackFrame;
+import com.intellij.xdebugger.frame.XValue;
+import com.intellij.xdebugger.impl.ui.tree.nodes.XValueNodeImpl;
+import org.exbin.auxiliary.binary_data.BinaryData;
+import org.exbin.auxiliary.binary_data.ByteArrayData;
+import org.exbin.bined.intellij.debug.DebugValueConverter;
+import org.exbin.bined.intellij.debug.DebugViewDataProvider;
+import org.exbin.bined.intellij.debug.LazyDebugViewDataProvider;
+import org.exbin.bined.intellij.debug.cache.AsyncPageBinaryData;
+import org.exbin.bined.intellij.debug.cache.CachedPageProvider;
+import org.exbin.bined.intellij.debug.cache.DebugSessionPageCache;
+import org.exbin.bined.intellij.debug.cache.PageCache;
+import org.exbin.bined.intellij.debug.intellij.ChildNodesPageProvider;
+import org.exbin.bined.intellij.debug.intellij.EvaluatedPageProvider;
+import org.exbin.bined.intellij.debug.intellij.ReflectiveFieldCache;
+import org.exbin.bined.intellij.debug.intellij.XValueNodeConvertor;
+import org.exbin.framework.bined.objectdata.PageProvider;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.math.BigInteger;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Go debugger values converter.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class DlvValueConverter implements DebugValueConverter {
+
+    /**
+     * Element size depending on target architecture.
+     */
+    private static final int PLATFORM_ELEMENT_SIZE = -1;
+
+    @Nonnull
+    @Override
+    public String getValueClassName() {
+        return "com.goide.dlv.DlvXValue";
+    }
+
+    @Override
+    public void addProviders(XValueNodeImpl dataNode, @Nullable String initialValue, @Nullable XDebugSession debugSession, List<DebugViewDataProvider> providers) {
+        XValue container = dataNode.getValueContainer();
+        ChildNodesPageProvider.ValueType childValueType = null;
+        ChildNodesPageProvider.ValueExtractor childValueExtractor = null;
+        long childValueSize = 0;
+        ElementSizeResolver elementSizeResolver = null;
+
+        try {
+            Object myVariable = ReflectiveFieldCache.getFieldValue(container, "myVariable");
+            if (myVariable != null) {
+                try {
+                    String typeValue = (String) ReflectiveFieldCache.getFieldValue(myVariable, "type");
+                    int childTypePos = typeValue.indexOf("]");
+                    if (childTypePos > 0) {
+                        long arraySize = Long.parseLong(typeValue.substring(typeValue.startsWith("*") ? 2 : 1, childTypePos));
+                        String childType = typeValue.substring(childTypePos + 1);
+                        childValueExtractor = DlvValueConverter::getGoValueText;
+
+                        switch (childType) {
+                            case "bool": {
+                                childValueType = ChildNodesPageProvider.ValueType.BOOLEAN;
+                                childValueSize = arraySize;
+                                break;
+                            }
+                            case "int8":
+                            case "uint8": {
+                                childValueType = ChildNodesPageProvider.ValueType.BYTE;
+                                childValueSize = arraySize;
+                                break;
+                            }
+                            case "int16":
+                            case "uint16": {
+                                childValueType = ChildNodesPageProvider.ValueType.SHORT;
+                                childValueSize = arraySize;
+                                break;
+                            }
+                            case "int":
+                            case "uint": {
+                                // Size is resolved when child nodes are requested
+                                childValueType = ChildNodesPageProvider.ValueType.INTEGER;
+                                childValueSize = arraySize;
+                                elementSizeResolver = new ElementSizeResolver(myVariable, PLATFORM_ELEMENT_SIZE, debugSession);
+                                break;
+                            }
+                            case "int32":
+                            case "uint32": {
+                                childValueType = ChildNodesPageProvider.ValueType.INTEGER;
+                                childValueSize = arraySize;
+                                break;
+                            }
+                            case "int64":
+                            case "uint64": {
+                                childValueType = ChildNodesPageProvider.ValueType.LONG;
+                                childValueSize = arraySize;
+                                break;
+                            }
+                        }
+                    }
+                } catch (Exception ex) {
+                }
+
+                // Slice and array memory is read by Delve per page
+                int elementSize = getGoElementSize(myVariable);
+                if (elementSize != 0) {
+                    ElementSizeResolver sizeResolver = elementSizeResolver != null ? elementSizeResolver : new ElementSizeResolver(myVariable, elementSize, debugSession);
+                    providers.add(new LazyDebugViewDataProvider("Delve memory", () -> {
+                        int valueSize = sizeResolver.getSize();
+                        BinaryData data = valueSize > 0 ? processGoMemoryData(myVariable, valueSize, debugSession) : null;
+                        return data != null ? data : new ByteArrayData();
+                    }));
+                }
+            }
+        } catch (Exception e) {
+            Logger.getLogger(DlvValueConverter.class.getName()).log(Level.SEVERE, null, e);
+        }
+
+        if (childValueType != null) {
+            if (elementSizeResolver != null) {
+                ElementSizeResolver sizeResolver = elementSizeResolver;
+                long valueSize = childValueSize;
+                ChildNodesPageProvider.ValueExtractor valueExtractor = childValueExtractor;
+                providers.add(new LazyDebugViewDataProvider("Tree child nodes (lazy)", () -> {
+                    int elementSize = sizeResolver.getSize();
+                    if (elementSize != 4 && elementSize != 8) {
+                        throw new IllegalStateException("Unable to resolve size of element");
+                    }
+                    ChildNodesPageProvider.ValueType valueType = elementSize == 8 ? ChildNodesPageProvider.ValueType.LONG : ChildNodesPageProvider.ValueType.INTEGER;
+                    return XValueNodeConvertor.createChildNodesProvider(container, valueType, valueSize, valueExtractor, debugSession).getData();
+                }));
+            } else {
+                providers.add(XValueNodeConvertor.createChildNodesProvider(container, childValueType, childValueSize, childValueExtractor, debugSession));
+            }
+        }
+    }
+
+    @Nullable
+    private static BinaryData processGoMemoryData(Object variable, int elementSize, @Nullable XDebugSession debugSession) {
+        XStackFrame stackFrame = debugSession == null ? null : debugSession.getCurrentStackFrame();
+        XDebuggerEvaluator evaluator = stackFrame == null ? null : stackFrame.getEvaluator();
+        Object base = ReflectiveFieldCache.getFieldValue(variable, "base");
+        if (base == null || BigInteger.ZERO.equals(base)) {
+            base = ReflectiveFieldCache.getFieldValue(variable, "addr");
+        }
+        Object len = ReflectiveFieldCache.getFieldValue(variable, "len");
+        if (evaluator == null || !(base instanceof BigInteger) || BigInteger.ZERO.equals(base) || !(len instanceof Long)) {
+            return null;
+        }
+
+        long length = (Long) len * elementSize;
+        PageProvider pageProvider = new DlvMemoryPageProvider(evaluator, (BigInteger) base, length);
+        PageCache pageCache = DebugSessionPageCache.getPageCache(debugSession, "dlv-memory", ((BigInteger) base).toString(16) + ":" + length);
+        return new AsyncPageBinaryData(new CachedPageProvider(pageProvider, pageCache, EvaluatedPageProvider.PREFETCH_EXECUTOR));
+    }
+
+    private static int getGoElementSize(Object variable) {
+        Object type = ReflectiveFieldCache.getFieldValue(variable, "type");
+        if (!(type instanceof String) || !((String) type).startsWith("[")) {
+            return 0;
+        }
+
+        String typeName = (String) type;
+        switch (typeName.substring(typeName.indexOf(']') + 1)) {
+            case "bool":
+            case "int8":
+            case "uint8":
+            case "byte":
+                return 1;
+            case "int16":
+            case "uint16":
+                return 2;
+            case "int32":
+            case "uint32":
+            case "rune":
+            case "float32":
+                return 4;
+            case "int64":
+            case "uint64":
+            case "float64":
+                return 8;
+            case "int":
+            case "uint":
+            case "uintptr":
+                return PLATFORM_ELEMENT_SIZE;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Resolves size of platform dependent element type.
+     * <p>
+     * Size is taken from distance of addresses of loaded elements reported by
+     * Delve, otherwise it is evaluated in debugged process.
+     *
+     * @param variable Delve variable of array or slice
+     * @param debugSession debug session
+     * @return element size or 0 if not available
+     */
+    private static int resolvePlatformElementSize(Object variable, @Nullable XDebugSession debugSession) {
+        Object children = ReflectiveFieldCache.getFieldValue(variable, "children");
+        Object[] elements = children instanceof Object[] ? (Object[]) children : children instanceof List ? ((List<?>) children).toArray() : null;
+        if (elements != null && elements.length > 1) {
+            Object firstAddress = ReflectiveFieldCache.getFieldValue(elements[0], "addr");
+            Object secondAddress = ReflectiveFieldCache.getFieldValue(elements[1], "addr");
+            if (firstAddress instanceof BigInteger && secondAddress instanceof BigInteger) {
+                int elementSize = ((BigInteger) secondAddress).subtract((BigInteger) firstAddress).intValue();
+                if (elementSize == 4 || elementSize == 8) {
+                    return elementSize;
+                }
+            }
+        }
+
+        XStackFrame stackFrame = debugSession == null ? null : debugSession.getCurrentStackFrame();
+        XDebuggerEvaluator evaluator = stackFrame == null ? null : stackFrame.getEvaluator();
+        String typeName = (String) ReflectiveFieldCache.getFieldValue(variable, "type");
+        if (evaluator == null || typeName == null) {
+            return 0;
+        }
+
+        try {
+            return Integer.parseInt(EvaluatedPageProvider.evaluateToText(evaluator, "unsafe.Sizeof(" + typeName.substring(typeName.indexOf(']') + 1) + "(0))").trim());
+        } catch (RuntimeException ex) {
+            Logger.getLogger(DlvValueConverter.class.getName()).log(Level.FINE, "Unable to evaluate element size", ex);
+            return 0;
+        }
+    }
+
+    /**
+     * Element size of array or slice shared by views of the same value.
+     * <p>
+     * Platform dependent size is resolved only once on first request.
+     */
+    private static class ElementSizeResolver {
+
+        private final Object variable;
+        @Nullable
+        private final XDebugSession debugSession;
+        private int size;
+
+        public ElementSizeResolver(Object variable, int size, @Nullable XDebugSession debugSession) {
+            this.variable = variable;
+            this.size = size;
+            this.debugSession = debugSession;
+        }
+
+        public synchronized int getSize() {
+            if (size == PLATFORM_ELEMENT_SIZE) {
+                int resolvedSize = resolvePlatformElementSize(variable, debugSession);
+                if (resolvedSize > 0) {
+                    size = resolvedSize;
+                }
+                return resolvedSize;
+            }
+            return size;
+        }
+    }
+
+    @Nonnull
+    public static String getGoValueText(XValue valueContainer) {
+        Object myVariable = ReflectiveFieldCache.getFieldValue(valueContainer, "myVariable");
+        Object value = ReflectiveFieldCache.getFieldValue(myVariable, "value");
+        return value instanceof String ? (String) value : "0";
+    }
+}
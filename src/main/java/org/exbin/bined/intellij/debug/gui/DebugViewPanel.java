@@ -15,19 +15,48 @@
  */
 package org.exbin.bined.intellij.debug.gui;
 
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ModalityState;
+import com.intellij.openapi.fileChooser.FileChooserFactory;
+import com.intellij.openapi.fileChooser.FileSaverDescriptor;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileWrapper;
+import com.intellij.ui.SimpleListCellRenderer;
 import org.exbin.auxiliary.binary_data.BinaryData;
 import org.exbin.bined.EditMode;
 import org.exbin.bined.intellij.debug.DebugViewDataProvider;
+import org.exbin.bined.intellij.debug.ExportDebugDataTask;
+import org.exbin.bined.intellij.debug.cache.AsyncPageBinaryData;
+import org.exbin.bined.intellij.debug.cache.EditableOverlayBinaryData;
+import org.exbin.bined.intellij.debug.cache.StreamingPageSearch;
+import org.exbin.bined.swing.capability.ColorAssessorPainterCapable;
 import org.exbin.bined.swing.section.SectCodeArea;
 import org.exbin.framework.bined.BinEdEditorComponent;
 import org.exbin.framework.bined.BinEdFileManager;
+import org.exbin.framework.App;
 import org.exbin.framework.bined.gui.BinEdComponentPanel;
+import org.exbin.framework.language.api.LanguageModuleApi;
 
+import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
+import javax.swing.JButton;
+import javax.swing.JCheckBox;
+import javax.swing.JLabel;
+import javax.swing.JList;
+import javax.swing.JPanel;
+import javax.swing.JTextField;
 import java.awt.BorderLayout;
+import java.nio.charset.Charset;
+import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.ResourceBundle;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * Panel to show debug view.
@@ -39,8 +68,31 @@ public class DebugViewPanel extends javax.swing.JPanel {
 
     private final List<DebugViewDataProvider> providers = new ArrayList<>();
     private int selectedProvider = 0;
+    @Nullable
+    private Future<?> dataFuture = null;
 
     private final BinEdEditorComponent binEdEditorComponent;
+    private PageStateColorAssessor loadingPagesColorAssessor;
+    private PageStateColorAssessor changedDataColorAssessor;
+    @Nullable
+    private AsyncPageBinaryData asyncPageData = null;
+    @Nullable
+    private EditableOverlayBinaryData editableData = null;
+    @Nullable
+    private Runnable contentDataChangedListener = null;
+
+    private final ResourceBundle resourceBundle = App.getModule(LanguageModuleApi.class).getBundle(DebugViewPanel.class);
+    private final JTextField searchField = new JTextField();
+    private final JCheckBox hexCheckBox = new JCheckBox();
+    private final JLabel searchStatusLabel = new JLabel();
+    @Nullable
+    private StreamingPageSearch currentSearch = null;
+    @Nullable
+    private byte[] currentSearchPattern = null;
+    private final List<Long> searchMatches = new ArrayList<>();
+    private int currentMatch = -1;
+    private final AsyncPageBinaryData.PageLoadListener pageLoadListener = pageIndex ->
+            ApplicationManager.getApplication().invokeLater(() -> binEdEditorComponent.getComponentPanel().getCodeArea().repaint(), ModalityState.any());
 
     public DebugViewPanel() {
         binEdEditorComponent = new BinEdEditorComponent();
@@ -59,8 +111,39 @@ public class DebugViewPanel extends javax.swing.JPanel {
 
         SectCodeArea codeArea = componentPanel.getCodeArea();
         codeArea.setEditMode(EditMode.READ_ONLY);
+        ColorAssessorPainterCapable painter = (ColorAssessorPainterCapable) codeArea.getPainter();
+        loadingPagesColorAssessor = PageStateColorAssessor.createLoadingPagesColorAssessor(painter.getColorAssessor());
+        changedDataColorAssessor = PageStateColorAssessor.createChangedDataColorAssessor(loadingPagesColorAssessor);
+        painter.setColorAssessor(changedDataColorAssessor);
+
+        // Names are taken from providers as they can be refined when data are loaded
+        providerComboBox.setRenderer(new SimpleListCellRenderer<>() {
+            @Override
+            public void customize(JList<? extends String> list, String value, int index, boolean selected, boolean hasFocus) {
+                int providerIndex = index >= 0 ? index : providerComboBox.getSelectedIndex();
+                setText(providerIndex >= 0 && providerIndex < providers.size() ? providers.get(providerIndex).getName() : value);
+            }
+        });
 
         this.add(binEdEditorComponent.getComponentPanel(), BorderLayout.CENTER);
+        initSearchPanel();
+    }
+
+    private void initSearchPanel() {
+        JPanel searchPanel = new JPanel(new BorderLayout(5, 0));
+        searchPanel.add(new JLabel(resourceBundle.getString("searchLabel.text")), BorderLayout.LINE_START);
+        searchPanel.add(searchField, BorderLayout.CENTER);
+        hexCheckBox.setText(resourceBundle.getString("hexCheckBox.text"));
+        JPanel optionsPanel = new JPanel(new BorderLayout(5, 0));
+        optionsPanel.add(hexCheckBox, BorderLayout.LINE_START);
+        optionsPanel.add(searchStatusLabel, BorderLayout.CENTER);
+        JButton exportButton = new JButton(resourceBundle.getString("exportButton.text"));
+        exportButton.addActionListener(e -> exportData());
+        optionsPanel.add(exportButton, BorderLayout.LINE_END);
+        searchPanel.add(optionsPanel, BorderLayout.LINE_END);
+        searchField.addActionListener(e -> performSearch());
+        hexCheckBox.addActionListener(e -> cancelSearch());
+        this.add(searchPanel, BorderLayout.PAGE_END);
     }
 
     /**
@@ -87,7 +170,7 @@ public class DebugViewPanel extends javax.swing.JPanel {
         int selectedIndex = providerComboBox.getSelectedIndex();
         if (selectedProvider != selectedIndex) {
             selectedProvider = selectedIndex;
-            setContentData(providers.get(selectedProvider).getData());
+            loadProviderData(providers.get(selectedProvider));
         }
     }
 
@@ -97,7 +180,7 @@ public class DebugViewPanel extends javax.swing.JPanel {
 
     public void addProvider(DebugViewDataProvider provider) {
         if (providers.isEmpty()) {
-            setContentData(provider.getData());
+            loadProviderData(provider);
             add(providerComboBox, java.awt.BorderLayout.PAGE_START);
         }
 
@@ -105,9 +188,235 @@ public class DebugViewPanel extends javax.swing.JPanel {
         providerComboBox.addItem(provider.getName());
     }
 
+    /**
+     * Computes data of given provider on background thread and shows it when
+     * available, computation for previously selected provider is cancelled.
+     *
+     * @param provider data provider
+     */
+    private void loadProviderData(DebugViewDataProvider provider) {
+        cancelDataLoading();
+        setContentData(null);
+        dataFuture = ApplicationManager.getApplication().executeOnPooledThread(() -> {
+            BinaryData data;
+            try {
+                data = provider.getData();
+            } catch (Exception ex) {
+                if (!(ex instanceof CancellationException) && !Thread.currentThread().isInterrupted()) {
+                    Logger.getLogger(DebugViewPanel.class.getName()).log(Level.WARNING, "Unable to load data of " + provider.getName(), ex);
+                }
+                return;
+            }
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+
+            ApplicationManager.getApplication().invokeLater(() -> {
+                if (!providers.isEmpty() && providers.get(selectedProvider) == provider) {
+                    setContentData(data);
+                }
+                providerComboBox.repaint();
+            }, ModalityState.any());
+        });
+    }
+
+    private void cancelDataLoading() {
+        if (dataFuture != null) {
+            dataFuture.cancel(true);
+            dataFuture = null;
+        }
+    }
+
+    /**
+     * Refetches currently shown data if supported after debugger stopped
+     * again, changed bytes are highlighted.
+     */
+    public void refreshData() {
+        if (asyncPageData != null && asyncPageData.isRefreshable()) {
+            // Modifications based on previous content are dropped
+            if (editableData != null) {
+                editableData.refresh();
+            } else {
+                asyncPageData.refresh();
+            }
+            binEdEditorComponent.getComponentPanel().getCodeArea().repaint();
+        }
+    }
+
+    /**
+     * Starts search of entered pattern or moves to next match if search of the
+     * same pattern was already started.
+     */
+    private void performSearch() {
+        byte[] pattern;
+        try {
+            pattern = hexCheckBox.isSelected() ? parseHex(searchField.getText()) : searchField.getText().getBytes(Charset.defaultCharset());
+        } catch (NumberFormatException ex) {
+            searchStatusLabel.setText(resourceBundle.getString("searchStatus.invalidHex"));
+            return;
+        }
+
+        if (currentSearchPattern != null && Arrays.equals(currentSearchPattern, pattern)) {
+            synchronized (searchMatches) {
+                if (!searchMatches.isEmpty()) {
+                    currentMatch = (currentMatch + 1) % searchMatches.size();
+                    showMatch(searchMatches.get(currentMatch));
+                }
+            }
+            return;
+        }
+
+        cancelSearch();
+        BinaryData data = getShownData();
+        if (pattern.length == 0 || data == null) {
+            return;
+        }
+
+        // Matches are shown while remaining data is still being searched
+        currentSearchPattern = pattern;
+        searchStatusLabel.setText(MessageFormat.format(resourceBundle.getString("searchStatus.searching"), 0));
+        StreamingPageSearch search = new StreamingPageSearch(data, pattern, new StreamingPageSearch.MatchListener() {
+            @Override
+            public void matchFound(long position) {
+                ApplicationManager.getApplication().invokeLater(() -> {
+                    if (currentSearch == null || currentSearchPattern != pattern) {
+                        return;
+                    }
+                    int matchesCount;
+                    synchronized (searchMatches) {
+                        searchMatches.add(position);
+                        matchesCount = searchMatches.size();
+                    }
+                    if (currentMatch < 0) {
+                        currentMatch = 0;
+                        showMatch(position);
+                    }
+                    searchStatusLabel.setText(MessageFormat.format(resourceBundle.getString("searchStatus.searching"), matchesCount));
+                }, ModalityState.any());
+            }
+
+            @Override
+            public void searchFinished(boolean completed) {
+                ApplicationManager.getApplication().invokeLater(() -> {
+                    if (currentSearchPattern != pattern) {
+                        return;
+                    }
+                    int matchesCount;
+                    synchronized (searchMatches) {
+                        matchesCount = searchMatches.size();
+                    }
+                    searchStatusLabel.setText(MessageFormat.format(resourceBundle.getString(completed ? "searchStatus.matches" : "searchStatus.incomplete"), matchesCount));
+                }, ModalityState.any());
+            }
+        });
+        currentSearch = search;
+        ApplicationManager.getApplication().executeOnPooledThread(search::run);
+    }
+
+    /**
+     * Exports currently shown data to file using background task.
+     */
+    private void exportData() {
+        BinaryData data = getShownData();
+        if (data == null) {
+            return;
+        }
+
+        FileSaverDescriptor descriptor = new FileSaverDescriptor(resourceBundle.getString("export.title"), "");
+        VirtualFileWrapper fileWrapper = FileChooserFactory.getInstance().createSaveFileDialog(descriptor, this).save((VirtualFile) null, "data.bin");
+        if (fileWrapper != null) {
+            new ExportDebugDataTask(null, resourceBundle.getString("export.title"), resourceBundle.getString("exportFailed.title"), data, fileWrapper.getFile()).queue();
+        }
+    }
+
+    /**
+     * Returns data as shown including modifications.
+     *
+     * @return data or null
+     */
+    @Nullable
+    private BinaryData getShownData() {
+        if (editableData != null) {
+            return editableData;
+        }
+        return asyncPageData != null ? asyncPageData : binEdEditorComponent.getContentData();
+    }
+
+    private void showMatch(long position) {
+        SectCodeArea codeArea = binEdEditorComponent.getComponentPanel().getCodeArea();
+        int patternLength = currentSearchPattern == null ? 0 : currentSearchPattern.length;
+        codeArea.setSelection(position, position + patternLength);
+        codeArea.setActiveCaretPosition(position);
+        codeArea.revealCursor();
+    }
+
+    private void cancelSearch() {
+        if (currentSearch != null) {
+            currentSearch.cancel();
+            currentSearch = null;
+        }
+        currentSearchPattern = null;
+        synchronized (searchMatches) {
+            searchMatches.clear();
+        }
+        currentMatch = -1;
+        searchStatusLabel.setText("");
+    }
+
+    @Nonnull
+    private static byte[] parseHex(String text) {
+        String hex = text.replaceAll("\\s", "");
+        if (hex.length() % 2 != 0) {
+            throw new NumberFormatException("Odd number of hex digits");
+        }
+        byte[] result = new byte[hex.length() / 2];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = (byte) Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
+        }
+        return result;
+    }
+
+    /**
+     * Cancels pending data computation and releases listeners.
+     */
+    public void dispose() {
+        cancelSearch();
+        cancelDataLoading();
+        setContentData(null);
+    }
+
     public void setContentData(@Nullable BinaryData data) {
+        cancelSearch();
+        if (asyncPageData != null) {
+            asyncPageData.removePageLoadListener(pageLoadListener);
+        }
+        editableData = data instanceof EditableOverlayBinaryData ? (EditableOverlayBinaryData) data : null;
+        asyncPageData = editableData != null ? editableData.getSourceData() : data instanceof AsyncPageBinaryData ? (AsyncPageBinaryData) data : null;
+        if (asyncPageData != null) {
+            asyncPageData.addPageLoadListener(pageLoadListener);
+        }
+        loadingPagesColorAssessor.setPageData(asyncPageData);
+        changedDataColorAssessor.setPageData(asyncPageData);
         binEdEditorComponent.setContentData(data);
+        binEdEditorComponent.getComponentPanel().getCodeArea().setEditMode(editableData != null ? EditMode.INPLACE : EditMode.READ_ONLY);
         long dataSize = data == null ? 0 : data.getDataSize();
         // TODO binEdEditorComponent.getStatusPanel().setCurrentDocumentSize(dataSize, dataSize);
+        if (contentDataChangedListener != null) {
+            contentDataChangedListener.run();
+        }
+    }
+
+    /**
+     * Returns currently shown data if they can be modified.
+     *
+     * @return editable data or null
+     */
+    @Nullable
+    public EditableOverlayBinaryData getEditableData() {
+        return editableData;
+    }
+
+    public void setContentDataChangedListener(@Nullable Runnable contentDataChangedListener) {
+        this.contentDataChangedListener = contentDataChangedListener;
     }
 }
@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.intellij.debug.gui;
+
+import com.intellij.ui.JBColor;
+import org.exbin.bined.CodeAreaSection;
+import org.exbin.bined.intellij.debug.cache.AsyncPageBinaryData;
+import org.exbin.bined.swing.CodeAreaColorAssessor;
+import org.exbin.bined.swing.CodeAreaPaintState;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.awt.Color;
+import java.util.Optional;
+
+/**
+ * Color assessor painting bytes of asynchronous page data matching given
+ * predicate.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class PageStateColorAssessor implements CodeAreaColorAssessor {
+
+    private static final Color LOADING_BACKGROUND_COLOR = new JBColor(new Color(0xEBEBEB), new Color(0x3A3D3F));
+    private static final Color LOADING_TEXT_COLOR = JBColor.GRAY;
+    private static final Color CHANGED_BACKGROUND_COLOR = new JBColor(new Color(0xFFD7C2), new Color(0x5E3A2B));
+    private static final Color CHANGED_TEXT_COLOR = JBColor.RED;
+
+    private final CodeAreaColorAssessor parentColorAssessor;
+    private final Color backgroundColor;
+    private final Color textColor;
+    private final PositionPredicate predicate;
+    private AsyncPageBinaryData pageData;
+
+    public PageStateColorAssessor(@Nullable CodeAreaColorAssessor parentColorAssessor, Color backgroundColor, Color textColor, PositionPredicate predicate) {
+        this.parentColorAssessor = parentColorAssessor;
+        this.backgroundColor = backgroundColor;
+        this.textColor = textColor;
+        this.predicate = predicate;
+    }
+
+    /**
+     * Creates color assessor painting cells of pages which are still loading.
+     *
+     * @param parentColorAssessor parent color assessor
+     * @return color assessor
+     */
+    @Nonnull
+    public static PageStateColorAssessor createLoadingPagesColorAssessor(@Nullable CodeAreaColorAssessor parentColorAssessor) {
+        return new PageStateColorAssessor(parentColorAssessor, LOADING_BACKGROUND_COLOR, LOADING_TEXT_COLOR, (pageData, position) -> !pageData.isLoaded(position));
+    }
+
+    /**
+     * Creates color assessor highlighting bytes changed since debugger stopped
+     * last time.
+     *
+     * @param parentColorAssessor parent color assessor
+     * @return color assessor
+     */
+    @Nonnull
+    public static PageStateColorAssessor createChangedDataColorAssessor(@Nullable CodeAreaColorAssessor parentColorAssessor) {
+        return new PageStateColorAssessor(parentColorAssessor, CHANGED_BACKGROUND_COLOR, CHANGED_TEXT_COLOR, AsyncPageBinaryData::isChanged);
+    }
+
+    public void setPageData(@Nullable AsyncPageBinaryData pageData) {
+        this.pageData = pageData;
+    }
+
+    @Override
+    public void startPaint(CodeAreaPaintState codeAreaPaintState) {
+        if (parentColorAssessor != null) {
+            parentColorAssessor.startPaint(codeAreaPaintState);
+        }
+    }
+
+    @Nullable
+    @Override
+    public Color getPositionBackgroundColor(long rowDataPosition, int byteOnRow, int charOnRow, CodeAreaSection section, boolean inSelection) {
+        if (!inSelection && isMatching(rowDataPosition + byteOnRow)) {
+            return backgroundColor;
+        }
+
+        return parentColorAssessor != null ? parentColorAssessor.getPositionBackgroundColor(rowDataPosition, byteOnRow, charOnRow, section, inSelection) : null;
+    }
+
+    @Nullable
+    @Override
+    public Color getPositionTextColor(long rowDataPosition, int byteOnRow, int charOnRow, CodeAreaSection section, boolean inSelection) {
+        if (isMatching(rowDataPosition + byteOnRow)) {
+            return textColor;
+        }
+
+        return parentColorAssessor != null ? parentColorAssessor.getPositionTextColor(rowDataPosition, byteOnRow, charOnRow, section, inSelection) : null;
+    }
+
+    @Nonnull
+    @Override
+    public Optional<CodeAreaColorAssessor> getParentColorAssessor() {
+        return Optional.ofNullable(parentColorAssessor);
+    }
+
+    private boolean isMatching(long position) {
+        return pageData != null && position < pageData.getDataSize() && predicate.test(pageData, position);
+    }
+
+    /**
+     * Predicate for data position.
+     */
+    public interface PositionPredicate {
+
+        /**
+         * Returns true if position should be painted.
+         *
+         * @param pageData page data
+         * @param position position
+         * @return true if matching
+         */
+        boolean test(AsyncPageBinaryData pageData, long position);
+    }
+}
@@ -15,264 +15,184 @@
  */
 package org.exbin.bined.intellij.debug.intellij;
 
-import com.intellij.xdebugger.frame.XDebuggerTreeNodeHyperlink;
 import com.intellij.xdebugger.frame.XValue;
-import com.intellij.xdebugger.frame.XValueNode;
-import com.intellij.xdebugger.frame.XValuePlace;
+import com.intellij.xdebugger.frame.XValueGroup;
 import com.intellij.xdebugger.impl.ui.XValueTextProvider;
-import com.intellij.xdebugger.impl.ui.tree.nodes.MessageTreeNode;
-import com.intellij.xdebugger.impl.ui.tree.nodes.XValueContainerNode;
-import com.intellij.xdebugger.impl.ui.tree.nodes.XValueGroupNodeImpl;
-import com.intellij.xdebugger.impl.ui.tree.nodes.XValueNodeImpl;
-import org.exbin.auxiliary.binary_data.BinaryData;
-import org.exbin.auxiliary.binary_data.ByteArrayEditableData;
-import org.exbin.framework.bined.inspector.gui.BasicValuesPanel;
+import org.exbin.auxiliary.binary_data.OutOfBoundsException;
+import org.exbin.bined.intellij.debug.PrimitiveCodec;
+import org.exbin.framework.bined.objectdata.PageProvider;
+import org.exbin.framework.bined.objectdata.PageProviderBinaryData;
 
 import javax.annotation.Nonnull;
 import javax.annotation.ParametersAreNonnullByDefault;
-import javax.swing.JButton;
-import javax.swing.tree.TreeNode;
-import java.awt.event.MouseEvent;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
-import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Generic reader for debugger view child nodes.
+ * <p>
+ * Children are resolved and converted per page.
  *
  * @author ExBin Project (https://exbin.org)
  */
 @ParametersAreNonnullByDefault
-public class ChildNodesPageProvider implements BinaryData {
+public class ChildNodesPageProvider implements PageProvider {
 
-    private final XValueNodeImpl valueNode;
     private final ValueType childValueType;
     private final ValueExtractor valueExtractor;
     private final long childrenCount;
+    private final XValueChildrenCollector childrenCollector;
+    private final Map<Integer, XValueChildrenCollector> groupCollectors = new HashMap<>();
 
-    private byte[] dataCache = new byte[0];
-    private long dataCachePosition = 0;
-
-    public ChildNodesPageProvider(XValueNodeImpl valueNode, ValueType childValueType, long childrenCount, ValueExtractor valueExtractor) {
+    public ChildNodesPageProvider(XValue valueContainer, ValueType childValueType, long childrenCount, ValueExtractor valueExtractor) {
         this.childValueType = childValueType;
-        this.valueNode = valueNode;
+        this.childrenCollector = new XValueChildrenCollector(valueContainer);
         this.childrenCount = childrenCount;
         this.valueExtractor = valueExtractor;
     }
 
     @Nonnull
-    private XValue getValueNode(int position) {
-        int childCount = valueNode.getChildCount();
-        TreeNode firstChild = valueNode.getChildAt(0);
-        if (firstChild instanceof XValueGroupNodeImpl) {
-            int groupIndex = position / 100;
-            TreeNode groupNode = valueNode.getChildAt(groupIndex);
-            TreeNode firstGroupChild = groupNode.getChildAt(0);
-            if (firstGroupChild instanceof MessageTreeNode) {
-                XDebuggerTreeNodeHyperlink link = ((MessageTreeNode) firstGroupChild).getLink();
-                if (link != null) {
-                    link.onClick(new MouseEvent(new JButton("CLICK"), MouseEvent.MOUSE_CLICKED, System.currentTimeMillis(), 0, 0, 0, 2, false));
-                    //                int limit = 100;
-                    //                while (limit > 0 && childCount <= valueNode.getChildCount()) {
-                    //                    try {
-                    //                        Thread.sleep(100);
-                    //                    } catch (InterruptedException e) {
-                    //                        e.printStackTrace();
-                    //                    }
-                    //                    limit--;
-                    //                }
-                }
-            }
-            try {
-                TreeNode child = groupNode.getChildAt(position % 100);
-                return ((XValueContainerNode<XValue>) child).getValueContainer();
-            } catch (IndexOutOfBoundsException | ClassCastException ex) {
-                return new XValue() {
-                    @Override
-                    public void computePresentation(@Nonnull XValueNode xValueNode, @Nonnull XValuePlace xValuePlace) {
-                        xValueNode.setPresentation(null, "0", "0", false);
-                    }
+    @Override
+    public byte[] getPage(long pageIndex) {
+        long documentSize = getDocumentSize();
+        long pageStart = pageIndex * PageProviderBinaryData.PAGE_SIZE;
+        if (pageStart >= documentSize) {
+            throw new OutOfBoundsException();
+        }
 
-                    @Nonnull
-                    @Override
-                    public String toString() {
-                        return "0";
-                    }
-                };
-            }
-        } else {
-            while (position >= childCount - 1) {
-                // Emulate click on last item
-                try {
-                    MessageTreeNode lastChild = (MessageTreeNode) valueNode.getChildAt(childCount - 1);
-                    XDebuggerTreeNodeHyperlink link = lastChild.getLink();
-                    if (link != null) {
-                        link.onClick(new MouseEvent(new JButton("CLICK"), MouseEvent.MOUSE_CLICKED, System.currentTimeMillis(), 0, 0, 0, 2, false));
-                        //                int limit = 100;
-                        //                while (limit > 0 && childCount <= valueNode.getChildCount()) {
-                        //                    try {
-                        //                        Thread.sleep(100);
-                        //                    } catch (InterruptedException e) {
-                        //                        e.printStackTrace();
-                        //                    }
-                        //                    limit--;
-                        //                }
-                    }
-                } catch (ClassCastException ex) {
-                    // Cannot call children loader
-                }
-                int newChildCount = valueNode.getChildCount();
-                if (newChildCount <= childCount) {
-                    //                throw new IllegalStateException("Broken loading at position " + newChildCount);
-                    break;
-                } else {
-                    childCount = newChildCount;
+        int pageSize = (int) Math.min(documentSize - pageStart, PageProviderBinaryData.PAGE_SIZE);
+        byte[] page = new byte[pageSize];
+        if (childValueType == ValueType.BOOLEAN) {
+            int startChild = (int) (pageStart * 8);
+            int count = (int) Math.min(childrenCount - startChild, pageSize * 8L);
+            List<String> values = getValueTexts(startChild, count);
+            for (int i = 0; i < count; i++) {
+                if (Boolean.parseBoolean(values.get(i))) {
+                    page[i / 8] |= (byte) (0x80 >> (i % 8));
                 }
             }
-            try {
-                TreeNode child = valueNode.getChildAt(position);
-                return ((XValueContainerNode<XValue>) child).getValueContainer();
-            } catch (IndexOutOfBoundsException | ClassCastException ex) {
-                return new XValue() {
-                    @Override
-                    public void computePresentation(@Nonnull XValueNode xValueNode, @Nonnull XValuePlace xValuePlace) {
-                        xValueNode.setPresentation(null, "0", "0", false);
-                    }
+            return page;
+        }
 
-                    @Nonnull
-                    @Override
-                    public String toString() {
-                        return "0";
-                    }
-                };
-            }
+        int valueByteSize = childValueType.getValueByteSize();
+        int startChild = (int) (pageStart / valueByteSize);
+        int count = pageSize / valueByteSize;
+        List<String> values = getValueTexts(startChild, count);
+        for (int i = 0; i < count; i++) {
+            PrimitiveCodec.BIG_ENDIAN.putValue(parseValue(values.get(i)), valueByteSize, page, i * valueByteSize);
         }
+
+        return page;
     }
 
     @Override
-    public boolean isEmpty() {
-        return childrenCount == 0;
+    public long getDocumentSize() {
+        if (childValueType == ValueType.BOOLEAN) {
+            return (childrenCount + 7) / 8;
+        }
+        return childValueType.getValueByteSize() * childrenCount;
     }
 
-    @Override
-    public long getDataSize() {
-        if (childValueType.valueByteSize == 0) {
-            switch (childValueType) {
-                case BOOLEAN: {
-                    return (childrenCount + 7) / 8;
-                }
+    /**
+     * Returns value texts of given range of children.
+     * <p>
+     * Children and their presentations are requested directly from debugger
+     * value without touching debugger tree.
+     *
+     * @param startChild index of first child
+     * @param count number of children
+     * @return list of value texts
+     */
+    @Nonnull
+    private List<String> getValueTexts(int startChild, int count) {
+        List<XValue> children = getChildren(startChild, count);
+        List<XValueTextCollector> textCollectors = new ArrayList<>(children.size());
+        for (XValue child : children) {
+            XValueTextCollector textCollector = new XValueTextCollector(child);
+            textCollector.start();
+            textCollectors.add(textCollector);
+        }
+
+        long deadline = System.currentTimeMillis() + XValueChildrenCollector.TIMEOUT_MS;
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < children.size(); i++) {
+            XValueTextCollector textCollector = textCollectors.get(i);
+            textCollector.waitFor(deadline);
+            textCollector.dispose();
+            String valueText = valueExtractor.getValueText(children.get(i));
+            if (valueText.isEmpty() && textCollector.getValueText() != null) {
+                valueText = textCollector.getValueText();
             }
+            values.add(valueText);
         }
-        return childValueType.valueByteSize * childrenCount;
+        fillMissing(values, count);
+        return values;
     }
 
-    @Override
-    public byte getByte(long position) {
-        switch (childValueType) {
-            case BOOLEAN: {
-                try {
-                    byte result = 0;
-                    for (int i = 0; i < 8; i++) {
-                        XValue valueContainer = getValueNode((int) position * 8 + i);
-                        String valueText = valueExtractor.getValueText(valueContainer);
-                        result = (byte) ((result << 1) + (Boolean.parseBoolean(valueText) ? 1 : 0));
-                    }
-                    return result;
-                } catch (NumberFormatException ex) {
-                    return 0;
-                }
-            }
-            case BYTE: {
-                XValue valueContainer = getValueNode((int) position);
-                String valueText = valueExtractor.getValueText(valueContainer);
-                try {
-                    return (byte) Short.parseShort(valueText);
-                } catch (NumberFormatException ex) {
-                    return 0;
-                }
-            }
+    @Nonnull
+    private List<XValue> getChildren(int startChild, int count) {
+        int endChild = startChild + count;
+        List<XValue> children = childrenCollector.getChildren(endChild);
+        if (!children.isEmpty()) {
+            return startChild < children.size() ? children.subList(startChild, children.size()) : Collections.emptyList();
         }
 
-        if (dataCachePosition <= position && dataCachePosition + dataCache.length > position) {
-            return dataCache[(int) (position - dataCachePosition)];
+        // Children split into groups of equal size
+        List<XValueGroup> groups = childrenCollector.getGroups();
+        if (groups.isEmpty()) {
+            return Collections.emptyList();
         }
 
-        if (dataCache.length == 0) {
-            dataCache = new byte[childValueType.valueByteSize];
+        int groupSize = getGroupCollector(groups, 0).getChildren(Integer.MAX_VALUE).size();
+        if (groupSize == 0) {
+            return Collections.emptyList();
         }
 
-        int offset = (int) (position % childValueType.valueByteSize);
-        dataCachePosition = position - offset;
-        XValue valueContainer = getValueNode((int) (position / childValueType.valueByteSize));
-        String valueText = valueExtractor.getValueText(valueContainer);
-        switch (childValueType) {
-            case SHORT: {
-                short value = Short.parseShort(valueText);
-                dataCache[0] = (byte) (value >> 8);
-                dataCache[1] = (byte) (value & 0xff);
+        List<XValue> result = new ArrayList<>(count);
+        int position = startChild;
+        while (position < endChild) {
+            int groupIndex = position / groupSize;
+            if (groupIndex >= groups.size()) {
                 break;
             }
-            case INTEGER: {
-                int value = Integer.parseInt(valueText);
-                dataCache[0] = (byte) (value >> 24);
-                dataCache[1] = (byte) ((value >> 16) & 0xff);
-                dataCache[2] = (byte) ((value >> 8) & 0xff);
-                dataCache[3] = (byte) (value & 0xff);
-                break;
-            }
-            case LONG: {
-                long value = Long.parseLong(valueText);
-                BigInteger bigInteger = BigInteger.valueOf(value);
-                for (int bit = 0; bit < 7; bit++) {
-                    BigInteger nextByte = bigInteger.and(BasicValuesPanel.BIG_INTEGER_BYTE_MASK);
-                    dataCache[7 - bit] = nextByte.byteValue();
-                    bigInteger = bigInteger.shiftRight(8);
-                }
+            int groupStart = groupIndex * groupSize;
+            int groupEnd = Math.min(groupStart + groupSize, endChild);
+            List<XValue> groupChildren = getGroupCollector(groups, groupIndex).getChildren(groupEnd - groupStart);
+            if (groupChildren.size() <= position - groupStart) {
                 break;
             }
+            result.addAll(groupChildren.subList(position - groupStart, groupChildren.size()));
+            position = groupStart + groupChildren.size();
         }
-
-        return dataCache[offset];
-    }
-
-    @Nonnull
-    @Override
-    public BinaryData copy() {
-        return copy(0, getDataSize());
+        return result;
     }
 
     @Nonnull
-    @Override
-    public BinaryData copy(long startFrom, long length) {
-        ByteArrayEditableData result = new ByteArrayEditableData();
-        result.insertUninitialized(0, length);
-        for (int i = 0; i < length; i++) {
-            result.setByte(i, getByte(startFrom + i));
+    private XValueChildrenCollector getGroupCollector(List<XValueGroup> groups, int groupIndex) {
+        synchronized (groupCollectors) {
+            return groupCollectors.computeIfAbsent(groupIndex, index -> new XValueChildrenCollector(groups.get(index)));
         }
-        return result;
     }
 
-    @Override
-    public void copyToArray(long startFrom, byte[] target, int offset, int length) {
-        for (int i = 0; i < length; i++) {
-            target[offset + i] = getByte(startFrom + i);
+    private static void fillMissing(List<String> values, int count) {
+        while (values.size() < count) {
+            values.add("0");
         }
     }
 
-    @Override
-    public void saveToStream(OutputStream outputStream) throws IOException {
-        throw new UnsupportedOperationException();
-    }
-
-    @Nonnull
-    @Override
-    public InputStream getDataInputStream() {
-        throw new UnsupportedOperationException();
-    }
-
-    @Override
-    public void dispose() {
+    private static long parseValue(String valueText) {
+        try {
+            return Long.parseLong(valueText);
+        } catch (NumberFormatException ex) {
+            try {
+                return Long.parseUnsignedLong(valueText);
+            } catch (NumberFormatException ex2) {
+                return 0;
+            }
+        }
     }
 
     @Nonnull
@@ -296,99 +216,14 @@ public class ChildNodesPageProvider implements BinaryData {
         INTEGER(4),
         LONG(8);
 
-        private int valueByteSize;
+        private final int valueByteSize;
 
         ValueType(int valueByteSize) {
             this.valueByteSize = valueByteSize;
         }
-    }
 
-//    private static class ValueNodeSegment implements XCompositeNode {
-//        public static final int TIMEOUT_MS = 25_000;
-//
-//        private final int targetPosition;
-//        private final XValueNodeImpl valueNode;
-//        private int position = 0;
-//        private List<XValue> childrenList = new SmartList<>();
-//        private String myErrorMessage;
-//        private final Semaphore myFinished = new Semaphore(0);
-//
-//        public ValueNodeSegment(XValueNodeImpl valueNode, int targetPosition) {
-//            this.valueNode = valueNode;
-//            this.targetPosition = targetPosition;
-//        }
-//
-//        public int getTargetPosition() {
-//            return targetPosition;
-//        }
-//
-//        @Override
-//        public void addChildren(@NotNull XValueChildrenList valueChildrenList, boolean b) {
-//            int listSize = valueChildrenList.size();
-//            for (int i = 0; i < listSize; i++) {
-//                if (position >= targetPosition) {
-//                    childrenList.add(valueChildrenList.getValue(i));
-//                }
-//                position++;
-//            }
-//        }
-//
-//        public void tooManyChildren(int remaining) {
-//            myFinished.release();
-//        }
-//
-//        @Override
-//        public void tooManyChildren(int remaining, @NotNull Runnable addNextChildren) {
-//            XCompositeNode.super.tooManyChildren(remaining, addNextChildren);
-//        }
-//
-//        @Override
-//        public void setAlreadySorted(boolean b) {
-//        }
-//
-//        public void setMessage(@NotNull String message, Icon icon, @NotNull final SimpleTextAttributes attributes, @Nullable XDebuggerTreeNodeHyperlink link) {
-//        }
-//
-//        public void setErrorMessage(@NotNull String message, @Nullable XDebuggerTreeNodeHyperlink link) {
-//            setErrorMessage(message);
-//        }
-//
-//        public void setErrorMessage(@NotNull String errorMessage) {
-//            myErrorMessage = errorMessage;
-//            myFinished.release();
-//        }
-//
-//        @NotNull
-//        public Pair<List<XValue>, String> waitFor() {
-//            return waitFor(TIMEOUT_MS);
-//        }
-//
-//        @NotNull
-//        public Pair<List<XValue>, String> waitFor(long timeoutMs) {
-//            return waitFor(timeoutMs, (semaphore, timeout) -> waitFor(myFinished, timeout));
-//        }
-//
-//        @NotNull
-//        public Pair<List<XValue>, String> waitFor(long timeoutMs, BiFunction<? super Semaphore, ? super Long, Boolean> waitFunction) {
-//            if (!waitFunction.apply(myFinished, timeoutMs)) {
-//                throw new AssertionError("Waiting timed out");
-//            }
-//
-//            return Pair.create(childrenList, myErrorMessage);
-//        }
-//
-//        public static boolean waitFor(Semaphore semaphore, long timeoutInMillis) {
-//            long end = System.currentTimeMillis() + timeoutInMillis;
-//            long remaining = timeoutInMillis;
-//            do {
-//                try {
-//                    return semaphore.tryAcquire(remaining, TimeUnit.MILLISECONDS);
-//                }
-//                catch (InterruptedException ignored) {
-//                    remaining = end - System.currentTimeMillis();
-//                }
-//            } while (remaining > 0);
-//            return false;
-//        }
-//    }
+        public int getValueByteSize() {
+            return valueByteSize;
+        }
+    }
 }
@@ -0,0 +1,275 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.intellij.debug.intellij;
+
+import com.intellij.util.concurrency.AppExecutorUtil;
+import com.intellij.xdebugger.evaluation.XDebuggerEvaluator;
+import com.intellij.xdebugger.frame.XValue;
+import org.exbin.auxiliary.binary_data.OutOfBoundsException;
+import org.exbin.bined.intellij.debug.cache.SearchablePageProvider;
+import org.exbin.framework.bined.objectdata.PageProviderBinaryData;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Data source evaluating expression in debugged process for each page.
+ * <p>
+ * Expression is expected to return page data encoded as text, which is
+ * decoded locally.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class EvaluatedPageProvider implements SearchablePageProvider {
+
+    public static final long TIMEOUT_MS = 25_000;
+    /**
+     * Executor for prefetching of evaluated pages.
+     */
+    public static final Executor PREFETCH_EXECUTOR = AppExecutorUtil.createBoundedApplicationPoolExecutor("BinEd Debug Evaluation", 1);
+
+    private final XDebuggerEvaluator evaluator;
+    private final long documentSize;
+    private final PageExpression pageExpression;
+    private final TextEncoding textEncoding;
+    @Nullable
+    private SearchExpression searchExpression = null;
+
+    public EvaluatedPageProvider(XDebuggerEvaluator evaluator, long documentSize, PageExpression pageExpression, TextEncoding textEncoding) {
+        this.evaluator = evaluator;
+        this.documentSize = documentSize;
+        this.pageExpression = pageExpression;
+        this.textEncoding = textEncoding;
+    }
+
+    @Nonnull
+    @Override
+    public byte[] getPage(long pageIndex) {
+        long pageStart = pageIndex * PageProviderBinaryData.PAGE_SIZE;
+        if (pageStart >= documentSize) {
+            throw new OutOfBoundsException();
+        }
+
+        int length = (int) Math.min(documentSize - pageStart, PageProviderBinaryData.PAGE_SIZE);
+        String text = evaluateToText(pageExpression.getExpression(pageStart, length));
+        byte[] decoded;
+        try {
+            decoded = textEncoding.decode(text);
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalStateException("Unable to decode page " + pageIndex, ex);
+        }
+        if (decoded.length != length) {
+            // Truncated or shortened result must not be shown as data
+            throw new IllegalStateException("Unexpected length of page " + pageIndex + ": " + decoded.length + " instead of " + length);
+        }
+        return decoded;
+    }
+
+    @Override
+    public long getDocumentSize() {
+        return documentSize;
+    }
+
+    /**
+     * Sets expression for searching in debugged process.
+     *
+     * @param searchExpression search expression or null if not supported
+     */
+    public void setSearchExpression(@Nullable SearchExpression searchExpression) {
+        this.searchExpression = searchExpression;
+    }
+
+    @Override
+    public boolean isSearchSupported() {
+        return searchExpression != null;
+    }
+
+    @Nonnull
+    @Override
+    public long[] findMatches(byte[] pattern, long fromPosition, int maxMatches) {
+        if (searchExpression == null) {
+            throw new UnsupportedOperationException("Search is not supported");
+        }
+
+        String text = evaluateToText(searchExpression.getExpression(pattern, fromPosition, maxMatches));
+        String positionsText = text.trim();
+        if (positionsText.startsWith("[") && positionsText.endsWith("]")) {
+            positionsText = positionsText.substring(1, positionsText.length() - 1).trim();
+        }
+        if (positionsText.isEmpty()) {
+            return new long[0];
+        }
+
+        String[] positions = positionsText.split("[,\\s]+");
+        long[] result = new long[Math.min(positions.length, maxMatches)];
+        try {
+            for (int i = 0; i < result.length; i++) {
+                result[i] = Long.parseLong(positions[i]);
+            }
+        } catch (NumberFormatException ex) {
+            throw new IllegalStateException("Unexpected search result: " + text, ex);
+        }
+        return result;
+    }
+
+    /**
+     * Evaluates expression and returns full text of the result.
+     *
+     * @param expression expression
+     * @return result text
+     */
+    @Nonnull
+    public String evaluateToText(String expression) {
+        return evaluateToText(evaluator, expression);
+    }
+
+    /**
+     * Evaluates expression using given evaluator and returns full text of the
+     * result without quotes.
+     *
+     * @param evaluator debugger evaluator
+     * @param expression expression
+     * @return result text
+     */
+    @Nonnull
+    public static String evaluateToText(XDebuggerEvaluator evaluator, String expression) {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        XValue value = evaluate(evaluator, expression);
+        XValueTextCollector textCollector = new XValueTextCollector(value);
+        textCollector.start();
+        String text = textCollector.computeFullValueText(deadline);
+        textCollector.dispose();
+        if (text == null) {
+            throw new IllegalStateException("Unable to obtain result of expression: " + expression);
+        }
+        return unquote(text);
+    }
+
+    /**
+     * Evaluates expression using given evaluator and waits for the result.
+     *
+     * @param evaluator debugger evaluator
+     * @param expression expression
+     * @return result value
+     */
+    @Nonnull
+    public static XValue evaluate(XDebuggerEvaluator evaluator, String expression) {
+        CompletableFuture<XValue> result = new CompletableFuture<>();
+        evaluator.evaluate(expression, new XDebuggerEvaluator.XEvaluationCallback() {
+            @Override
+            public void evaluated(XValue value) {
+                result.complete(value);
+            }
+
+            @Override
+            public void errorOccurred(String errorMessage) {
+                result.completeExceptionally(new IllegalStateException(errorMessage));
+            }
+        }, null);
+
+        try {
+            return result.get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Evaluation interrupted", ex);
+        } catch (ExecutionException | TimeoutException ex) {
+            throw new IllegalStateException("Unable to evaluate expression: " + expression, ex);
+        }
+    }
+
+    @Nonnull
+    private static String unquote(String text) {
+        String result = text.trim();
+        if (result.length() >= 2) {
+            char first = result.charAt(0);
+            char last = result.charAt(result.length() - 1);
+            if ((first == '"' || first == '\'') && first == last) {
+                result = result.substring(1, result.length() - 1);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Builder of expression returning encoded data of given range.
+     */
+    public interface PageExpression {
+
+        @Nonnull
+        String getExpression(long startPosition, int length);
+    }
+
+    /**
+     * Builder of expression returning comma separated positions of next
+     * matches, at most given number of them.
+     */
+    public interface SearchExpression {
+
+        @Nonnull
+        String getExpression(byte[] pattern, long fromPosition, int maxMatches);
+    }
+
+    /**
+     * Text encoding of evaluated data.
+     */
+    public enum TextEncoding {
+        HEX {
+            @Nonnull
+            @Override
+            public byte[] decode(String text) {
+                if (text.length() % 2 != 0) {
+                    throw new IllegalArgumentException("Odd length of hexadecimal data: " + text.length());
+                }
+
+                byte[] result = new byte[text.length() / 2];
+                for (int i = 0; i < result.length; i++) {
+                    int high = Character.digit(text.charAt(i * 2), 16);
+                    int low = Character.digit(text.charAt(i * 2 + 1), 16);
+                    if (high < 0 || low < 0) {
+                        throw new IllegalArgumentException("Invalid hexadecimal digit at position " + (high < 0 ? i * 2 : i * 2 + 1));
+                    }
+                    result[i] = (byte) ((high << 4) + low);
+                }
+                return result;
+            }
+        },
+        BASE64 {
+            @Nonnull
+            @Override
+            public byte[] decode(String text) {
+                return Base64.getMimeDecoder().decode(text);
+            }
+        };
+
+        /**
+         * Decodes evaluated text.
+         *
+         * @param text encoded text
+         * @return decoded data
+         * @throws IllegalArgumentException if text is not valid encoded data
+         */
+        @Nonnull
+        public abstract byte[] decode(String text);
+    }
+}
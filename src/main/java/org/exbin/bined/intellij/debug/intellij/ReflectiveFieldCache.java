@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.intellij.debug.intellij;
+
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache of reflective field accessors per class.
+ * <p>
+ * Fields are resolved once per class including superclasses, missing fields
+ * are cached as well.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public final class ReflectiveFieldCache {
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private static final ClassValue<Map<String, Optional<MethodHandle>>> GETTERS = new ClassValue<>() {
+        @Override
+        protected Map<String, Optional<MethodHandle>> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private ReflectiveFieldCache() {
+    }
+
+    /**
+     * Returns getter for field of given class or its superclasses.
+     *
+     * @param type class
+     * @param fieldName field name
+     * @return getter accepting and returning object or null if not available
+     */
+    @Nullable
+    public static MethodHandle getGetter(Class<?> type, String fieldName) {
+        return GETTERS.get(type).computeIfAbsent(fieldName, name -> Optional.ofNullable(findGetter(type, name))).orElse(null);
+    }
+
+    /**
+     * Returns value of field of given object.
+     *
+     * @param target target object
+     * @param fieldName field name
+     * @return field value or null if not present or target is null
+     */
+    @Nullable
+    public static Object getFieldValue(@Nullable Object target, String fieldName) {
+        return target == null ? null : getFieldValue(target, target.getClass(), fieldName);
+    }
+
+    /**
+     * Returns value of field of given object declared in given class or its
+     * superclasses.
+     *
+     * @param target target object
+     * @param type class to start field lookup from
+     * @param fieldName field name
+     * @return field value or null if not present
+     */
+    @Nullable
+    public static Object getFieldValue(Object target, Class<?> type, String fieldName) {
+        MethodHandle getter = getGetter(type, fieldName);
+        if (getter == null) {
+            return null;
+        }
+
+        try {
+            return (Object) getter.invokeExact(target);
+        } catch (Throwable ex) {
+            return null;
+        }
+    }
+
+    @Nullable
+    private static MethodHandle findGetter(Class<?> type, String fieldName) {
+        Class<?> currentType = type;
+        while (currentType != null) {
+            try {
+                Field field = currentType.getDeclaredField(fieldName);
+                field.setAccessible(true);
+                return MethodHandles.lookup().unreflectGetter(field).asType(GETTER_TYPE);
+            } catch (NoSuchFieldException ex) {
+                currentType = currentType.getSuperclass();
+            } catch (IllegalAccessException | RuntimeException ex) {
+                return null;
+            }
+        }
+
+        return null;
+    }
+}
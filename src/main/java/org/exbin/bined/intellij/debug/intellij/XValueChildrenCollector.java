@@ -0,0 +1,193 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.intellij.debug.intellij;
+
+import com.intellij.ui.SimpleTextAttributes;
+import com.intellij.xdebugger.frame.XCompositeNode;
+import com.intellij.xdebugger.frame.XDebuggerTreeNodeHyperlink;
+import com.intellij.xdebugger.frame.XValue;
+import com.intellij.xdebugger.frame.XValueChildrenList;
+import com.intellij.xdebugger.frame.XValueContainer;
+import com.intellij.xdebugger.frame.XValueGroup;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import javax.swing.Icon;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collector of children of debugger value container.
+ * <p>
+ * Children are requested directly from the value container without touching
+ * the debugger tree, further batches are requested on demand.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class XValueChildrenCollector implements XCompositeNode {
+
+    public static final long TIMEOUT_MS = 25_000;
+
+    private final XValueContainer valueContainer;
+    private final List<XValue> children = new ArrayList<>();
+    private final List<XValueGroup> groups = new ArrayList<>();
+    private boolean started = false;
+    private boolean lastReceived = false;
+    private Runnable addNextChildren = null;
+    private String errorMessage = null;
+    private volatile boolean obsolete = false;
+
+    public XValueChildrenCollector(XValueContainer valueContainer) {
+        this.valueContainer = valueContainer;
+    }
+
+    /**
+     * Returns children up to given count, requesting further batches if needed.
+     *
+     * @param count requested count of children
+     * @return list of available children, might be shorter than requested
+     */
+    @Nonnull
+    public List<XValue> getChildren(int count) {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+        boolean computeChildren = false;
+        synchronized (this) {
+            if (!started) {
+                started = true;
+                computeChildren = true;
+            }
+        }
+        if (computeChildren) {
+            valueContainer.computeChildren(this);
+        }
+
+        while (true) {
+            Runnable nextChildren = null;
+            synchronized (this) {
+                if (children.size() >= count || errorMessage != null || obsolete) {
+                    break;
+                }
+
+                if (addNextChildren != null) {
+                    nextChildren = addNextChildren;
+                    addNextChildren = null;
+                    lastReceived = false;
+                } else if (lastReceived) {
+                    break;
+                } else {
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    try {
+                        wait(remaining);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                }
+            }
+
+            if (nextChildren != null) {
+                nextChildren.run();
+            }
+        }
+
+        synchronized (this) {
+            return new ArrayList<>(children.subList(0, Math.min(count, children.size())));
+        }
+    }
+
+    /**
+     * Returns groups of children reported by the value container.
+     *
+     * @return list of groups
+     */
+    @Nonnull
+    public List<XValueGroup> getGroups() {
+        getChildren(1);
+        synchronized (this) {
+            return new ArrayList<>(groups);
+        }
+    }
+
+    @Nullable
+    public synchronized String getErrorMessage() {
+        return errorMessage;
+    }
+
+    /**
+     * Stops collecting of further children.
+     */
+    public void dispose() {
+        obsolete = true;
+        synchronized (this) {
+            notifyAll();
+        }
+    }
+
+    @Override
+    public synchronized void addChildren(XValueChildrenList valueChildrenList, boolean last) {
+        for (int i = 0; i < valueChildrenList.size(); i++) {
+            children.add(valueChildrenList.getValue(i));
+        }
+        groups.addAll(valueChildrenList.getTopGroups());
+        groups.addAll(valueChildrenList.getBottomGroups());
+        if (last) {
+            lastReceived = true;
+        }
+        notifyAll();
+    }
+
+    @Override
+    public synchronized void tooManyChildren(int remaining) {
+        lastReceived = true;
+        notifyAll();
+    }
+
+    @Override
+    public synchronized void tooManyChildren(int remaining, @Nullable Runnable addNextChildren) {
+        this.addNextChildren = addNextChildren;
+        lastReceived = true;
+        notifyAll();
+    }
+
+    @Override
+    public void setAlreadySorted(boolean alreadySorted) {
+    }
+
+    @Override
+    public void setErrorMessage(String errorMessage) {
+        setErrorMessage(errorMessage, null);
+    }
+
+    @Override
+    public synchronized void setErrorMessage(String errorMessage, @Nullable XDebuggerTreeNodeHyperlink link) {
+        this.errorMessage = errorMessage;
+        notifyAll();
+    }
+
+    @Override
+    public void setMessage(String message, @Nullable Icon icon, SimpleTextAttributes attributes, @Nullable XDebuggerTreeNodeHyperlink link) {
+    }
+
+    @Override
+    public boolean isObsolete() {
+        return obsolete;
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.intellij.debug.intellij;
+
+import com.intellij.xdebugger.frame.XFullValueEvaluator;
+import com.intellij.xdebugger.frame.XValue;
+import com.intellij.xdebugger.frame.XValueNode;
+import com.intellij.xdebugger.frame.XValuePlace;
+import com.intellij.xdebugger.frame.presentation.XValuePresentation;
+import com.intellij.xdebugger.impl.ui.XValuePresentationUtil;
+
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import javax.swing.Icon;
+import java.awt.Font;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Collector of debugger value presentation without debugger tree node.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class XValueTextCollector implements XValueNode {
+
+    private final XValue value;
+    private final CountDownLatch presentationLatch = new CountDownLatch(1);
+    private volatile String valueText = null;
+    private volatile XFullValueEvaluator fullValueEvaluator = null;
+    private volatile boolean obsolete = false;
+
+    public XValueTextCollector(XValue value) {
+        this.value = value;
+    }
+
+    /**
+     * Requests computation of value presentation.
+     */
+    public void start() {
+        value.computePresentation(this, XValuePlace.TREE);
+    }
+
+    /**
+     * Waits for presentation of the value.
+     *
+     * @param deadline time in milliseconds when waiting should stop
+     * @return true if presentation is available
+     */
+    public boolean waitFor(long deadline) {
+        try {
+            long remaining = deadline - System.currentTimeMillis();
+            return presentationLatch.await(Math.max(remaining, 0), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Returns value text of presentation.
+     *
+     * @return value text or null if not available
+     */
+    @Nullable
+    public String getValueText() {
+        return valueText;
+    }
+
+    @Nullable
+    public XFullValueEvaluator getFullValueEvaluator() {
+        return fullValueEvaluator;
+    }
+
+    /**
+     * Returns full value text using full value evaluator if value
+     * presentation is shortened.
+     *
+     * @param deadline time in milliseconds when waiting should stop
+     * @return value text or null if not available
+     */
+    @Nullable
+    public String computeFullValueText(long deadline) {
+        if (!waitFor(deadline)) {
+            return null;
+        }
+
+        XFullValueEvaluator evaluator = fullValueEvaluator;
+        if (evaluator == null) {
+            return valueText;
+        }
+
+        CompletableFuture<String> fullValue = new CompletableFuture<>();
+        evaluator.startEvaluation(new XFullValueEvaluator.XFullValueEvaluationCallback() {
+            @Override
+            public void evaluated(String fullValueText) {
+                fullValue.complete(fullValueText);
+            }
+
+            @Override
+            public void evaluated(String fullValueText, @Nullable Font font) {
+                fullValue.complete(fullValueText);
+            }
+
+            @Override
+            public void errorOccurred(String errorMessage) {
+                fullValue.completeExceptionally(new IllegalStateException(errorMessage));
+            }
+
+            @Override
+            public boolean isObsolete() {
+                return obsolete || fullValue.isDone();
+            }
+        });
+
+        try {
+            return fullValue.get(Math.max(deadline - System.currentTimeMillis(), 0), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException | TimeoutException ex) {
+            return null;
+        }
+    }
+
+    public void dispose() {
+        obsolete = true;
+    }
+
+    @Override
+    public void setPresentation(@Nullable Icon icon, @Nullable String type, String value, boolean hasChildren) {
+        valueText = value;
+        presentationLatch.countDown();
+    }
+
+    @Override
+    public void setPresentation(@Nullable Icon icon, XValuePresentation presentation, boolean hasChildren) {
+        valueText = XValuePresentationUtil.computeValueText(presentation);
+        presentationLatch.countDown();
+    }
+
+    @Override
+    public void setFullValueEvaluator(XFullValueEvaluator fullValueEvaluator) {
+        this.fullValueEvaluator = fullValueEvaluator;
+    }
+
+    @Override
+    public boolean isObsolete() {
+        return obsolete;
+    }
+}
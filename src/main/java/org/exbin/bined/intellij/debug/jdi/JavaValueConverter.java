@@ -0,0 +1,459 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.intellij.debug.jdi;
+
+import com.intellij.debugger.engine.JavaValue;
+import com.intellij.debugger.ui.impl.watch.ValueDescriptorImpl;
+import com.intellij.psi.CommonClassNames;
+import com.intellij.xdebugger.XDebugSession;
+import com.intellij.xdebugger.evaluation.XDebuggerEvaluator;
+import com.intellij.xdebugger.frame.XStackFrame;
+import com.intellij.xdebugger.frame.XValue;
+import com.intellij.xdebugger.impl.ui.tree.nodes.XValueNodeImpl;
+import com.sun.jdi.ArrayReference;
+import com.sun.jdi.ArrayType;
+import com.sun.jdi.ByteValue;
+import com.sun.jdi.CharValue;
+import com.sun.jdi.ClassType;
+import com.sun.jdi.DoubleValue;
+import com.sun.jdi.FloatValue;
+import com.sun.jdi.IntegerValue;
+import com.sun.jdi.LongValue;
+import com.sun.jdi.ObjectReference;
+import com.sun.jdi.ShortValue;
+import com.sun.jdi.Type;
+import com.sun.jdi.Value;
+import org.exbin.auxiliary.binary_data.BinaryData;
+import org.exbin.auxiliary.binary_data.ByteArrayData;
+import org.exbin.bined.intellij.debug.DebugValueConverter;
+import org.exbin.bined.intellij.debug.DebugViewDataProvider;
+import org.exbin.bined.intellij.debug.DefaultDebugViewDataProvider;
+import org.exbin.bined.intellij.debug.LazyDebugViewDataProvider;
+import org.exbin.bined.intellij.debug.PrimitiveCodec;
+import org.exbin.bined.intellij.debug.cache.AsyncPageBinaryData;
+import org.exbin.bined.intellij.debug.cache.CachedPageProvider;
+import org.exbin.bined.intellij.debug.cache.DebugSessionPageCache;
+import org.exbin.bined.intellij.debug.cache.EditableOverlayBinaryData;
+import org.exbin.bined.intellij.debug.cache.PageCache;
+import org.exbin.bined.intellij.debug.intellij.ChildNodesPageProvider;
+import org.exbin.bined.intellij.debug.intellij.EvaluatedPageProvider;
+import org.exbin.bined.intellij.debug.intellij.XValueNodeConvertor;
+import org.exbin.framework.bined.objectdata.PageProvider;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Java debugger values converter.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class JavaValueConverter implements DebugValueConverter {
+
+    private static final String JAVA_NIO_BYTE_BUFFER = "java.nio.ByteBuffer";
+
+    @Nonnull
+    @Override
+    public String getValueClassName() {
+        return "com.intellij.debugger.engine.JavaValue";
+    }
+
+    @Override
+    public boolean isApplicable(XValue value) {
+        ValueDescriptorImpl descriptor = ((JavaValue) value).getDescriptor();
+        return descriptor.isString() || descriptor.isArray() || descriptor.isPrimitive() || isBasicType(descriptor) || isByteBuffer(descriptor);
+    }
+
+    @Override
+    public void addProviders(XValueNodeImpl dataNode, @Nullable String initialValue, @Nullable XDebugSession debugSession, List<DebugViewDataProvider> providers) {
+        XValue container = dataNode.getValueContainer();
+        ChildNodesPageProvider.ValueType childValueType = null;
+        ChildNodesPageProvider.ValueExtractor childValueExtractor = null;
+        long childValueSize = 0;
+
+        ValueDescriptorImpl descriptor = ((JavaValue) container).getDescriptor();
+        if (descriptor.isPrimitive() || isBasicType(descriptor) || !descriptor.isNull()) {
+            if (descriptor.isArray()) {
+                String declaredType = descriptor.getDeclaredType();
+                ArrayReference arrayRef = (ArrayReference) descriptor.getValue();
+                if (declaredType != null && arrayRef != null && declaredType.endsWith("[]")) {
+                    childValueExtractor = ChildNodesPageProvider::getValueText;
+                    switch (declaredType.substring(0, declaredType.length() - 2)) {
+                        case CommonClassNames.JAVA_LANG_BOOLEAN:
+                        case "boolean": {
+                            childValueType = ChildNodesPageProvider.ValueType.BOOLEAN;
+                            childValueSize = arrayRef.length();
+                            break;
+                        }
+                        case CommonClassNames.JAVA_LANG_CHARACTER:
+                        case "char":
+                        case CommonClassNames.JAVA_LANG_BYTE:
+                        case "byte": {
+                            childValueType = ChildNodesPageProvider.ValueType.BYTE;
+                            childValueSize = arrayRef.length();
+                            break;
+                        }
+                        case CommonClassNames.JAVA_LANG_SHORT:
+                        case "short": {
+                            childValueType = ChildNodesPageProvider.ValueType.SHORT;
+                            childValueSize = arrayRef.length();
+                            break;
+                        }
+                        case CommonClassNames.JAVA_LANG_INTEGER:
+                        case "int": {
+                            childValueType = ChildNodesPageProvider.ValueType.INTEGER;
+                            childValueSize = arrayRef.length();
+                            break;
+                        }
+                        case CommonClassNames.JAVA_LANG_LONG:
+                        case "long": {
+                            childValueType = ChildNodesPageProvider.ValueType.LONG;
+                            childValueSize = arrayRef.length();
+                            break;
+                        }
+                    }
+                }
+
+                BinaryData data = processArrayData((JavaValue) container, debugSession);
+                if (data != null)
+                    providers.add(new DefaultDebugViewDataProvider("Binary sequence from array", data));
+            } else if (isSimpleValueType(descriptor)) {
+                providers.add(new LazyDebugViewDataProvider("Binary value", () -> {
+                    BinaryData data = processSimpleValue(descriptor);
+                    return data != null ? data : new ByteArrayData();
+                }));
+            } else if (descriptor.isString()) {
+                DebugViewDataProvider stringDataProvider = processStringData((JavaValue) container, debugSession);
+                if (stringDataProvider != null) {
+                    providers.add(stringDataProvider);
+                }
+            } else if (isByteBuffer(descriptor)) {
+                DebugViewDataProvider bufferDataProvider = processByteBufferData((JavaValue) container, debugSession);
+                if (bufferDataProvider != null) {
+                    providers.add(bufferDataProvider);
+                }
+            }
+        }
+
+        if (childValueType != null) {
+            providers.add(XValueNodeConvertor.createChildNodesProvider(container, childValueType, childValueSize, childValueExtractor, debugSession));
+        }
+    }
+
+    @Nullable
+    private static BinaryData processArrayData(JavaValue javaValue, @Nullable XDebugSession debugSession) {
+        ValueDescriptorImpl descriptor = javaValue.getDescriptor();
+        final ArrayReference arrayRef = (ArrayReference) descriptor.getValue();
+        final ArrayType arrayType = (ArrayType) descriptor.getType();
+        if (arrayType != null) {
+            PageProvider pageProvider = createArrayPageProvider(arrayRef, arrayType.componentTypeName());
+            if (pageProvider != null) {
+                AsyncPageBinaryData data = createJdiArrayData(javaValue, arrayRef, pageProvider, debugSession);
+                if (pageProvider instanceof JdiArrayPageProvider && ((JdiArrayPageProvider) pageProvider).isWritable()) {
+                    JdiArrayPageProvider arrayPageProvider = (JdiArrayPageProvider) pageProvider;
+                    Executor managerThreadExecutor = new JdiManagerThreadExecutor(javaValue.getEvaluationContext().getDebugProcess());
+                    return new EditableOverlayBinaryData(data, arrayPageProvider.getValueByteSize(),
+                            (position, values) -> runOnManagerThread(managerThreadExecutor, () -> arrayPageProvider.writeData(position, values)));
+                }
+                return data;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Runs JDI request on debugger manager thread and waits for it.
+     *
+     * @param managerThreadExecutor manager thread executor
+     * @param task task
+     */
+    private static void runOnManagerThread(Executor managerThreadExecutor, Runnable task) {
+        // Manager thread cancels task when command is dropped
+        FutureTask<Void> future = new FutureTask<>(task, null);
+        try {
+            managerThreadExecutor.execute(future);
+            future.get(AsyncPageBinaryData.FETCH_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException | CancellationException ex) {
+            throw new IllegalStateException("Writing of values cancelled", ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Writing of values interrupted", ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            throw cause instanceof RuntimeException ? (RuntimeException) cause : new IllegalStateException(cause);
+        } catch (TimeoutException ex) {
+            // Don't write values later if not started yet
+            future.cancel(false);
+            throw new IllegalStateException("Writing of values timed out", ex);
+        }
+    }
+
+    @Nullable
+    private static DebugViewDataProvider processStringData(JavaValue javaValue, @Nullable XDebugSession debugSession) {
+        Value value = javaValue.getDescriptor().getValue();
+        if (!(value instanceof ObjectReference)) {
+            return null;
+        }
+
+        // Backing array is byte[] with coder for compact strings, char[] before Java 9
+        ObjectReference stringRef = (ObjectReference) value;
+        Value backingValue = JdiFieldCache.getFieldValue(stringRef, "value");
+        if (!(backingValue instanceof ArrayReference)) {
+            return null;
+        }
+
+        ArrayReference arrayRef = (ArrayReference) backingValue;
+        String componentType = ((ArrayType) arrayRef.referenceType()).componentTypeName();
+        PageProvider pageProvider = createArrayPageProvider(arrayRef, componentType);
+        if (pageProvider == null) {
+            return null;
+        }
+
+        String name = "String backing array";
+        Value coderValue = JdiFieldCache.getFieldValue(stringRef, "coder");
+        if (coderValue instanceof ByteValue) {
+            name += ((ByteValue) coderValue).value() == 0 ? " (LATIN1)" : " (UTF16)";
+        } else if ("char".equals(componentType)) {
+            name += " (UTF16)";
+        }
+        return new DefaultDebugViewDataProvider(name, createJdiArrayData(javaValue, arrayRef, pageProvider, debugSession));
+    }
+
+    @Nullable
+    private static DebugViewDataProvider processByteBufferData(JavaValue javaValue, @Nullable XDebugSession debugSession) {
+        Value value = javaValue.getDescriptor().getValue();
+        if (!(value instanceof ObjectReference)) {
+            return null;
+        }
+
+        ObjectReference bufferRef = (ObjectReference) value;
+        Value positionValue = JdiFieldCache.getFieldValue(bufferRef, "position");
+        Value limitValue = JdiFieldCache.getFieldValue(bufferRef, "limit");
+        if (!(positionValue instanceof IntegerValue) || !(limitValue instanceof IntegerValue)) {
+            return null;
+        }
+
+        int position = ((IntegerValue) positionValue).value();
+        int length = Math.max(((IntegerValue) limitValue).value() - position, 0);
+        String name = "ByteBuffer remaining bytes (" + position + ".." + (position + length) + ")";
+        Value backingValue = JdiFieldCache.getFieldValue(bufferRef, "hb");
+        if (backingValue instanceof ArrayReference) {
+            // Heap buffer window is read directly from backing array
+            Value offsetValue = JdiFieldCache.getFieldValue(bufferRef, "offset");
+            int offset = offsetValue instanceof IntegerValue ? ((IntegerValue) offsetValue).value() : 0;
+            ArrayReference arrayRef = (ArrayReference) backingValue;
+            PageProvider pageProvider = new JdiByteArrayPageProvider(arrayRef, offset + position, length);
+            // Window is fixed to position and limit at the time of opening, so it is not refreshed
+            String windowIdentity = bufferRef.uniqueID() + ":" + (offset + position) + ":" + length;
+            return new DefaultDebugViewDataProvider(name, createJdiArrayData(javaValue, "jdi-byte-buffer", windowIdentity, pageProvider, debugSession, false));
+        }
+
+        // Direct buffer content is copied to temporary array in debugged process per page
+        XStackFrame stackFrame = debugSession == null ? null : debugSession.getCurrentStackFrame();
+        XDebuggerEvaluator evaluator = stackFrame == null ? null : stackFrame.getEvaluator();
+        if (evaluator == null) {
+            return null;
+        }
+
+        PageProvider pageProvider = new JdiDirectByteBufferPageProvider(evaluator, javaValue, position, length);
+        PageCache pageCache = DebugSessionPageCache.getPageCache(debugSession, "jdi-direct-buffer", bufferRef.uniqueID());
+        return new DefaultDebugViewDataProvider(name, new AsyncPageBinaryData(new CachedPageProvider(pageProvider, pageCache, EvaluatedPageProvider.PREFETCH_EXECUTOR)));
+    }
+
+    @Nonnull
+    private static AsyncPageBinaryData createJdiArrayData(JavaValue javaValue, ArrayReference arrayRef, PageProvider pageProvider, @Nullable XDebugSession debugSession) {
+        // Array reference stays valid across suspend points
+        return createJdiArrayData(javaValue, "jdi-array", arrayRef.uniqueID(), pageProvider, debugSession, true);
+    }
+
+    @Nonnull
+    private static AsyncPageBinaryData createJdiArrayData(JavaValue javaValue, String cacheKind, Object valueIdentity, PageProvider pageProvider, @Nullable XDebugSession debugSession, boolean refreshable) {
+        Executor prefetchExecutor = new JdiManagerThreadExecutor(javaValue.getEvaluationContext().getDebugProcess());
+        AsyncPageBinaryData data = new AsyncPageBinaryData(new CachedPageProvider(pageProvider, DebugSessionPageCache.getPageCache(debugSession, cacheKind, valueIdentity), prefetchExecutor));
+        data.setRefreshable(refreshable);
+        return data;
+    }
+
+    @Nullable
+    private static PageProvider createArrayPageProvider(ArrayReference arrayRef, String componentType) {
+        switch (componentType) {
+            case CommonClassNames.JAVA_LANG_BOOLEAN:
+            case "boolean": {
+                return new JdiBooleanArrayPageProvider(arrayRef);
+            }
+            case CommonClassNames.JAVA_LANG_BYTE:
+            case "byte": {
+                return new JdiByteArrayPageProvider(arrayRef);
+            }
+            case CommonClassNames.JAVA_LANG_SHORT:
+            case "short": {
+                return new JdiShortArrayPageProvider(arrayRef);
+            }
+            case CommonClassNames.JAVA_LANG_INTEGER:
+            case "int": {
+                return new JdiIntegerArrayPageProvider(arrayRef);
+            }
+            case CommonClassNames.JAVA_LANG_LONG:
+            case "long": {
+                return new JdiLongArrayPageProvider(arrayRef);
+            }
+            case CommonClassNames.JAVA_LANG_FLOAT:
+            case "float": {
+                return new JdiFloatArrayPageProvider(arrayRef);
+            }
+            case CommonClassNames.JAVA_LANG_DOUBLE:
+            case "double": {
+                return new JdiDoubleArrayPageProvider(arrayRef);
+            }
+            case CommonClassNames.JAVA_LANG_CHARACTER:
+            case "char": {
+                return new JdiCharArrayPageProvider(arrayRef);
+            }
+        }
+
+        return null;
+    }
+
+    @Nullable
+    private static BinaryData processSimpleValue(ValueDescriptorImpl descriptor) {
+        String typeString = descriptor.getDeclaredType();
+        if (typeString == null) {
+            Type type = descriptor.getType();
+            if (type == null)
+                return null;
+
+            typeString = type.signature();
+        }
+
+        PrimitiveCodec codec = PrimitiveCodec.BIG_ENDIAN;
+        switch (typeString) {
+            case CommonClassNames.JAVA_LANG_BYTE:
+            case "B":
+            case "byte": {
+                ByteValue value = (ByteValue) getPrimitiveValue(descriptor);
+                return new ByteArrayData(new byte[]{value.value()});
+            }
+            case CommonClassNames.JAVA_LANG_SHORT:
+            case "S":
+            case "short": {
+                ShortValue valueRecord = (ShortValue) getPrimitiveValue(descriptor);
+                return new ByteArrayData(codec.encodeShort(valueRecord.value()));
+            }
+            case CommonClassNames.JAVA_LANG_INTEGER:
+            case "I":
+            case "int": {
+                IntegerValue valueRecord = (IntegerValue) getPrimitiveValue(descriptor);
+                return new ByteArrayData(codec.encodeInt(valueRecord.value()));
+            }
+            case CommonClassNames.JAVA_LANG_LONG:
+            case "J":
+            case "long": {
+                LongValue valueRecord = (LongValue) getPrimitiveValue(descriptor);
+                return new ByteArrayData(codec.encodeLong(valueRecord.value()));
+            }
+            case CommonClassNames.JAVA_LANG_FLOAT:
+            case "F":
+            case "float": {
+                FloatValue valueRecord = (FloatValue) getPrimitiveValue(descriptor);
+                return new ByteArrayData(codec.encodeFloat(valueRecord.value()));
+            }
+            case CommonClassNames.JAVA_LANG_DOUBLE:
+            case "D":
+            case "double": {
+                DoubleValue valueRecord = (DoubleValue) getPrimitiveValue(descriptor);
+                return new ByteArrayData(codec.encodeDouble(valueRecord.value()));
+            }
+            case CommonClassNames.JAVA_LANG_CHARACTER:
+            case "C":
+            case "char": {
+                CharValue valueRecord = (CharValue) getPrimitiveValue(descriptor);
+                return new ByteArrayData(codec.encodeChar(valueRecord.value()));
+            }
+        }
+
+        return null;
+    }
+
+    @Nonnull
+    private static Value getPrimitiveValue(ValueDescriptorImpl descriptor) {
+        if (descriptor.isPrimitive())
+            return descriptor.getValue();
+
+        return JdiFieldCache.unbox(descriptor.getValue());
+    }
+
+    private static boolean isSimpleValueType(ValueDescriptorImpl descriptor) {
+        if (!descriptor.isPrimitive() && !isBasicType(descriptor)) {
+            return false;
+        }
+
+        String typeString = descriptor.getDeclaredType();
+        if (typeString == null) {
+            Type type = descriptor.getType();
+            if (type == null)
+                return false;
+
+            typeString = type.signature();
+        }
+
+        switch (typeString) {
+            case CommonClassNames.JAVA_LANG_BOOLEAN:
+            case "Z":
+            case "boolean":
+                return false;
+        }
+        return true;
+    }
+
+    private static boolean isByteBuffer(ValueDescriptorImpl descriptor) {
+        if (descriptor.isNull()) {
+            return false;
+        }
+
+        Type type = descriptor.getType();
+        ClassType classType = type instanceof ClassType ? (ClassType) type : null;
+        while (classType != null) {
+            if (JAVA_NIO_BYTE_BUFFER.equals(classType.name())) {
+                return true;
+            }
+            classType = classType.superclass();
+        }
+        return false;
+    }
+
+    private static boolean isBasicType(ValueDescriptorImpl descriptor) {
+        final String type = descriptor.getDeclaredType();
+        return CommonClassNames.JAVA_LANG_BOOLEAN.equals(type)
+                || CommonClassNames.JAVA_LANG_BYTE.equals(type)
+                || CommonClassNames.JAVA_LANG_SHORT.equals(type)
+                || CommonClassNames.JAVA_LANG_INTEGER.equals(type)
+                || CommonClassNames.JAVA_LANG_LONG.equals(type)
+                || CommonClassNames.JAVA_LANG_FLOAT.equals(type)
+                || CommonClassNames.JAVA_LANG_DOUBLE.equals(type)
+                || CommonClassNames.JAVA_LANG_CHARACTER.equals(type);
+    }
+}
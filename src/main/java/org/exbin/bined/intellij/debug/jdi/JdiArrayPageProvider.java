@@ -0,0 +1,162 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.intellij.debug.jdi;
+
+import com.sun.jdi.ArrayReference;
+import com.sun.jdi.ArrayType;
+import com.sun.jdi.ClassNotLoadedException;
+import com.sun.jdi.InvalidTypeException;
+import com.sun.jdi.Value;
+import com.sun.jdi.VirtualMachine;
+import org.exbin.bined.intellij.debug.PrimitiveCodec;
+import org.exbin.framework.bined.objectdata.PageProvider;
+import org.exbin.framework.bined.objectdata.PageProviderBinaryData;
+
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Base array data source for debugger view with fixed size values.
+ * <p>
+ * Data source might be limited to window of the array.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public abstract class JdiArrayPageProvider implements PageProvider {
+
+    protected final ArrayReference arrayRef;
+    protected final int valueByteSize;
+    protected final PrimitiveCodec codec;
+    protected final int startIndex;
+    protected final int length;
+
+    public JdiArrayPageProvider(ArrayReference arrayRef, int valueByteSize) {
+        this(arrayRef, valueByteSize, ByteOrder.BIG_ENDIAN);
+    }
+
+    public JdiArrayPageProvider(ArrayReference arrayRef, int valueByteSize, ByteOrder byteOrder) {
+        this(arrayRef, valueByteSize, byteOrder, 0, arrayRef.length());
+    }
+
+    /**
+     * Creates data source for window of the array.
+     *
+     * @param arrayRef array reference
+     * @param valueByteSize size of single value in bytes
+     * @param byteOrder byte order
+     * @param startIndex index of first element of window
+     * @param length number of elements of window
+     */
+    public JdiArrayPageProvider(ArrayReference arrayRef, int valueByteSize, ByteOrder byteOrder, int startIndex, int length) {
+        this.arrayRef = arrayRef;
+        this.valueByteSize = valueByteSize;
+        this.codec = PrimitiveCodec.of(byteOrder);
+        this.startIndex = startIndex;
+        this.length = length;
+    }
+
+    @Nonnull
+    @Override
+    public byte[] getPage(long pageIndex) {
+        int pageSize = PageProviderBinaryData.PAGE_SIZE / valueByteSize;
+        int startPos = (int) (pageIndex * pageSize);
+        int pageLength = Math.min(length - startPos, pageSize);
+        final List<Value> values = arrayRef.getValues(startIndex + startPos, pageLength);
+        byte[] result = new byte[pageLength * valueByteSize];
+        writeValues(values, result);
+
+        return result;
+    }
+
+    @Override
+    public long getDocumentSize() {
+        return (long) length * valueByteSize;
+    }
+
+    @Nonnull
+    public ArrayReference getArrayReference() {
+        return arrayRef;
+    }
+
+    @Nonnull
+    public ByteOrder getByteOrder() {
+        return codec.getByteOrder();
+    }
+
+    public int getValueByteSize() {
+        return valueByteSize;
+    }
+
+    /**
+     * Returns true if array values can be modified, which is the case for
+     * arrays of primitive values.
+     *
+     * @return true if writable
+     */
+    public boolean isWritable() {
+        return ((ArrayType) arrayRef.referenceType()).componentSignature().length() == 1;
+    }
+
+    /**
+     * Stores data back to the array using single request.
+     * <p>
+     * Has to be called on debugger manager thread.
+     *
+     * @param position position in data, aligned to value size
+     * @param data data of whole values
+     */
+    public void writeData(long position, byte[] data) {
+        int firstIndex = (int) (position / valueByteSize);
+        int count = data.length / valueByteSize;
+        ByteBuffer buffer = ByteBuffer.wrap(data).order(codec.getByteOrder());
+        VirtualMachine virtualMachine = arrayRef.virtualMachine();
+        List<Value> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(readValue(virtualMachine, buffer));
+        }
+
+        try {
+            arrayRef.setValues(startIndex + firstIndex, values, 0, count);
+        } catch (InvalidTypeException | ClassNotLoadedException ex) {
+            throw new IllegalStateException("Unable to store array values", ex);
+        }
+    }
+
+    /**
+     * Writes values to target array.
+     * <p>
+     * Values might be boxed, null elements are written as zero.
+     *
+     * @param values array values
+     * @param target target array
+     */
+    protected abstract void writeValues(List<Value> values, byte[] target);
+
+    /**
+     * Reads single value from buffer.
+     *
+     * @param virtualMachine virtual machine to create value mirror for
+     * @param buffer source buffer
+     * @return value
+     */
+    @Nonnull
+    protected abstract Value readValue(VirtualMachine virtualMachine, ByteBuffer buffer);
+}
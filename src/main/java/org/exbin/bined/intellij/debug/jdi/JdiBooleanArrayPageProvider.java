@@ -17,8 +17,6 @@ package org.exbin.bined.intellij.debug.jdi;
 
 import com.sun.jdi.ArrayReference;
 import com.sun.jdi.BooleanValue;
-import com.sun.jdi.Field;
-import com.sun.jdi.ObjectReference;
 import com.sun.jdi.Value;
 import org.exbin.framework.bined.objectdata.PageProvider;
 import org.exbin.framework.bined.objectdata.PageProviderBinaryData;
@@ -45,26 +43,14 @@ public class JdiBooleanArrayPageProvider implements PageProvider {
     @Override
     public byte[] getPage(long pageIndex) {
         int startPos = (int) (pageIndex * PageProviderBinaryData.PAGE_SIZE * 8);
-        int length = PageProviderBinaryData.PAGE_SIZE * 8;
-        long documentSize = getDocumentSize() * 8;
-        if (documentSize - startPos < PageProviderBinaryData.PAGE_SIZE * 8) {
-            length = (int) (documentSize - startPos);
-        }
+        int length = Math.min(arrayRef.length() - startPos, PageProviderBinaryData.PAGE_SIZE * 8);
         final List<Value> values = arrayRef.getValues(startPos, length);
         byte[] result = new byte[(length + 7) / 8];
         int bitMask = 0x80;
         int bytePos = 0;
         for (int i = 0; i < values.size(); i++) {
-            Value rawValue = values.get(i);
-            boolean value = false;
-            if (rawValue instanceof ObjectReference) {
-                Field field = ((ObjectReference) rawValue).referenceType().fieldByName("value");
-                rawValue = ((ObjectReference) rawValue).getValue(field);
-            }
-
-            if (rawValue instanceof BooleanValue) {
-                value = ((BooleanValue) rawValue).value();
-            }
+            Value rawValue = JdiFieldCache.unbox(values.get(i));
+            boolean value = rawValue instanceof BooleanValue && ((BooleanValue) rawValue).value();
 
             if (value) {
                 result[bytePos] += bitMask;
@@ -15,12 +15,15 @@
  */
 package org.exbin.bined.intellij.debug.jdi;
 
-import com.sun.jdi.*;
-import org.exbin.framework.bined.objectdata.PageProvider;
-import org.exbin.framework.bined.objectdata.PageProviderBinaryData;
+import com.sun.jdi.ArrayReference;
+import com.sun.jdi.ByteValue;
+import com.sun.jdi.Value;
+import com.sun.jdi.VirtualMachine;
 
 import javax.annotation.Nonnull;
 import javax.annotation.ParametersAreNonnullByDefault;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.List;
 
 /**
@@ -29,41 +32,29 @@ import java.util.List;
  * @author ExBin Project (https://exbin.org)
  */
 @ParametersAreNonnullByDefault
-public class JdiByteArrayPageProvider implements PageProvider {
-
-    private final ArrayReference arrayRef;
+public class JdiByteArrayPageProvider extends JdiArrayPageProvider {
 
     public JdiByteArrayPageProvider(ArrayReference arrayRef) {
-        this.arrayRef = arrayRef;
+        super(arrayRef, 1);
+    }
+
+    public JdiByteArrayPageProvider(ArrayReference arrayRef, int startIndex, int length) {
+        super(arrayRef, 1, ByteOrder.BIG_ENDIAN, startIndex, length);
     }
 
-    @Nonnull
     @Override
-    public byte[] getPage(long pageIndex) {
-        int startPos = (int) (pageIndex * PageProviderBinaryData.PAGE_SIZE);
-        int length = Math.min(arrayRef.length() - startPos, PageProviderBinaryData.PAGE_SIZE);
-        final List<Value> values = arrayRef.getValues(startPos, length);
-        byte[] result = new byte[length];
+    protected void writeValues(List<Value> values, byte[] target) {
         for (int i = 0; i < values.size(); i++) {
-            Value rawValue = values.get(i);
-            byte value = 0;
-            if (rawValue instanceof ObjectReference) {
-                Field field = ((ObjectReference) rawValue).referenceType().fieldByName("value");
-                rawValue = ((ObjectReference) rawValue).getValue(field);
+            Value value = JdiFieldCache.unbox(values.get(i));
+            if (value instanceof ByteValue) {
+                target[i] = ((ByteValue) value).value();
             }
-
-            if (rawValue instanceof ByteValue) {
-                value = ((ByteValue) rawValue).value();
-            }
-
-            result[i] = value;
         }
-
-        return result;
     }
 
+    @Nonnull
     @Override
-    public long getDocumentSize() {
-        return arrayRef.length();
+    protected Value readValue(VirtualMachine virtualMachine, ByteBuffer buffer) {
+        return virtualMachine.mirrorOf(buffer.get());
     }
 }
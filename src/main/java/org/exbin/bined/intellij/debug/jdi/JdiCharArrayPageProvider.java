@@ -15,54 +15,43 @@
  */
 package org.exbin.bined.intellij.debug.jdi;
 
-import com.sun.jdi.*;
-import org.exbin.framework.bined.objectdata.PageProvider;
-import org.exbin.framework.bined.objectdata.PageProviderBinaryData;
+import com.sun.jdi.ArrayReference;
+import com.sun.jdi.CharValue;
+import com.sun.jdi.Value;
+import com.sun.jdi.VirtualMachine;
 
 import javax.annotation.Nonnull;
 import javax.annotation.ParametersAreNonnullByDefault;
+import java.nio.ByteBuffer;
 import java.util.List;
 
 /**
- * Character array data source for debugger view.
+ * Char array data source for debugger view.
  *
  * @author ExBin Project (https://exbin.org)
  */
 @ParametersAreNonnullByDefault
-public class JdiCharArrayPageProvider implements PageProvider {
-
-    private final ArrayReference arrayRef;
+public class JdiCharArrayPageProvider extends JdiArrayPageProvider {
 
     public JdiCharArrayPageProvider(ArrayReference arrayRef) {
-        this.arrayRef = arrayRef;
+        super(arrayRef, 2);
     }
 
-    @Nonnull
     @Override
-    public byte[] getPage(long pageIndex) {
-        int pageSize = PageProviderBinaryData.PAGE_SIZE / 2;
-        int startPos = (int) (pageIndex * pageSize);
-        int length = Math.min(arrayRef.length() - startPos, pageSize);
-        final List<Value> values = arrayRef.getValues(startPos, length);
-        byte[] result = new byte[length * 2];
-        for (int i = 0; i < values.size(); i++) {
-            Value rawValue = values.get(i);
-            if (rawValue instanceof ObjectReference) {
-                Field field = ((ObjectReference) rawValue).referenceType().fieldByName("value");
-                rawValue = ((ObjectReference) rawValue).getValue(field);
+    protected void writeValues(List<Value> values, byte[] target) {
+        char[] charValues = new char[values.size()];
+        for (int i = 0; i < charValues.length; i++) {
+            Value value = JdiFieldCache.unbox(values.get(i));
+            if (value instanceof CharValue) {
+                charValues[i] = ((CharValue) value).value();
             }
-
-            int value = (int) (rawValue instanceof CharValue ? ((CharValue) rawValue).value() : 0);
-
-            result[i * 2 ] = (byte) ((value >> 8) & 0xff);
-            result[i * 2 + 1] = (byte) (value & 0xff);
         }
-
-        return result;
+        codec.putChars(charValues, charValues.length, target, 0);
     }
 
+    @Nonnull
     @Override
-    public long getDocumentSize() {
-        return arrayRef.length() * 2;
+    protected Value readValue(VirtualMachine virtualMachine, ByteBuffer buffer) {
+        return virtualMachine.mirrorOf(buffer.getChar());
     }
 }
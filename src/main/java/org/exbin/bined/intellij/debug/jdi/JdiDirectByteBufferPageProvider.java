@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.intellij.debug.jdi;
+
+import com.intellij.debugger.engine.JavaValue;
+import com.intellij.xdebugger.XExpression;
+import com.intellij.xdebugger.evaluation.XDebuggerEvaluator;
+import com.intellij.xdebugger.frame.XValue;
+import com.sun.jdi.ArrayReference;
+import com.sun.jdi.ByteValue;
+import com.sun.jdi.Value;
+import org.exbin.auxiliary.binary_data.OutOfBoundsException;
+import org.exbin.bined.intellij.debug.intellij.EvaluatedPageProvider;
+import org.exbin.bined.intellij.debug.intellij.XValueTextCollector;
+import org.exbin.framework.bined.objectdata.PageProvider;
+import org.exbin.framework.bined.objectdata.PageProviderBinaryData;
+
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Direct byte buffer data source for debugger view.
+ * <p>
+ * Each page is copied into temporary byte array by evaluation in debugged
+ * process and then read as array.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class JdiDirectByteBufferPageProvider implements PageProvider {
+
+    private final XDebuggerEvaluator evaluator;
+    private final XValue bufferValue;
+    private final int position;
+    private final int length;
+    private String bufferExpression = null;
+
+    /**
+     * Creates data source for window of direct byte buffer.
+     *
+     * @param evaluator evaluator of current frame
+     * @param bufferValue buffer value
+     * @param position absolute index of first byte of window
+     * @param length length of window
+     */
+    public JdiDirectByteBufferPageProvider(XDebuggerEvaluator evaluator, XValue bufferValue, int position, int length) {
+        this.evaluator = evaluator;
+        this.bufferValue = bufferValue;
+        this.position = position;
+        this.length = length;
+    }
+
+    @Nonnull
+    @Override
+    public byte[] getPage(long pageIndex) {
+        long pageStart = pageIndex * PageProviderBinaryData.PAGE_SIZE;
+        if (pageStart >= length) {
+            throw new OutOfBoundsException();
+        }
+
+        int pageLength = (int) Math.min(length - pageStart, PageProviderBinaryData.PAGE_SIZE);
+        String expression = getPageExpression(getBufferExpression(), position + pageStart, pageLength);
+        XValue result = EvaluatedPageProvider.evaluate(evaluator, expression);
+        if (!(result instanceof JavaValue)) {
+            throw new IllegalStateException("Unexpected evaluation result");
+        }
+
+        // Presentation computation ensures value is available in descriptor
+        XValueTextCollector textCollector = new XValueTextCollector(result);
+        textCollector.start();
+        textCollector.waitFor(System.currentTimeMillis() + EvaluatedPageProvider.TIMEOUT_MS);
+        textCollector.dispose();
+        Value arrayValue = ((JavaValue) result).getDescriptor().getValue();
+        if (!(arrayValue instanceof ArrayReference)) {
+            throw new IllegalStateException("Unexpected evaluation result");
+        }
+
+        List<Value> values = ((ArrayReference) arrayValue).getValues();
+        if (values.size() != pageLength) {
+            throw new IllegalStateException("Unexpected length of page " + pageIndex + ": " + values.size() + " instead of " + pageLength);
+        }
+
+        byte[] page = new byte[pageLength];
+        for (int i = 0; i < pageLength; i++) {
+            Value value = values.get(i);
+            if (value instanceof ByteValue) {
+                page[i] = ((ByteValue) value).value();
+            }
+        }
+        return page;
+    }
+
+    @Override
+    public long getDocumentSize() {
+        return length;
+    }
+
+    /**
+     * Returns expression copying given range of buffer into new byte array.
+     *
+     * @param bufferExpression expression of buffer value
+     * @param start absolute index of first byte
+     * @param pageLength length of range
+     * @return expression
+     */
+    @Nonnull
+    protected String getPageExpression(String bufferExpression, long start, int pageLength) {
+        // Buffer limit has to be set before position
+        return "java.nio.ByteBuffer.wrap(new byte[" + pageLength + "]).put((java.nio.ByteBuffer) ((java.nio.Buffer) (" + bufferExpression + ").duplicate())"
+                + ".limit(" + (start + pageLength) + ").position(" + start + ")).array()";
+    }
+
+    @Nonnull
+    private synchronized String getBufferExpression() {
+        if (bufferExpression == null) {
+            try {
+                XExpression expression = bufferValue.calculateEvaluationExpression().blockingGet((int) EvaluatedPageProvider.TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (expression == null) {
+                    throw new IllegalStateException("Unable to determine buffer expression");
+                }
+                bufferExpression = expression.getExpression();
+            } catch (Exception ex) {
+                throw new IllegalStateException("Unable to determine buffer expression", ex);
+            }
+        }
+        return bufferExpression;
+    }
+}
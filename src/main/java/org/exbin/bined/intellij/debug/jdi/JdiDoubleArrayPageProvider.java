@@ -15,9 +15,10 @@
  */
 package org.exbin.bined.intellij.debug.jdi;
 
-import com.sun.jdi.*;
-import org.exbin.framework.bined.objectdata.PageProvider;
-import org.exbin.framework.bined.objectdata.PageProviderBinaryData;
+import com.sun.jdi.ArrayReference;
+import com.sun.jdi.DoubleValue;
+import com.sun.jdi.Value;
+import com.sun.jdi.VirtualMachine;
 
 import javax.annotation.Nonnull;
 import javax.annotation.ParametersAreNonnullByDefault;
@@ -30,44 +31,27 @@ import java.util.List;
  * @author ExBin Project (https://exbin.org)
  */
 @ParametersAreNonnullByDefault
-public class JdiDoubleArrayPageProvider implements PageProvider {
-
-    private final byte[] valuesCache = new byte[8];
-    private final ByteBuffer byteBuffer = ByteBuffer.wrap(valuesCache);
-
-    private final ArrayReference arrayRef;
+public class JdiDoubleArrayPageProvider extends JdiArrayPageProvider {
 
     public JdiDoubleArrayPageProvider(ArrayReference arrayRef) {
-        this.arrayRef = arrayRef;
+        super(arrayRef, 8);
     }
 
-    @Nonnull
     @Override
-    public byte[] getPage(long pageIndex) {
-        int pageSize = PageProviderBinaryData.PAGE_SIZE / 8;
-        int startPos = (int) (pageIndex * pageSize);
-        int length = Math.min(arrayRef.length() - startPos, pageSize);
-        final List<Value> values = arrayRef.getValues(startPos, length);
-        byte[] result = new byte[length * 8];
-        for (int i = 0; i < values.size(); i++) {
-            Value rawValue = values.get(i);
-            if (rawValue instanceof ObjectReference) {
-                Field field = ((ObjectReference) rawValue).referenceType().fieldByName("value");
-                rawValue = ((ObjectReference) rawValue).getValue(field);
+    protected void writeValues(List<Value> values, byte[] target) {
+        double[] doubleValues = new double[values.size()];
+        for (int i = 0; i < doubleValues.length; i++) {
+            Value value = JdiFieldCache.unbox(values.get(i));
+            if (value instanceof DoubleValue) {
+                doubleValues[i] = ((DoubleValue) value).value();
             }
-
-            double value = rawValue instanceof DoubleValue ? ((DoubleValue) rawValue).value() : 0;
-
-            byteBuffer.rewind();
-            byteBuffer.putDouble(value);
-            System.arraycopy(valuesCache, 0, result, i * 8, 8);
         }
-
-        return result;
+        codec.putDoubles(doubleValues, doubleValues.length, target, 0);
     }
 
+    @Nonnull
     @Override
-    public long getDocumentSize() {
-        return arrayRef.length() * 8;
+    protected Value readValue(VirtualMachine virtualMachine, ByteBuffer buffer) {
+        return virtualMachine.mirrorOf(buffer.getDouble());
     }
 }
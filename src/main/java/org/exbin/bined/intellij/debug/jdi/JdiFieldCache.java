@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.intellij.debug.jdi;
+
+import com.sun.jdi.Field;
+import com.sun.jdi.ObjectReference;
+import com.sun.jdi.ReferenceType;
+import com.sun.jdi.Value;
+
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Cache of field lookups per reference type.
+ * <p>
+ * Fields are referenced weakly as field refers back to its declaring type,
+ * which would otherwise keep reference types and their virtual machines
+ * reachable after debug session ends.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public final class JdiFieldCache {
+
+    public static final String BOXED_VALUE_FIELD = "value";
+
+    private static final Reference<Field> MISSING_FIELD = new WeakReference<>(null);
+    private static final Map<ReferenceType, Map<String, Reference<Field>>> FIELDS = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private JdiFieldCache() {
+    }
+
+    /**
+     * Returns field of given reference type.
+     *
+     * @param referenceType reference type
+     * @param fieldName field name
+     * @return field or null if not present
+     */
+    @Nullable
+    public static Field getField(ReferenceType referenceType, String fieldName) {
+        Map<String, Reference<Field>> typeFields = FIELDS.computeIfAbsent(referenceType, type -> Collections.synchronizedMap(new HashMap<>()));
+        Reference<Field> fieldReference = typeFields.get(fieldName);
+        if (fieldReference == MISSING_FIELD) {
+            return null;
+        }
+
+        Field field = fieldReference == null ? null : fieldReference.get();
+        if (field == null) {
+            field = referenceType.fieldByName(fieldName);
+            typeFields.put(fieldName, field == null ? MISSING_FIELD : new WeakReference<>(field));
+        }
+        return field;
+    }
+
+    /**
+     * Returns value of field of given object.
+     *
+     * @param objectRef object reference
+     * @param fieldName field name
+     * @return field value or null if not present
+     */
+    @Nullable
+    public static Value getFieldValue(ObjectReference objectRef, String fieldName) {
+        Field field = getField(objectRef.referenceType(), fieldName);
+        return field == null ? null : objectRef.getValue(field);
+    }
+
+    /**
+     * Returns primitive value for boxed value or value itself.
+     *
+     * @param value value
+     * @return unboxed value
+     */
+    @Nullable
+    public static Value unbox(@Nullable Value value) {
+        if (value instanceof ObjectReference) {
+            return getFieldValue((ObjectReference) value, BOXED_VALUE_FIELD);
+        }
+
+        return value;
+    }
+}
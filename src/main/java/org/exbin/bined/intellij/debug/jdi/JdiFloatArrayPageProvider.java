@@ -15,9 +15,10 @@
  */
 package org.exbin.bined.intellij.debug.jdi;
 
-import com.sun.jdi.*;
-import org.exbin.framework.bined.objectdata.PageProvider;
-import org.exbin.framework.bined.objectdata.PageProviderBinaryData;
+import com.sun.jdi.ArrayReference;
+import com.sun.jdi.FloatValue;
+import com.sun.jdi.Value;
+import com.sun.jdi.VirtualMachine;
 
 import javax.annotation.Nonnull;
 import javax.annotation.ParametersAreNonnullByDefault;
@@ -30,44 +31,27 @@ import java.util.List;
  * @author ExBin Project (https://exbin.org)
  */
 @ParametersAreNonnullByDefault
-public class JdiFloatArrayPageProvider implements PageProvider {
-
-    private final byte[] valuesCache = new byte[4];
-    private final ByteBuffer byteBuffer = ByteBuffer.wrap(valuesCache);
-
-    private final ArrayReference arrayRef;
+public class JdiFloatArrayPageProvider extends JdiArrayPageProvider {
 
     public JdiFloatArrayPageProvider(ArrayReference arrayRef) {
-        this.arrayRef = arrayRef;
+        super(arrayRef, 4);
     }
 
-    @Nonnull
     @Override
-    public byte[] getPage(long pageIndex) {
-        int pageSize = PageProviderBinaryData.PAGE_SIZE / 4;
-        int startPos = (int) (pageIndex * pageSize);
-        int length = Math.min(arrayRef.length() - startPos, pageSize);
-        final List<Value> values = arrayRef.getValues(startPos, length);
-        byte[] result = new byte[length * 4];
-        for (int i = 0; i < values.size(); i++) {
-            Value rawValue = values.get(i);
-            if (rawValue instanceof ObjectReference) {
-                Field field = ((ObjectReference) rawValue).referenceType().fieldByName("value");
-                rawValue = ((ObjectReference) rawValue).getValue(field);
+    protected void writeValues(List<Value> values, byte[] target) {
+        float[] floatValues = new float[values.size()];
+        for (int i = 0; i < floatValues.length; i++) {
+            Value value = JdiFieldCache.unbox(values.get(i));
+            if (value instanceof FloatValue) {
+                floatValues[i] = ((FloatValue) value).value();
             }
-
-            float value = rawValue instanceof FloatValue ? ((FloatValue) rawValue).value() : 0;
-
-            byteBuffer.rewind();
-            byteBuffer.putFloat(value);
-            System.arraycopy(valuesCache, 0, result, i * 4, 4);
         }
-
-        return result;
+        codec.putFloats(floatValues, floatValues.length, target, 0);
     }
 
+    @Nonnull
     @Override
-    public long getDocumentSize() {
-        return arrayRef.length() * 4;
+    protected Value readValue(VirtualMachine virtualMachine, ByteBuffer buffer) {
+        return virtualMachine.mirrorOf(buffer.getFloat());
     }
 }
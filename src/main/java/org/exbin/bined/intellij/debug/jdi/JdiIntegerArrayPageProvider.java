@@ -15,12 +15,14 @@
  */
 package org.exbin.bined.intellij.debug.jdi;
 
-import com.sun.jdi.*;
-import org.exbin.framework.bined.objectdata.PageProvider;
-import org.exbin.framework.bined.objectdata.PageProviderBinaryData;
+import com.sun.jdi.ArrayReference;
+import com.sun.jdi.IntegerValue;
+import com.sun.jdi.Value;
+import com.sun.jdi.VirtualMachine;
 
 import javax.annotation.Nonnull;
 import javax.annotation.ParametersAreNonnullByDefault;
+import java.nio.ByteBuffer;
 import java.util.List;
 
 /**
@@ -29,42 +31,27 @@ import java.util.List;
  * @author ExBin Project (https://exbin.org)
  */
 @ParametersAreNonnullByDefault
-public class JdiIntegerArrayPageProvider implements PageProvider {
-
-    private final ArrayReference arrayRef;
+public class JdiIntegerArrayPageProvider extends JdiArrayPageProvider {
 
     public JdiIntegerArrayPageProvider(ArrayReference arrayRef) {
-        this.arrayRef = arrayRef;
+        super(arrayRef, 4);
     }
 
-    @Nonnull
     @Override
-    public byte[] getPage(long pageIndex) {
-        int pageSize = PageProviderBinaryData.PAGE_SIZE / 4;
-        int startPos = (int) (pageIndex * pageSize);
-        int length = Math.min(arrayRef.length() - startPos, pageSize);
-        final List<Value> values = arrayRef.getValues(startPos, length);
-        byte[] result = new byte[length * 4];
-        for (int i = 0; i < values.size(); i++) {
-            Value rawValue = values.get(i);
-            if (rawValue instanceof ObjectReference) {
-                Field field = ((ObjectReference) rawValue).referenceType().fieldByName("value");
-                rawValue = ((ObjectReference) rawValue).getValue(field);
+    protected void writeValues(List<Value> values, byte[] target) {
+        int[] intValues = new int[values.size()];
+        for (int i = 0; i < intValues.length; i++) {
+            Value value = JdiFieldCache.unbox(values.get(i));
+            if (value instanceof IntegerValue) {
+                intValues[i] = ((IntegerValue) value).value();
             }
-
-            int value = rawValue instanceof IntegerValue ? ((IntegerValue) rawValue).value() : 0;
-
-            result[i * 4] = (byte) (value >> 24);
-            result[i * 4 + 1] = (byte) ((value >> 16) & 0xff);
-            result[i * 4 + 2] = (byte) ((value >> 8) & 0xff);
-            result[i * 4 + 3] = (byte) (value & 0xff);
         }
-
-        return result;
+        codec.putInts(intValues, intValues.length, target, 0);
     }
 
+    @Nonnull
     @Override
-    public long getDocumentSize() {
-        return arrayRef.length() * 4;
+    protected Value readValue(VirtualMachine virtualMachine, ByteBuffer buffer) {
+        return virtualMachine.mirrorOf(buffer.getInt());
     }
 }
@@ -15,14 +15,14 @@
  */
 package org.exbin.bined.intellij.debug.jdi;
 
-import com.sun.jdi.*;
-import org.exbin.framework.bined.objectdata.PageProvider;
-import org.exbin.framework.bined.objectdata.PageProviderBinaryData;
-import org.exbin.framework.bined.inspector.gui.BasicValuesPanel;
+import com.sun.jdi.ArrayReference;
+import com.sun.jdi.LongValue;
+import com.sun.jdi.Value;
+import com.sun.jdi.VirtualMachine;
 
 import javax.annotation.Nonnull;
 import javax.annotation.ParametersAreNonnullByDefault;
-import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.util.List;
 
 /**
@@ -31,44 +31,27 @@ import java.util.List;
  * @author ExBin Project (https://exbin.org)
  */
 @ParametersAreNonnullByDefault
-public class JdiLongArrayPageProvider implements PageProvider {
-
-    private final ArrayReference arrayRef;
+public class JdiLongArrayPageProvider extends JdiArrayPageProvider {
 
     public JdiLongArrayPageProvider(ArrayReference arrayRef) {
-        this.arrayRef = arrayRef;
+        super(arrayRef, 8);
     }
 
-    @Nonnull
     @Override
-    public byte[] getPage(long pageIndex) {
-        int pageSize = PageProviderBinaryData.PAGE_SIZE / 8;
-        int startPos = (int) (pageIndex * pageSize);
-        int length = Math.min(arrayRef.length() - startPos, pageSize);
-        final List<Value> values = arrayRef.getValues(startPos, length);
-        byte[] result = new byte[length * 8];
-        for (int i = 0; i < values.size(); i++) {
-            Value rawValue = values.get(i);
-            if (rawValue instanceof ObjectReference) {
-                Field field = ((ObjectReference) rawValue).referenceType().fieldByName("value");
-                rawValue = ((ObjectReference) rawValue).getValue(field);
-            }
-
-            long value = rawValue instanceof LongValue ? ((LongValue) rawValue).value() : 0;
-
-            BigInteger bigInteger = BigInteger.valueOf(value);
-            for (int bit = 0; bit < 7; bit++) {
-                BigInteger nextByte = bigInteger.and(BasicValuesPanel.BIG_INTEGER_BYTE_MASK);
-                result[i * 8 + 7 - bit] = nextByte.byteValue();
-                bigInteger = bigInteger.shiftRight(8);
+    protected void writeValues(List<Value> values, byte[] target) {
+        long[] longValues = new long[values.size()];
+        for (int i = 0; i < longValues.length; i++) {
+            Value value = JdiFieldCache.unbox(values.get(i));
+            if (value instanceof LongValue) {
+                longValues[i] = ((LongValue) value).value();
             }
         }
-
-        return result;
+        codec.putLongs(longValues, longValues.length, target, 0);
     }
 
+    @Nonnull
     @Override
-    public long getDocumentSize() {
-        return arrayRef.length() * 8;
+    protected Value readValue(VirtualMachine virtualMachine, ByteBuffer buffer) {
+        return virtualMachine.mirrorOf(buffer.getLong());
     }
 }
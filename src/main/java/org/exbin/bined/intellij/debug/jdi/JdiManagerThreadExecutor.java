@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.intellij.debug.jdi;
+
+import com.intellij.debugger.engine.DebugProcess;
+import com.intellij.debugger.engine.managerThread.DebuggerCommand;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Executor running tasks on debugger manager thread of given debug process.
+ * <p>
+ * Manager thread drops pending commands when debugged process is resumed or
+ * detached, tasks which are {@link Future} are cancelled in such case, so
+ * that callers waiting for them are released.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class JdiManagerThreadExecutor implements Executor {
+
+    private final DebugProcess debugProcess;
+
+    public JdiManagerThreadExecutor(DebugProcess debugProcess) {
+        this.debugProcess = debugProcess;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (!debugProcess.isAttached()) {
+            throw new RejectedExecutionException("Debug process is not attached");
+        }
+
+        debugProcess.getManagerThread().invokeCommand(new DebuggerCommand() {
+            @Override
+            public void action() {
+                command.run();
+            }
+
+            @Override
+            public void commandCancelled() {
+                if (command instanceof Future) {
+                    ((Future<?>) command).cancel(false);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.intellij.debug.jdi;
+
+import com.intellij.xdebugger.evaluation.XDebuggerEvaluator;
+import com.intellij.xdebugger.frame.XValue;
+
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+/**
+ * Netty buffer data source for debugger view.
+ * <p>
+ * Used for buffers not backed by arrays, such as pooled direct buffers, each
+ * page is copied into temporary byte array by evaluation in debugged process.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class JdiNettyByteBufPageProvider extends JdiDirectByteBufferPageProvider {
+
+    /**
+     * Creates data source for window of Netty buffer.
+     *
+     * @param evaluator evaluator of current frame
+     * @param bufferValue buffer value
+     * @param readerIndex index of first readable byte
+     * @param length count of readable bytes
+     */
+    public JdiNettyByteBufPageProvider(XDebuggerEvaluator evaluator, XValue bufferValue, int readerIndex, int length) {
+        super(evaluator, bufferValue, readerIndex, length);
+    }
+
+    @Nonnull
+    @Override
+    protected String getPageExpression(String bufferExpression, long start, int pageLength) {
+        return "io.netty.buffer.ByteBufUtil.getBytes((io.netty.buffer.ByteBuf) (" + bufferExpression + "), " + start + ", " + pageLength + ")";
+    }
+}
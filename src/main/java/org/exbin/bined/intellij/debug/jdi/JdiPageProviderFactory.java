@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.intellij.debug.jdi;
+
+import com.intellij.debugger.engine.JavaValue;
+import com.intellij.debugger.ui.impl.watch.ValueDescriptorImpl;
+import com.intellij.xdebugger.frame.XValue;
+import com.sun.jdi.ClassType;
+import com.sun.jdi.IntegerValue;
+import com.sun.jdi.ObjectReference;
+import com.sun.jdi.ReferenceType;
+import com.sun.jdi.Type;
+import com.sun.jdi.Value;
+import org.exbin.bined.intellij.debug.DebugPageProviderFactory;
+import org.exbin.framework.bined.objectdata.PageProvider;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Base page provider factory for objects of Java debugger.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public abstract class JdiPageProviderFactory implements DebugPageProviderFactory {
+
+    /**
+     * Returns names of supported classes, subclasses are supported as well.
+     *
+     * @return list of class names
+     */
+    @Nonnull
+    protected abstract List<String> getSupportedClasses();
+
+    /**
+     * Creates page provider for given object.
+     *
+     * @param objectRef object reference
+     * @return page provider or null if object content is not accessible
+     */
+    @Nullable
+    protected abstract PageProvider createPageProvider(ObjectReference objectRef);
+
+    @Override
+    public boolean isApplicable(XValue value) {
+        if (!(value instanceof JavaValue)) {
+            return false;
+        }
+
+        ValueDescriptorImpl descriptor = ((JavaValue) value).getDescriptor();
+        if (descriptor.isNull()) {
+            return false;
+        }
+
+        Type type = descriptor.getType();
+        return type instanceof ReferenceType && findSupportedClass((ReferenceType) type) != null;
+    }
+
+    @Nullable
+    @Override
+    public PageProvider createPageProvider(XValue value) {
+        Value objectValue = ((JavaValue) value).getDescriptor().getValue();
+        return objectValue instanceof ObjectReference ? createPageProvider((ObjectReference) objectValue) : null;
+    }
+
+    @Nullable
+    @Override
+    public Object getValueIdentity(XValue value) {
+        Value objectValue = ((JavaValue) value).getDescriptor().getValue();
+        return objectValue instanceof ObjectReference ? ((ObjectReference) objectValue).uniqueID() : null;
+    }
+
+    @Nullable
+    @Override
+    public Executor getPrefetchExecutor(XValue value) {
+        return new JdiManagerThreadExecutor(((JavaValue) value).getEvaluationContext().getDebugProcess());
+    }
+
+    /**
+     * Returns supported class which given type is or extends.
+     *
+     * @param referenceType reference type
+     * @return class name or null if not supported
+     */
+    @Nullable
+    protected String findSupportedClass(ReferenceType referenceType) {
+        List<String> supportedClasses = getSupportedClasses();
+        ReferenceType type = referenceType;
+        while (type != null) {
+            if (supportedClasses.contains(type.name())) {
+                return type.name();
+            }
+            type = type instanceof ClassType ? ((ClassType) type).superclass() : null;
+        }
+        return null;
+    }
+
+    /**
+     * Returns value of integer field of given object.
+     *
+     * @param objectRef object reference
+     * @param fieldName field name
+     * @param defaultValue value used when field is not available
+     * @return field value
+     */
+    protected static int getIntFieldValue(ObjectReference objectRef, String fieldName, int defaultValue) {
+        Value value = JdiFieldCache.getFieldValue(objectRef, fieldName);
+        return value instanceof IntegerValue ? ((IntegerValue) value).value() : defaultValue;
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.intellij.debug.jdi;
+
+import com.sun.jdi.ArrayReference;
+import com.sun.jdi.ByteValue;
+import com.sun.jdi.Value;
+import org.exbin.auxiliary.binary_data.OutOfBoundsException;
+import org.exbin.framework.bined.objectdata.PageProvider;
+import org.exbin.framework.bined.objectdata.PageProviderBinaryData;
+
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Data source for sequence of byte array windows for debugger view.
+ * <p>
+ * Used for buffers composed of multiple segments or components, each window
+ * is read in bulk.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class JdiSegmentedByteArrayPageProvider implements PageProvider {
+
+    private final List<Segment> segments;
+    private final long[] segmentStarts;
+    private final long documentSize;
+
+    public JdiSegmentedByteArrayPageProvider(List<Segment> segments) {
+        this.segments = new ArrayList<>();
+        for (Segment segment : segments) {
+            if (segment.length > 0) {
+                this.segments.add(segment);
+            }
+        }
+        segmentStarts = new long[this.segments.size()];
+        long position = 0;
+        for (int i = 0; i < this.segments.size(); i++) {
+            segmentStarts[i] = position;
+            position += this.segments.get(i).length;
+        }
+        documentSize = position;
+    }
+
+    @Nonnull
+    @Override
+    public byte[] getPage(long pageIndex) {
+        long pageStart = pageIndex * PageProviderBinaryData.PAGE_SIZE;
+        if (pageStart >= documentSize) {
+            throw new OutOfBoundsException();
+        }
+
+        byte[] page = new byte[(int) Math.min(documentSize - pageStart, PageProviderBinaryData.PAGE_SIZE)];
+        int segmentIndex = Arrays.binarySearch(segmentStarts, pageStart);
+        if (segmentIndex < 0) {
+            segmentIndex = -segmentIndex - 2;
+        }
+
+        int pagePosition = 0;
+        while (pagePosition < page.length && segmentIndex < segments.size()) {
+            Segment segment = segments.get(segmentIndex);
+            int segmentOffset = (int) (pageStart + pagePosition - segmentStarts[segmentIndex]);
+            int count = Math.min(segment.length - segmentOffset, page.length - pagePosition);
+            List<Value> values = segment.arrayRef.getValues(segment.startIndex + segmentOffset, count);
+            for (int i = 0; i < values.size(); i++) {
+                Value value = values.get(i);
+                if (value instanceof ByteValue) {
+                    page[pagePosition + i] = ((ByteValue) value).value();
+                }
+            }
+            pagePosition += count;
+            segmentIndex++;
+        }
+
+        return page;
+    }
+
+    @Override
+    public long getDocumentSize() {
+        return documentSize;
+    }
+
+    /**
+     * Window of byte array.
+     */
+    @ParametersAreNonnullByDefault
+    public static class Segment {
+
+        private final ArrayReference arrayRef;
+        private final int startIndex;
+        private final int length;
+
+        public Segment(ArrayReference arrayRef, int startIndex, int length) {
+            this.arrayRef = arrayRef;
+            this.startIndex = startIndex;
+            this.length = length;
+        }
+
+        @Nonnull
+        public ArrayReference getArrayRef() {
+            return arrayRef;
+        }
+
+        public int getStartIndex() {
+            return startIndex;
+        }
+
+        public int getLength() {
+            return length;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.intellij.debug.jdi;
+
+import com.intellij.debugger.engine.JavaDebugProcess;
+import com.intellij.debugger.engine.JavaValue;
+import com.intellij.xdebugger.evaluation.XDebuggerEvaluator;
+import com.intellij.xdebugger.frame.XStackFrame;
+import com.intellij.xdebugger.frame.XValue;
+import com.sun.jdi.ArrayReference;
+import com.sun.jdi.ObjectReference;
+import com.sun.jdi.Value;
+import org.exbin.bined.intellij.debug.intellij.EvaluatedPageProvider;
+import org.exbin.framework.bined.objectdata.PageProvider;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Page provider factory for readable bytes of Netty buffers.
+ * <p>
+ * Heap buffers and composite buffers of heap components are read directly
+ * from backing arrays, other buffers such as pooled direct buffers are read by
+ * evaluation in debugged process.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class NettyByteBufPageProviderFactory extends JdiPageProviderFactory {
+
+    private static final String UNPOOLED_HEAP_BYTE_BUF = "io.netty.buffer.UnpooledHeapByteBuf";
+    private static final String POOLED_BYTE_BUF = "io.netty.buffer.PooledByteBuf";
+    private static final String UNPOOLED_DIRECT_BYTE_BUF = "io.netty.buffer.UnpooledDirectByteBuf";
+    private static final String COMPOSITE_BYTE_BUF = "io.netty.buffer.CompositeByteBuf";
+    private static final List<String> SUPPORTED_CLASSES = Arrays.asList(UNPOOLED_HEAP_BYTE_BUF, POOLED_BYTE_BUF, UNPOOLED_DIRECT_BYTE_BUF, COMPOSITE_BYTE_BUF);
+    private static final int MAX_NESTING = 16;
+
+    @Nonnull
+    @Override
+    public String getName() {
+        return "Netty ByteBuf readable bytes";
+    }
+
+    @Nonnull
+    @Override
+    protected List<String> getSupportedClasses() {
+        return SUPPORTED_CLASSES;
+    }
+
+    @Nullable
+    @Override
+    public PageProvider createPageProvider(XValue value) {
+        JavaValue javaValue = (JavaValue) value;
+        Value objectValue = javaValue.getDescriptor().getValue();
+        if (!(objectValue instanceof ObjectReference)) {
+            return null;
+        }
+
+        ObjectReference objectRef = (ObjectReference) objectValue;
+        PageProvider pageProvider = createPageProvider(objectRef);
+        if (pageProvider != null) {
+            return pageProvider;
+        }
+
+        // Direct memory is copied per page by evaluation in debugged process
+        JavaDebugProcess debugProcess = javaValue.getEvaluationContext().getDebugProcess().getXdebugProcess();
+        XStackFrame stackFrame = debugProcess == null ? null : debugProcess.getSession().getCurrentStackFrame();
+        XDebuggerEvaluator evaluator = stackFrame == null ? null : stackFrame.getEvaluator();
+        if (evaluator == null) {
+            return null;
+        }
+
+        int readerIndex = getIntFieldValue(objectRef, "readerIndex", 0);
+        int writerIndex = getIntFieldValue(objectRef, "writerIndex", 0);
+        return new JdiNettyByteBufPageProvider(evaluator, value, readerIndex, Math.max(writerIndex - readerIndex, 0));
+    }
+
+    @Nullable
+    @Override
+    public Executor getPrefetchExecutor(XValue value) {
+        // Evaluation of direct buffer pages cannot run on manager thread
+        return EvaluatedPageProvider.PREFETCH_EXECUTOR;
+    }
+
+    @Nullable
+    @Override
+    protected PageProvider createPageProvider(ObjectReference objectRef) {
+        int readerIndex = getIntFieldValue(objectRef, "readerIndex", 0);
+        int writerIndex = getIntFieldValue(objectRef, "writerIndex", 0);
+        List<JdiSegmentedByteArrayPageProvider.Segment> segments = new ArrayList<>();
+        if (!addSegments(objectRef, readerIndex, writerIndex, segments, 0)) {
+            return null;
+        }
+
+        return new JdiSegmentedByteArrayPageProvider(segments);
+    }
+
+    /**
+     * Adds backing array windows for given range of buffer.
+     *
+     * @param bufferRef buffer reference
+     * @param startIndex start index in buffer
+     * @param endIndex end index in buffer
+     * @param segments target list of segments
+     * @param nesting nesting level of composite buffers
+     * @return true if all data are backed by arrays
+     */
+    private boolean addSegments(ObjectReference bufferRef, int startIndex, int endIndex, List<JdiSegmentedByteArrayPageProvider.Segment> segments, int nesting) {
+        if (endIndex <= startIndex) {
+            return true;
+        }
+
+        String supportedClass = findSupportedClass(bufferRef.referenceType());
+        if (supportedClass == null) {
+            return false;
+        }
+
+        switch (supportedClass) {
+            case UNPOOLED_HEAP_BYTE_BUF: {
+                Value arrayValue = JdiFieldCache.getFieldValue(bufferRef, "array");
+                if (!(arrayValue instanceof ArrayReference)) {
+                    return false;
+                }
+                segments.add(new JdiSegmentedByteArrayPageProvider.Segment((ArrayReference) arrayValue, startIndex, endIndex - startIndex));
+                return true;
+            }
+            case POOLED_BYTE_BUF: {
+                // Memory is ByteBuffer for direct buffers
+                Value memoryValue = JdiFieldCache.getFieldValue(bufferRef, "memory");
+                if (!(memoryValue instanceof ArrayReference)) {
+                    return false;
+                }
+                int offset = getIntFieldValue(bufferRef, "offset", 0);
+                segments.add(new JdiSegmentedByteArrayPageProvider.Segment((ArrayReference) memoryValue, offset + startIndex, endIndex - startIndex));
+                return true;
+            }
+            case COMPOSITE_BYTE_BUF: {
+                return nesting < MAX_NESTING && addCompositeSegments(bufferRef, startIndex, endIndex, segments, nesting);
+            }
+        }
+
+        return false;
+    }
+
+    private boolean addCompositeSegments(ObjectReference bufferRef, int startIndex, int endIndex, List<JdiSegmentedByteArrayPageProvider.Segment> segments, int nesting) {
+        Value componentsValue = JdiFieldCache.getFieldValue(bufferRef, "components");
+        if (!(componentsValue instanceof ArrayReference)) {
+            return false;
+        }
+
+        ArrayReference componentsRef = (ArrayReference) componentsValue;
+        int componentCount = Math.min(getIntFieldValue(bufferRef, "componentCount", componentsRef.length()), componentsRef.length());
+        if (componentCount == 0) {
+            return true;
+        }
+
+        for (Value componentValue : componentsRef.getValues(0, componentCount)) {
+            if (!(componentValue instanceof ObjectReference)) {
+                continue;
+            }
+
+            ObjectReference componentRef = (ObjectReference) componentValue;
+            int offset = getIntFieldValue(componentRef, "offset", 0);
+            int endOffset = getIntFieldValue(componentRef, "endOffset", offset);
+            int from = Math.max(startIndex, offset);
+            int to = Math.min(endIndex, endOffset);
+            if (from >= to) {
+                continue;
+            }
+
+            Value componentBuffer = JdiFieldCache.getFieldValue(componentRef, "buf");
+            if (!(componentBuffer instanceof ObjectReference)) {
+                return false;
+            }
+
+            // Older versions index component buffer from component offset
+            int adjustment = getIntFieldValue(componentRef, "adjustment", -offset);
+            if (!addSegments((ObjectReference) componentBuffer, from + adjustment, to + adjustment, segments, nesting + 1)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
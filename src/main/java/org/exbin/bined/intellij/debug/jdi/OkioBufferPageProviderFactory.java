@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.intellij.debug.jdi;
+
+import com.sun.jdi.ArrayReference;
+import com.sun.jdi.ObjectReference;
+import com.sun.jdi.Value;
+import org.exbin.framework.bined.objectdata.PageProvider;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Page provider factory for content of Okio buffers.
+ * <p>
+ * Buffer is circular list of segments, each segment is read as window of its
+ * data array.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class OkioBufferPageProviderFactory extends JdiPageProviderFactory {
+
+    private static final String OKIO_BUFFER = "okio.Buffer";
+    private static final int MAX_SEGMENTS = 1_000_000;
+
+    @Nonnull
+    @Override
+    public String getName() {
+        return "Okio buffer content";
+    }
+
+    @Nonnull
+    @Override
+    protected List<String> getSupportedClasses() {
+        return Collections.singletonList(OKIO_BUFFER);
+    }
+
+    @Nullable
+    @Override
+    protected PageProvider createPageProvider(ObjectReference objectRef) {
+        List<JdiSegmentedByteArrayPageProvider.Segment> segments = new ArrayList<>();
+        Value headValue = JdiFieldCache.getFieldValue(objectRef, "head");
+        Value segmentValue = headValue;
+        while (segmentValue instanceof ObjectReference && segments.size() < MAX_SEGMENTS) {
+            ObjectReference segmentRef = (ObjectReference) segmentValue;
+            Value dataValue = JdiFieldCache.getFieldValue(segmentRef, "data");
+            if (!(dataValue instanceof ArrayReference)) {
+                return null;
+            }
+
+            int pos = getIntFieldValue(segmentRef, "pos", 0);
+            int limit = getIntFieldValue(segmentRef, "limit", pos);
+            segments.add(new JdiSegmentedByteArrayPageProvider.Segment((ArrayReference) dataValue, pos, limit - pos));
+            segmentValue = JdiFieldCache.getFieldValue(segmentRef, "next");
+            if (headValue.equals(segmentValue)) {
+                break;
+            }
+        }
+
+        return new JdiSegmentedByteArrayPageProvider(segments);
+    }
+}
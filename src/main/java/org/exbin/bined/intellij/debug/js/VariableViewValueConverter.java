@@ -0,0 +1,180 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.intellij.debug.js;
+
+import com.intellij.xdebugger.XDebugSession;
+import com.intellij.xdebugger.evaluation.XDebuggerEvaluator;
+import com.intellij.xdebugger.frame.XNamedValue;
+import com.intellij.xdebugger.frame.XStackFrame;
+import com.intellij.xdebugger.frame.XValue;
+import com.intellij.xdebugger.impl.ui.tree.nodes.XValueNodeImpl;
+import org.exbin.auxiliary.binary_data.BinaryData;
+import org.exbin.bined.intellij.debug.DebugValueConverter;
+import org.exbin.bined.intellij.debug.DebugViewDataProvider;
+import org.exbin.bined.intellij.debug.DefaultDebugViewDataProvider;
+import org.exbin.bined.intellij.debug.cache.AsyncPageBinaryData;
+import org.exbin.bined.intellij.debug.cache.CachedPageProvider;
+import org.exbin.bined.intellij.debug.cache.DebugSessionPageCache;
+import org.exbin.bined.intellij.debug.cache.PageCache;
+import org.exbin.bined.intellij.debug.intellij.ChildNodesPageProvider;
+import org.exbin.bined.intellij.debug.intellij.EvaluatedPageProvider;
+import org.exbin.bined.intellij.debug.intellij.XValueNodeConvertor;
+import org.jetbrains.debugger.VariableView;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.util.List;
+
+/**
+ * JavaScript debugger values converter.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class VariableViewValueConverter implements DebugValueConverter {
+
+    @Nonnull
+    @Override
+    public String getValueClassName() {
+        return "org.jetbrains.debugger.VariableView";
+    }
+
+    @Override
+    public void addProviders(XValueNodeImpl dataNode, @Nullable String initialValue, @Nullable XDebugSession debugSession, List<DebugViewDataProvider> providers) {
+        XValue container = dataNode.getValueContainer();
+        ChildNodesPageProvider.ValueType childValueType = null;
+        ChildNodesPageProvider.ValueExtractor childValueExtractor = null;
+        long childValueSize = 0;
+
+        org.jetbrains.debugger.values.Value value = ((VariableView) container).getValue();
+        String valueType = value.getValueString();
+        try {
+            int arraySizePos = valueType.indexOf("(");
+            if (arraySizePos > 0) {
+                String childType = valueType.substring(0, arraySizePos);
+                int arraySize = Integer.parseInt(valueType.substring(arraySizePos + 1, valueType.length() - 1));
+                BinaryData typedArrayData = processTypedArrayData(container, childType, arraySize, debugSession);
+                if (typedArrayData != null) {
+                    providers.add(new DefaultDebugViewDataProvider("Typed array buffer", typedArrayData));
+                }
+                childValueExtractor = VariableViewValueConverter::getVariableViewValueText;
+                switch (childType.toLowerCase()) {
+                    case "int8array":
+                    case "uint8array": {
+                        childValueType = ChildNodesPageProvider.ValueType.BYTE;
+                        childValueSize = arraySize;
+                        break;
+                    }
+                    case "int16array":
+                    case "uint16array": {
+                        childValueType = ChildNodesPageProvider.ValueType.SHORT;
+                        childValueSize = arraySize;
+                        break;
+                    }
+                    case "int32array":
+                    case "uint32array": {
+                        childValueType = ChildNodesPageProvider.ValueType.INTEGER;
+                        childValueSize = arraySize;
+                        break;
+                    }
+                    case "int64array":
+                    case "uint64array": {
+                        childValueType = ChildNodesPageProvider.ValueType.LONG;
+                        childValueSize = arraySize;
+                        break;
+                    }
+                }
+            }
+        } catch (Exception ex) {
+
+        }
+
+        if (childValueType != null) {
+            providers.add(XValueNodeConvertor.createChildNodesProvider(container, childValueType, childValueSize, childValueExtractor, debugSession));
+        }
+    }
+
+    @Nullable
+    private static BinaryData processTypedArrayData(XValue container, String typeName, int arraySize, @Nullable XDebugSession debugSession) {
+        int elementSize = getTypedArrayElementSize(typeName);
+        XStackFrame stackFrame = debugSession == null ? null : debugSession.getCurrentStackFrame();
+        XDebuggerEvaluator evaluator = stackFrame == null ? null : stackFrame.getEvaluator();
+        String expression = container.getEvaluationExpression();
+        if (expression == null && container instanceof XNamedValue) {
+            expression = ((XNamedValue) container).getName();
+        }
+        if (elementSize == 0 || evaluator == null || expression == null) {
+            return null;
+        }
+
+        // Underlying buffer slice is evaluated as hex string for each page
+        String arrayExpression = expression;
+        EvaluatedPageProvider pageProvider = new EvaluatedPageProvider(evaluator, (long) arraySize * elementSize,
+                (startPosition, length) -> "(function(a){var v=new Uint8Array(a.buffer,a.byteOffset+" + startPosition + "," + length + ");"
+                        + "var s='';for(var i=0;i<v.length;i++){s+=(v[i]<16?'0':'')+v[i].toString(16);}return s;})(" + arrayExpression + ")",
+                EvaluatedPageProvider.TextEncoding.HEX);
+        pageProvider.setSearchExpression((pattern, fromPosition, maxMatches) -> "(function(a,p,f,m){var v=new Uint8Array(a.buffer,a.byteOffset,a.byteLength);var r=[];"
+                + "for(var i=f;i<=v.length-p.length&&r.length<m;i++){var j=0;while(j<p.length&&v[i+j]===p[j]){j++;}if(j===p.length){r.push(i);}}return r.join(',');})("
+                + arrayExpression + "," + toJsArray(pattern) + "," + fromPosition + "," + maxMatches + ")");
+        PageCache pageCache = DebugSessionPageCache.getPageCache(debugSession, "js-typed-array", expression);
+        return new AsyncPageBinaryData(new CachedPageProvider(pageProvider, pageCache, EvaluatedPageProvider.PREFETCH_EXECUTOR));
+    }
+
+    @Nonnull
+    private static String toJsArray(byte[] data) {
+        StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < data.length; i++) {
+            if (i > 0) {
+                builder.append(",");
+            }
+            builder.append(data[i] & 0xff);
+        }
+        return builder.append("]").toString();
+    }
+
+    private static int getTypedArrayElementSize(String typeName) {
+        switch (typeName.toLowerCase()) {
+            case "buffer":
+            case "int8array":
+            case "uint8array":
+            case "uint8clampedarray":
+                return 1;
+            case "int16array":
+            case "uint16array":
+                return 2;
+            case "int32array":
+            case "uint32array":
+            case "float32array":
+                return 4;
+            case "float64array":
+            case "bigint64array":
+            case "biguint64array":
+                return 8;
+        }
+
+        return 0;
+    }
+
+    @Nonnull
+    public static String getVariableViewValueText(XValue valueContainer) {
+        try {
+            return ((VariableView) valueContainer).getValue().getValueString();
+        } catch (ClassCastException e) {
+            return "0";
+        }
+    }
+}
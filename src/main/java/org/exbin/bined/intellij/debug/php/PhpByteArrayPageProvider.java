@@ -15,64 +15,63 @@
  */
 package org.exbin.bined.intellij.debug.php;
 
+import com.intellij.xdebugger.frame.XValue;
+import com.jetbrains.php.debug.common.PhpNavigatableValue;
+import com.jetbrains.php.debug.xdebug.debugger.XdebugValue;
+import org.exbin.bined.intellij.debug.intellij.XValueChildrenCollector;
 import org.exbin.framework.bined.objectdata.PageProvider;
 import org.exbin.framework.bined.objectdata.PageProviderBinaryData;
 import org.exbin.auxiliary.binary_data.OutOfBoundsException;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
+import java.util.List;
 import java.util.Map;
 
 /**
  * PHP bytearray data source for debugger view.
+ * <p>
+ * Already loaded children are decoded once, remaining children are requested
+ * lazily using Xdebug paging of children.
  *
  * @author ExBin Project (https://exbin.org)
  */
 @ParametersAreNonnullByDefault
 public class PhpByteArrayPageProvider implements PageProvider {
 
-    private final Map<String, String> value;
-    private int size = 0;
+    private final XValueChildrenCollector childrenCollector;
+    private final byte[] loadedData;
+    private final int size;
 
-    public PhpByteArrayPageProvider(Map<String, String> value) {
-        this.value = value;
-
-        int pos = 0;
-        do {
-            String child = value.get(String.valueOf(pos));
-            try {
-                Integer.parseInt(child);
-            } catch (NumberFormatException ex) {
-                break;
-            }
-            pos++;
-            size++;
-        } while (true);
+    public PhpByteArrayPageProvider(XdebugValue value) {
+        loadedData = decodeLoadedChildren(value.getLoadedChildren());
+        size = Math.max(value.getChildrenCount(), loadedData.length);
+        childrenCollector = new XValueChildrenCollector(value);
     }
 
     @Nonnull
     @Override
     public byte[] getPage(long pageIndex) {
         long documentSize = getDocumentSize();
-        if (pageIndex > documentSize / PageProviderBinaryData.PAGE_SIZE )
+        long pageStart = pageIndex * PageProviderBinaryData.PAGE_SIZE;
+        if (pageStart >= documentSize) {
             throw new OutOfBoundsException();
-
-        int length;
-        if (documentSize / PageProviderBinaryData.PAGE_SIZE == pageIndex) {
-            length = (int) (documentSize % PageProviderBinaryData.PAGE_SIZE);
-        } else {
-            length = PageProviderBinaryData.PAGE_SIZE;
         }
-        byte[] page = new byte[length];
 
-        int position = (int) pageIndex * PageProviderBinaryData.PAGE_SIZE;
-        int offset = 0;
-        while (offset < length) {
-            int intValue = Integer.parseInt(value.get(String.valueOf(position)));
-            byte byteValue = intValue > -128 && intValue < 256 ? (byte) intValue : 0;
-            page[offset] = byteValue;
-            offset++;
-            position++;
+        int position = (int) pageStart;
+        int length = (int) Math.min(documentSize - pageStart, PageProviderBinaryData.PAGE_SIZE);
+        byte[] page = new byte[length];
+        int loadedLength = Math.max(Math.min(loadedData.length - position, length), 0);
+        System.arraycopy(loadedData, position, page, 0, loadedLength);
+        if (loadedLength < length) {
+            List<XValue> children = childrenCollector.getChildren(position + length);
+            for (int offset = loadedLength; offset < length && position + offset < children.size(); offset++) {
+                XValue child = children.get(position + offset);
+                if (child instanceof PhpNavigatableValue) {
+                    page[offset] = decodeByte(((PhpNavigatableValue) child).getPresentableValue());
+                }
+            }
         }
 
         return page;
@@ -82,4 +81,48 @@ public class PhpByteArrayPageProvider implements PageProvider {
     public long getDocumentSize() {
         return size;
     }
+
+    @Nonnull
+    private static byte[] decodeLoadedChildren(@Nullable Map<String, String> value) {
+        if (value == null) {
+            return new byte[0];
+        }
+
+        byte[] data = new byte[value.size()];
+        int pos = 0;
+        while (pos < data.length) {
+            String child = value.get(String.valueOf(pos));
+            if (child == null) {
+                break;
+            }
+            try {
+                data[pos] = toByte(Integer.parseInt(child));
+            } catch (NumberFormatException ex) {
+                break;
+            }
+            pos++;
+        }
+
+        if (pos < data.length) {
+            byte[] result = new byte[pos];
+            System.arraycopy(data, 0, result, 0, pos);
+            return result;
+        }
+        return data;
+    }
+
+    private static byte decodeByte(@Nullable String valueText) {
+        if (valueText == null) {
+            return 0;
+        }
+        try {
+            return toByte(Integer.parseInt(valueText.trim()));
+        } catch (NumberFormatException ex) {
+            return 0;
+        }
+    }
+
+    private static byte toByte(int intValue) {
+        return intValue > -128 && intValue < 256 ? (byte) intValue : 0;
+    }
 }
@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.intellij.debug.php;
+
+import com.intellij.xdebugger.XDebugSession;
+import com.intellij.xdebugger.frame.XValue;
+import com.intellij.xdebugger.impl.ui.tree.nodes.XValueNodeImpl;
+import com.jetbrains.php.debug.common.PhpNavigatableValue;
+import com.jetbrains.php.debug.xdebug.debugger.XdebugValue;
+import com.jetbrains.php.lang.psi.resolve.types.PhpType;
+import org.exbin.auxiliary.binary_data.BinaryData;
+import org.exbin.bined.intellij.debug.DebugValueConverter;
+import org.exbin.bined.intellij.debug.DebugViewDataProvider;
+import org.exbin.bined.intellij.debug.DefaultDebugViewDataProvider;
+import org.exbin.bined.intellij.debug.cache.AsyncPageBinaryData;
+import org.exbin.bined.intellij.debug.cache.CachedPageProvider;
+import org.exbin.bined.intellij.debug.cache.DebugSessionPageCache;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * PHP debugger values converter.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class PhpValueConverter implements DebugValueConverter {
+
+    @Nonnull
+    @Override
+    public String getValueClassName() {
+        return "com.jetbrains.php.debug.xdebug.debugger.XdebugValue";
+    }
+
+    @Override
+    public void addProviders(XValueNodeImpl dataNode, @Nullable String initialValue, @Nullable XDebugSession debugSession, List<DebugViewDataProvider> providers) {
+        XValue container = dataNode.getValueContainer();
+
+        try {
+            PhpType dataType = ((PhpNavigatableValue) container).getType();
+
+            switch (dataType.toString()) {
+                case "array": {
+                    BinaryData data = new AsyncPageBinaryData(new CachedPageProvider(new PhpByteArrayPageProvider((XdebugValue) container),
+                            DebugSessionPageCache.getPageCache(debugSession, "php-array", container.getEvaluationExpression()), null));
+                    providers.add(new DefaultDebugViewDataProvider("PHP bytearray value", data));
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            Logger.getLogger(PhpValueConverter.class.getName()).log(Level.SEVERE, null, e);
+        }
+    }
+}
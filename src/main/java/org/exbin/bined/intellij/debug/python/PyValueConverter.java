@@ -0,0 +1,240 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.intellij.debug.python;
+
+import com.google.common.util.concurrent.AbstractFuture;
+import com.intellij.xdebugger.XDebugSession;
+import com.intellij.xdebugger.evaluation.XDebuggerEvaluator;
+import com.intellij.xdebugger.frame.XFullValueEvaluator;
+import com.intellij.xdebugger.frame.XStackFrame;
+import com.intellij.xdebugger.frame.XValue;
+import com.intellij.xdebugger.frame.XValuePlace;
+import com.intellij.xdebugger.impl.ui.tree.nodes.XValueNodeImpl;
+import com.jetbrains.python.debugger.PyDebugValue;
+import org.exbin.auxiliary.binary_data.BinaryData;
+import org.exbin.auxiliary.binary_data.ByteArrayData;
+import org.exbin.bined.intellij.debug.DebugValueConverter;
+import org.exbin.bined.intellij.debug.DebugViewDataProvider;
+import org.exbin.bined.intellij.debug.LazyDebugViewDataProvider;
+import org.exbin.bined.intellij.debug.cache.AsyncPageBinaryData;
+import org.exbin.bined.intellij.debug.cache.CachedPageProvider;
+import org.exbin.bined.intellij.debug.cache.DebugSessionPageCache;
+import org.exbin.bined.intellij.debug.cache.PageCache;
+import org.exbin.bined.intellij.debug.intellij.EvaluatedPageProvider;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.awt.Font;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Python debugger values converter.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class PyValueConverter implements DebugValueConverter {
+
+    @Nonnull
+    @Override
+    public String getValueClassName() {
+        return "com.jetbrains.python.debugger.PyDebugValue";
+    }
+
+    @Override
+    public void addProviders(XValueNodeImpl dataNode, @Nullable String initialValue, @Nullable XDebugSession debugSession, List<DebugViewDataProvider> providers) {
+        XValue container = dataNode.getValueContainer();
+
+        String dataType = ((PyDebugValue) container).getType();
+        if (dataType != null) {
+            switch (dataType) {
+                case "bytearray":
+                case "bytes": {
+                    // Very primitive and inefficient data reading using existing readers via string
+                    providers.add(new LazyDebugViewDataProvider("Python bytearray value", () -> {
+                        String fullValue = dataNode.getRawValue();
+                        if (initialValue != null && !initialValue.isEmpty()) {
+                            fullValue = initialValue;
+                        } else if (fullValue == null || fullValue.isEmpty()) {
+                            PyValueFuture value = new PyValueFuture(dataNode);
+                            try {
+                                fullValue = value.get();
+                            } catch (InterruptedException ex) {
+                                value.cancel(false);
+                                Thread.currentThread().interrupt();
+                                throw new CancellationException("Python value loading cancelled");
+                            } catch (ExecutionException ex) {
+                                throw new IllegalStateException(ex);
+                            }
+                        }
+                        return new AsyncPageBinaryData(new CachedPageProvider(new PythonByteArrayPageProvider(fullValue)));
+                    }));
+                    break;
+                }
+                case "ndarray": {
+                    providers.add(new NumPyArrayDataProvider((PyDebugValue) container, debugSession));
+                    break;
+                }
+            }
+        }
+    }
+
+    @Nonnull
+    private static String toHex(byte[] data) {
+        StringBuilder builder = new StringBuilder(data.length * 2);
+        for (byte value : data) {
+            builder.append(Character.forDigit((value >> 4) & 0xf, 16)).append(Character.forDigit(value & 0xf, 16));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Data provider of raw buffer of NumPy array.
+     * <p>
+     * Name is extended with data type, item size and byte order when data are
+     * computed.
+     */
+    private static class NumPyArrayDataProvider implements DebugViewDataProvider {
+
+        private final PyDebugValue container;
+        @Nullable
+        private final XDebugSession debugSession;
+        private volatile String name;
+        private BinaryData data = null;
+
+        public NumPyArrayDataProvider(PyDebugValue container, @Nullable XDebugSession debugSession) {
+            this.container = container;
+            this.debugSession = debugSession;
+            String shape = container.getShape();
+            name = "NumPy array raw buffer" + (shape == null || shape.isEmpty() ? "" : " (shape " + shape + ")");
+        }
+
+        @Nonnull
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Nonnull
+        @Override
+        public synchronized BinaryData getData() {
+            if (data == null) {
+                BinaryData arrayData = processNumPyArrayData();
+                data = arrayData != null ? arrayData : new ByteArrayData();
+            }
+            return data;
+        }
+
+        @Nullable
+        private BinaryData processNumPyArrayData() {
+            XStackFrame stackFrame = debugSession == null ? null : debugSession.getCurrentStackFrame();
+            XDebuggerEvaluator evaluator = stackFrame == null ? null : stackFrame.getEvaluator();
+            String expression = container.getEvaluationExpression();
+            if (evaluator == null || expression == null) {
+                return null;
+            }
+
+            String[] arrayInfo = EvaluatedPageProvider.evaluateToText(evaluator, "(lambda a: '%d;%d;%s;%s;%d' % (a.nbytes, 1 if a.flags.forc else 0, a.dtype.name, a.dtype.str, a.dtype.itemsize))(" + expression + ")").split(";");
+            long documentSize;
+            int itemSize;
+            try {
+                documentSize = Long.parseLong(arrayInfo[0].trim());
+                itemSize = Integer.parseInt(arrayInfo[4].trim());
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException ex) {
+                return null;
+            }
+            boolean contiguous = "1".equals(arrayInfo[1]);
+            name = name + " (dtype " + arrayInfo[2] + ", itemsize " + itemSize + ", " + getByteOrderName(arrayInfo[3]) + (contiguous ? "" : ", C order copy") + ")";
+
+            String arrayExpression = expression;
+            EvaluatedPageProvider pageProvider;
+            if (contiguous) {
+                // Flattening in memory order is view for contiguous arrays, byte view is sliced per page
+                pageProvider = new EvaluatedPageProvider(evaluator, documentSize,
+                        (startPosition, length) -> "(" + arrayExpression + ").ravel('K').view('u1')[" + startPosition + ":" + (startPosition + length) + "].tobytes().hex()",
+                        EvaluatedPageProvider.TextEncoding.HEX);
+                // Batch of overlapping matches is searched in memory view of the array without copying it
+                pageProvider.setSearchExpression((pattern, fromPosition, maxMatches) -> "(lambda r, v: ','.join(str(m.start()) for m in __import__('itertools').islice(r.finditer(v, " + fromPosition + "), " + maxMatches + ")))"
+                        + "(__import__('re').compile(b'(?=' + __import__('re').escape(bytes.fromhex('" + toHex(pattern) + "')) + b')', __import__('re').DOTALL), memoryview((" + arrayExpression + ").ravel('K').view('u1')))");
+            } else {
+                // Non-contiguous array has no single raw buffer, only items of the page are copied in C order
+                pageProvider = new EvaluatedPageProvider(evaluator, documentSize, (startPosition, length) -> {
+                    long firstItem = startPosition / itemSize;
+                    long endItem = (startPosition + length + itemSize - 1) / itemSize;
+                    long offset = startPosition - firstItem * itemSize;
+                    return "__import__('numpy').ascontiguousarray((" + arrayExpression + ").flat[" + firstItem + ":" + endItem + "]).view('u1')[" + offset + ":" + (offset + length) + "].tobytes().hex()";
+                }, EvaluatedPageProvider.TextEncoding.HEX);
+            }
+            PageCache pageCache = DebugSessionPageCache.getPageCache(debugSession, "numpy-array", expression);
+            return new AsyncPageBinaryData(new CachedPageProvider(pageProvider, pageCache, EvaluatedPageProvider.PREFETCH_EXECUTOR));
+        }
+
+        @Nonnull
+        private static String getByteOrderName(String dtypeStr) {
+            switch (dtypeStr.isEmpty() ? '|' : dtypeStr.charAt(0)) {
+                case '<':
+                    return "little-endian";
+                case '>':
+                    return "big-endian";
+                default:
+                    return "no byte order";
+            }
+        }
+    }
+
+    private static class PyValueFuture extends AbstractFuture<String> {
+        public PyValueFuture(@Nonnull XValueNodeImpl dataNode) {
+            super();
+
+            XFullValueEvaluator fullValueEvaluator = dataNode.getFullValueEvaluator();
+            if (fullValueEvaluator == null) {
+                dataNode.getValueContainer().computePresentation(dataNode, XValuePlace.TREE);
+                fullValueEvaluator = dataNode.getFullValueEvaluator();
+
+                if (fullValueEvaluator == null) {
+                    throw new UnsupportedOperationException("Unable to create value evaluator");
+                    // TODO: Extend PyFullValueEvaluator instead?
+//                    String expression = ((PyDebugValue) dataNode.getValueContainer()).getEvaluationExpression();
+//                    PyFrameAccessor myFrameAccessor = ((PyDebugValue) dataNode.getValueContainer()).getFrameAccessor();
+//                    fullValueEvaluator = new PyFullValueEvaluator(myFrameAccessor, expression);
+                }
+            }
+            fullValueEvaluator.startEvaluation(new XFullValueEvaluator.XFullValueEvaluationCallback() {
+                public boolean isObsolete() {
+                    return false;
+                }
+
+                @Override
+                public void evaluated(@Nonnull String s) {
+                    set(s);
+                }
+
+                @Override
+                public void evaluated(@Nonnull String s, @Nullable Font font) {
+                    set(s);
+                }
+
+                @Override
+                public void errorOccurred(@Nonnull String s) {
+                    set(null);
+                }
+            });
+        }
+    }
+}
@@ -17,11 +17,17 @@ package org.exbin.bined.intellij.diff;
 
 import com.intellij.diff.DiffContext;
 import com.intellij.diff.requests.ContentDiffRequest;
+import com.intellij.diff.tools.util.DiffDataKeys;
 import com.intellij.diff.tools.util.base.DiffViewerBase;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ModalityState;
 import com.intellij.openapi.progress.ProgressIndicator;
+import org.exbin.auxiliary.binary_data.BinaryData;
+import org.exbin.auxiliary.binary_data.ByteArrayData;
 import org.exbin.bined.intellij.diff.gui.BinedDiffPanel;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
 import javax.swing.JComponent;
 
@@ -33,6 +39,8 @@ import javax.swing.JComponent;
 @ParametersAreNonnullByDefault
 public class BinEdDiffViewer extends DiffViewerBase {
 
+    private static final int SNAPSHOT_CHUNK_SIZE = 4 * 1024 * 1024;
+
     private final BinedDiffPanel diffPanel = new BinedDiffPanel();
 
     public BinEdDiffViewer(DiffContext context, ContentDiffRequest request) {
@@ -43,11 +51,88 @@ public class BinEdDiffViewer extends DiffViewerBase {
     @Nonnull
     @Override
     protected Runnable performRediff(ProgressIndicator indicator) {
+        // Shown data are copied so that they can be compared while user continues editing
+        long[] dataSizes = new long[2];
+        long[] modificationCount = new long[1];
+        ApplicationManager.getApplication().invokeAndWait(() -> {
+            BinaryData leftContent = diffPanel.getContentData(true);
+            BinaryData rightContent = diffPanel.getContentData(false);
+            dataSizes[0] = leftContent == null ? -1 : leftContent.getDataSize();
+            dataSizes[1] = rightContent == null ? -1 : rightContent.getDataSize();
+            modificationCount[0] = diffPanel.getModificationCount();
+        }, ModalityState.any());
+        if (dataSizes[0] < 0 || dataSizes[1] < 0) {
+            return () -> {
+                // no activity
+            };
+        }
+
+        byte[] leftData = readContentData(true, dataSizes[0], modificationCount[0], indicator);
+        byte[] rightData = leftData == null ? null : readContentData(false, dataSizes[1], modificationCount[0], indicator);
+        if (leftData == null || rightData == null) {
+            // Data were modified during copying
+            return this::scheduleRediff;
+        }
+
+        BinaryDiffResult diffResult = BinaryDiffEngine.compute(leftData, rightData, indicator);
+        BinaryData leftBinaryData = new ByteArrayData(leftData);
+        BinaryData rightBinaryData = new ByteArrayData(rightData);
+        DiffRangeIndex leftRangeIndex = DiffRangeIndex.build(diffResult, leftBinaryData, rightBinaryData, true, indicator);
+        DiffRangeIndex rightRangeIndex = DiffRangeIndex.build(diffResult, leftBinaryData, rightBinaryData, false, indicator);
         return () -> {
-            // no activity
+            if (diffPanel.getModificationCount() != modificationCount[0]) {
+                // Data were modified during computation
+                scheduleRediff();
+                return;
+            }
+            diffPanel.setDiffData(diffResult, leftRangeIndex, rightRangeIndex);
         };
     }
 
+    /**
+     * Copies shown data of given side by chunks.
+     * <p>
+     * Each chunk is copied on event dispatch thread separately so that user
+     * interface is not blocked by copying of whole content.
+     *
+     * @param leftSide true for left side
+     * @param dataSize size of data
+     * @param modificationCount modification count of data
+     * @param indicator progress indicator
+     * @return copy of data or null if data were modified
+     */
+    @Nullable
+    private byte[] readContentData(boolean leftSide, long dataSize, long modificationCount, ProgressIndicator indicator) {
+        byte[] result = new byte[(int) dataSize];
+        boolean[] modified = new boolean[1];
+        for (int offset = 0; offset < result.length; offset += SNAPSHOT_CHUNK_SIZE) {
+            indicator.checkCanceled();
+            int position = offset;
+            int length = Math.min(result.length - offset, SNAPSHOT_CHUNK_SIZE);
+            ApplicationManager.getApplication().invokeAndWait(() -> {
+                BinaryData content = diffPanel.getContentData(leftSide);
+                if (content == null || diffPanel.getModificationCount() != modificationCount) {
+                    modified[0] = true;
+                    return;
+                }
+                content.copyToArray(position, result, position, length);
+            }, ModalityState.any());
+            if (modified[0]) {
+                return null;
+            }
+        }
+        return result;
+    }
+
+    @Nullable
+    @Override
+    public Object getData(String dataId) {
+        if (DiffDataKeys.PREV_NEXT_DIFFERENCE_ITERABLE.is(dataId)) {
+            return diffPanel.getDifferenceIterable();
+        }
+        return super.getData(dataId);
+    }
+
     @Nonnull
     @Override
     public JComponent getComponent() {
@@ -0,0 +1,341 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.intellij.diff;
+
+import com.intellij.openapi.progress.ProgressIndicator;
+
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Binary diff engine aligning data with insertions and removals.
+ * <p>
+ * Blocks of the left side are indexed by hash and right side is scanned with
+ * rolling hash to find matching anchors, which are then extended in both
+ * directions. Small gaps between anchors are refined using Myers O(ND)
+ * algorithm, larger gaps are reported as changed.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class BinaryDiffEngine {
+
+    public static final int MIN_BLOCK_SIZE = 32;
+    public static final int MAX_INDEXED_BLOCKS = 1 << 20;
+    public static final int REFINE_GAP_LIMIT = 16384;
+    public static final int MAX_EDIT_DISTANCE = 512;
+
+    private static final int HASH_BASE = 0x01000193;
+    private static final int CANCEL_CHECK_INTERVAL = 0x10000;
+
+    private final byte[] left;
+    private final byte[] right;
+    private final ProgressIndicator indicator;
+    private final BinaryDiffResult result;
+
+    private BinaryDiffEngine(byte[] left, byte[] right, ProgressIndicator indicator) {
+        this.left = left;
+        this.right = right;
+        this.indicator = indicator;
+        result = new BinaryDiffResult(left.length, right.length);
+    }
+
+    /**
+     * Computes diff of given data.
+     *
+     * @param left left side data
+     * @param right right side data
+     * @param indicator progress indicator used for progress and cancellation
+     * @return diff result
+     */
+    @Nonnull
+    public static BinaryDiffResult compute(byte[] left, byte[] right, ProgressIndicator indicator) {
+        BinaryDiffEngine engine = new BinaryDiffEngine(left, right, indicator);
+        engine.compute();
+        return engine.result;
+    }
+
+    private void compute() {
+        indicator.setIndeterminate(false);
+        indicator.setFraction(0);
+        int minLength = Math.min(left.length, right.length);
+        int prefix = commonPrefixLength(0, 0, minLength);
+        int suffix = commonSuffixLength(left.length, right.length, minLength - prefix);
+
+        result.addMatch(0, 0, prefix);
+        alignRange(prefix, left.length - suffix, prefix, right.length - suffix);
+        result.addMatch(left.length - suffix, right.length - suffix, suffix);
+        indicator.setFraction(1);
+    }
+
+    private void alignRange(int leftStart, int leftEnd, int rightStart, int rightEnd) {
+        int blockSize = getBlockSize(leftEnd - leftStart);
+        if (leftEnd - leftStart < blockSize || rightEnd - rightStart < blockSize) {
+            refineGap(leftStart, leftEnd, rightStart, rightEnd);
+            return;
+        }
+
+        BlockIndex blockIndex = new BlockIndex(left, leftStart, leftEnd, blockSize, indicator);
+        int outFactor = 1;
+        for (int i = 1; i < blockSize; i++) {
+            outFactor *= HASH_BASE;
+        }
+
+        int lastLeft = leftStart;
+        int lastRight = rightStart;
+        int position = rightStart;
+        int rightHash = hash(right, position, blockSize);
+        int diagonalHash = hash(left, lastLeft, blockSize);
+        double rightLength = rightEnd - rightStart;
+        while (position + blockSize <= rightEnd) {
+            if (((position - rightStart) & (CANCEL_CHECK_INTERVAL - 1)) == 0) {
+                indicator.checkCanceled();
+                indicator.setFraction((position - rightStart) / rightLength);
+            }
+
+            // Prefer continuing on the same diagonal, index stores first occurrence only
+            int diagonal = lastLeft + (position - lastRight);
+            int matchLeft = -1;
+            if (diagonal + blockSize <= leftEnd && diagonalHash == rightHash && isEqual(diagonal, position, blockSize)) {
+                matchLeft = diagonal;
+            } else {
+                int candidate = blockIndex.find(rightHash);
+                if (candidate >= lastLeft && isEqual(candidate, position, blockSize)) {
+                    matchLeft = candidate;
+                }
+            }
+
+            if (matchLeft >= 0) {
+                int backward = commonSuffixLength(matchLeft, position, Math.min(matchLeft - lastLeft, position - lastRight));
+                int forward = commonPrefixLength(matchLeft + blockSize, position + blockSize, Math.min(leftEnd - matchLeft, rightEnd - position) - blockSize);
+                int matchStartLeft = matchLeft - backward;
+                int matchStartRight = position - backward;
+                int length = backward + blockSize + forward;
+                refineGap(lastLeft, matchStartLeft, lastRight, matchStartRight);
+                result.addMatch(matchStartLeft, matchStartRight, length);
+                lastLeft = matchStartLeft + length;
+                lastRight = matchStartRight + length;
+                position = lastRight;
+                if (position + blockSize > rightEnd) {
+                    break;
+                }
+                rightHash = hash(right, position, blockSize);
+                if (lastLeft + blockSize <= leftEnd) {
+                    diagonalHash = hash(left, lastLeft, blockSize);
+                }
+                continue;
+            }
+
+            if (position + blockSize == rightEnd) {
+                break;
+            }
+            rightHash = roll(rightHash, right[position], right[position + blockSize], outFactor);
+            if (diagonal + blockSize < leftEnd) {
+                diagonalHash = roll(diagonalHash, left[diagonal], left[diagonal + blockSize], outFactor);
+            }
+            position++;
+        }
+
+        refineGap(lastLeft, leftEnd, lastRight, rightEnd);
+    }
+
+    /**
+     * Refines gap between matching blocks using Myers O(ND) algorithm.
+     * <p>
+     * Gaps exceeding size limit or edit distance limit are left unrefined.
+     */
+    private void refineGap(int leftStart, int leftEnd, int rightStart, int rightEnd) {
+        int leftLength = leftEnd - leftStart;
+        int rightLength = rightEnd - rightStart;
+        if (leftLength == 0 || rightLength == 0 || leftLength > REFINE_GAP_LIMIT || rightLength > REFINE_GAP_LIMIT) {
+            return;
+        }
+
+        int maxDistance = Math.min(leftLength + rightLength, MAX_EDIT_DISTANCE);
+        int offset = maxDistance + 1;
+        int[] endpoints = new int[2 * maxDistance + 3];
+        List<int[]> trace = new ArrayList<>();
+        for (int distance = 0; distance <= maxDistance; distance++) {
+            indicator.checkCanceled();
+            trace.add(endpoints.clone());
+            for (int diagonal = -distance; diagonal <= distance; diagonal += 2) {
+                int x;
+                if (diagonal == -distance || (diagonal != distance && endpoints[offset + diagonal - 1] < endpoints[offset + diagonal + 1])) {
+                    x = endpoints[offset + diagonal + 1];
+                } else {
+                    x = endpoints[offset + diagonal - 1] + 1;
+                }
+                int y = x - diagonal;
+                while (x < leftLength && y < rightLength && left[leftStart + x] == right[rightStart + y]) {
+                    x++;
+                    y++;
+                }
+                endpoints[offset + diagonal] = x;
+                if (x >= leftLength && y >= rightLength) {
+                    addRefinedMatches(trace, offset, leftStart, leftLength, rightStart, rightLength);
+                    return;
+                }
+            }
+        }
+    }
+
+    private void addRefinedMatches(List<int[]> trace, int offset, int leftStart, int leftLength, int rightStart, int rightLength) {
+        List<int[]> matches = new ArrayList<>();
+        int x = leftLength;
+        int y = rightLength;
+        for (int distance = trace.size() - 1; distance >= 0; distance--) {
+            int[] endpoints = trace.get(distance);
+            int diagonal = x - y;
+            int previousDiagonal;
+            if (diagonal == -distance || (diagonal != distance && endpoints[offset + diagonal - 1] < endpoints[offset + diagonal + 1])) {
+                previousDiagonal = diagonal + 1;
+            } else {
+                previousDiagonal = diagonal - 1;
+            }
+            int previousX = endpoints[offset + previousDiagonal];
+            int previousY = previousX - previousDiagonal;
+            int snakeLength = Math.min(x - previousX, y - previousY);
+            if (distance == 0) {
+                snakeLength = x;
+            }
+            if (snakeLength > 0) {
+                matches.add(new int[]{x - snakeLength, y - snakeLength, snakeLength});
+            }
+            x = previousX;
+            y = previousY;
+        }
+
+        for (int i = matches.size() - 1; i >= 0; i--) {
+            int[] match = matches.get(i);
+            result.addMatch(leftStart + match[0], rightStart + match[1], match[2]);
+        }
+    }
+
+    private int commonPrefixLength(int leftPosition, int rightPosition, int limit) {
+        int length = 0;
+        while (length < limit) {
+            if ((length & (CANCEL_CHECK_INTERVAL - 1)) == 0) {
+                indicator.checkCanceled();
+            }
+            if (left[leftPosition + length] != right[rightPosition + length]) {
+                break;
+            }
+            length++;
+        }
+        return length;
+    }
+
+    private int commonSuffixLength(int leftEnd, int rightEnd, int limit) {
+        int length = 0;
+        while (length < limit) {
+            if ((length & (CANCEL_CHECK_INTERVAL - 1)) == 0) {
+                indicator.checkCanceled();
+            }
+            if (left[leftEnd - length - 1] != right[rightEnd - length - 1]) {
+                break;
+            }
+            length++;
+        }
+        return length;
+    }
+
+    private boolean isEqual(int leftPosition, int rightPosition, int length) {
+        return Arrays.equals(left, leftPosition, leftPosition + length, right, rightPosition, rightPosition + length);
+    }
+
+    private static int getBlockSize(int length) {
+        int blockSize = MIN_BLOCK_SIZE;
+        while (length / blockSize > MAX_INDEXED_BLOCKS) {
+            blockSize <<= 1;
+        }
+        return blockSize;
+    }
+
+    private static int hash(byte[] data, int position, int length) {
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            hash = hash * HASH_BASE + (data[position + i] & 0xff);
+        }
+        return hash;
+    }
+
+    private static int roll(int hash, byte removed, byte added, int outFactor) {
+        return (hash - (removed & 0xff) * outFactor) * HASH_BASE + (added & 0xff);
+    }
+
+    /**
+     * Open addressing hash index of aligned blocks.
+     */
+    @ParametersAreNonnullByDefault
+    private static class BlockIndex {
+
+        private final int[] hashes;
+        private final int[] positions;
+        private final int mask;
+
+        public BlockIndex(byte[] data, int start, int end, int blockSize, ProgressIndicator indicator) {
+            int blocksCount = (end - start) / blockSize;
+            int capacity = 2;
+            while (capacity < blocksCount * 2) {
+                capacity <<= 1;
+            }
+            hashes = new int[capacity];
+            positions = new int[capacity];
+            Arrays.fill(positions, -1);
+            mask = capacity - 1;
+
+            for (int block = 0; block < blocksCount; block++) {
+                if ((block & 0xfff) == 0) {
+                    indicator.checkCanceled();
+                }
+                int position = start + block * blockSize;
+                add(hash(data, position, blockSize), position);
+            }
+        }
+
+        private void add(int hash, int position) {
+            int slot = mix(hash) & mask;
+            while (positions[slot] >= 0) {
+                if (hashes[slot] == hash) {
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            hashes[slot] = hash;
+            positions[slot] = position;
+        }
+
+        public int find(int hash) {
+            int slot = mix(hash) & mask;
+            while (positions[slot] >= 0) {
+                if (hashes[slot] == hash) {
+                    return positions[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        private static int mix(int hash) {
+            int mixed = hash ^ (hash >>> 16);
+            mixed *= 0x45d9f3b;
+            return mixed ^ (mixed >>> 16);
+        }
+    }
+}
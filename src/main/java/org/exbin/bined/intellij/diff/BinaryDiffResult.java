@@ -0,0 +1,307 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.intellij.diff;
+
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.util.Arrays;
+
+/**
+ * Result of binary diff as ordered list of blocks matching on both sides.
+ * <p>
+ * Data between matching blocks are differences: removed if the gap is only
+ * on the left side, inserted if only on the right side or changed otherwise.
+ * Result can be adjusted for data inserted or removed on either side.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class BinaryDiffResult {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private long leftSize;
+    private long rightSize;
+    private long[] leftStarts = new long[INITIAL_CAPACITY];
+    private long[] rightStarts = new long[INITIAL_CAPACITY];
+    private long[] lengths = new long[INITIAL_CAPACITY];
+    private int matchesCount = 0;
+
+    public BinaryDiffResult(long leftSize, long rightSize) {
+        this.leftSize = leftSize;
+        this.rightSize = rightSize;
+    }
+
+    /**
+     * Appends matching block, blocks must be added in order.
+     *
+     * @param leftStart start position on the left side
+     * @param rightStart start position on the right side
+     * @param length length of the block
+     */
+    void addMatch(long leftStart, long rightStart, long length) {
+        if (length <= 0) {
+            return;
+        }
+
+        if (matchesCount > 0) {
+            int last = matchesCount - 1;
+            if (leftStarts[last] + lengths[last] == leftStart && rightStarts[last] + lengths[last] == rightStart) {
+                lengths[last] += length;
+                return;
+            }
+        }
+
+        ensureCapacity(matchesCount + 1);
+        leftStarts[matchesCount] = leftStart;
+        rightStarts[matchesCount] = rightStart;
+        lengths[matchesCount] = length;
+        matchesCount++;
+    }
+
+    /**
+     * Adjusts matching blocks for data inserted on given side.
+     * <p>
+     * Matching block containing position is split, inserted data are left
+     * unmatched.
+     *
+     * @param leftSide true for left side, false for right side
+     * @param position position of insertion
+     * @param length length of inserted data
+     */
+    public void applyInsert(boolean leftSide, long position, long length) {
+        long[] starts = leftSide ? leftStarts : rightStarts;
+        int matchIndex = findMatch(position, leftSide);
+        if (matchIndex >= 0 && position > starts[matchIndex] && position < starts[matchIndex] + lengths[matchIndex]) {
+            splitMatch(matchIndex, position - starts[matchIndex]);
+            starts = leftSide ? leftStarts : rightStarts;
+        }
+
+        for (int i = Math.max(matchIndex, 0); i < matchesCount; i++) {
+            if (starts[i] >= position) {
+                starts[i] += length;
+            }
+        }
+        if (leftSide) {
+            leftSize += length;
+        } else {
+            rightSize += length;
+        }
+    }
+
+    /**
+     * Adjusts matching blocks for data removed on given side.
+     * <p>
+     * Data of the other side matching removed data are left unmatched.
+     *
+     * @param leftSide true for left side, false for right side
+     * @param position position of removal
+     * @param length length of removed data
+     */
+    public void applyRemove(boolean leftSide, long position, long length) {
+        long end = position + length;
+        long[] starts = leftSide ? leftStarts : rightStarts;
+        // Matches overlapping removed range are replaced by their remaining parts
+        int first = findMatch(position, leftSide);
+        if (first < 0 || starts[first] + lengths[first] <= position) {
+            first++;
+        }
+        int last = findMatch(end - 1, leftSide);
+
+        long headStart = 0;
+        long headOtherStart = 0;
+        long headLength = 0;
+        long tailOtherStart = 0;
+        long tailLength = 0;
+        if (first <= last) {
+            long[] otherStarts = leftSide ? rightStarts : leftStarts;
+            if (starts[first] < position) {
+                headStart = starts[first];
+                headOtherStart = otherStarts[first];
+                headLength = position - starts[first];
+            }
+            long lastEnd = starts[last] + lengths[last];
+            if (lastEnd > end) {
+                tailOtherStart = otherStarts[last] + end - starts[last];
+                tailLength = lastEnd - end;
+            }
+        }
+
+        int partsCount = (headLength > 0 ? 1 : 0) + (tailLength > 0 ? 1 : 0);
+        int replacedCount = Math.max(last - first + 1, 0);
+        int followingIndex = first + replacedCount;
+        int followingCount = matchesCount - followingIndex;
+        ensureCapacity(matchesCount - replacedCount + partsCount);
+        if (partsCount != replacedCount) {
+            System.arraycopy(leftStarts, followingIndex, leftStarts, first + partsCount, followingCount);
+            System.arraycopy(rightStarts, followingIndex, rightStarts, first + partsCount, followingCount);
+            System.arraycopy(lengths, followingIndex, lengths, first + partsCount, followingCount);
+        }
+
+        starts = leftSide ? leftStarts : rightStarts;
+        long[] otherStarts = leftSide ? rightStarts : leftStarts;
+        int index = first;
+        if (headLength > 0) {
+            starts[index] = headStart;
+            otherStarts[index] = headOtherStart;
+            lengths[index++] = headLength;
+        }
+        if (tailLength > 0) {
+            starts[index] = position;
+            otherStarts[index] = tailOtherStart;
+            lengths[index++] = tailLength;
+        }
+        matchesCount = index + followingCount;
+        for (int i = index; i < matchesCount; i++) {
+            starts[i] -= length;
+        }
+
+        if (leftSide) {
+            leftSize -= length;
+        } else {
+            rightSize -= length;
+        }
+    }
+
+    private void splitMatch(int matchIndex, long offset) {
+        ensureCapacity(matchesCount + 1);
+        int moved = matchesCount - matchIndex - 1;
+        System.arraycopy(leftStarts, matchIndex + 1, leftStarts, matchIndex + 2, moved);
+        System.arraycopy(rightStarts, matchIndex + 1, rightStarts, matchIndex + 2, moved);
+        System.arraycopy(lengths, matchIndex + 1, lengths, matchIndex + 2, moved);
+        leftStarts[matchIndex + 1] = leftStarts[matchIndex] + offset;
+        rightStarts[matchIndex + 1] = rightStarts[matchIndex] + offset;
+        lengths[matchIndex + 1] = lengths[matchIndex] - offset;
+        lengths[matchIndex] = offset;
+        matchesCount++;
+    }
+
+    private void ensureCapacity(int count) {
+        if (count > lengths.length) {
+            int capacity = Math.max(count, lengths.length * 2);
+            leftStarts = Arrays.copyOf(leftStarts, capacity);
+            rightStarts = Arrays.copyOf(rightStarts, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+        }
+    }
+
+    public long getLeftSize() {
+        return leftSize;
+    }
+
+    public long getRightSize() {
+        return rightSize;
+    }
+
+    public int getMatchesCount() {
+        return matchesCount;
+    }
+
+    public long getLeftStart(int matchIndex) {
+        return leftStarts[matchIndex];
+    }
+
+    public long getRightStart(int matchIndex) {
+        return rightStarts[matchIndex];
+    }
+
+    public long getLength(int matchIndex) {
+        return lengths[matchIndex];
+    }
+
+    /**
+     * Returns index of the last matching block starting at or before given
+     * position.
+     *
+     * @param position position on given side
+     * @param leftSide true for left side, false for right side
+     * @return index of matching block or -1 if there is no such block
+     */
+    public int findMatch(long position, boolean leftSide) {
+        long[] starts = leftSide ? leftStarts : rightStarts;
+        int low = 0;
+        int high = matchesCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (starts[middle] <= position) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return high;
+    }
+
+    /**
+     * Maps position to the other side.
+     *
+     * @param position position on given side
+     * @param leftSide true for left side, false for right side
+     * @return matching position or start of corresponding gap on the other side
+     */
+    public long mapPosition(long position, boolean leftSide) {
+        int matchIndex = findMatch(position, leftSide);
+        if (matchIndex < 0) {
+            return 0;
+        }
+
+        long[] starts = leftSide ? leftStarts : rightStarts;
+        long[] otherStarts = leftSide ? rightStarts : leftStarts;
+        long offset = position - starts[matchIndex];
+        return otherStarts[matchIndex] + Math.min(offset, lengths[matchIndex]);
+    }
+
+    /**
+     * Returns start of gap containing or ending at given position.
+     *
+     * @param position position on given side
+     * @param leftSide true for left side, false for right side
+     * @return start of gap or position itself if inside matching block
+     */
+    public long getGapStart(long position, boolean leftSide) {
+        long[] starts = leftSide ? leftStarts : rightStarts;
+        int matchIndex = findMatch(position, leftSide);
+        if (matchIndex >= 0 && position > starts[matchIndex] && position < starts[matchIndex] + lengths[matchIndex]) {
+            return position;
+        }
+
+        int previousIndex = matchIndex >= 0 && position == starts[matchIndex] ? matchIndex - 1 : matchIndex;
+        return previousIndex >= 0 ? starts[previousIndex] + lengths[previousIndex] : 0;
+    }
+
+    /**
+     * Returns end of gap containing or starting at given position.
+     *
+     * @param position position on given side
+     * @param leftSide true for left side, false for right side
+     * @return end of gap or position itself if inside matching block
+     */
+    public long getGapEnd(long position, boolean leftSide) {
+        long[] starts = leftSide ? leftStarts : rightStarts;
+        int matchIndex = findMatch(position, leftSide);
+        if (matchIndex >= 0 && position < starts[matchIndex] + lengths[matchIndex]) {
+            return position;
+        }
+
+        return matchIndex + 1 < matchesCount ? starts[matchIndex + 1] : (leftSide ? leftSize : rightSize);
+    }
+
+    public enum DifferenceType {
+        CHANGED,
+        REMOVED,
+        INSERTED
+    }
+}
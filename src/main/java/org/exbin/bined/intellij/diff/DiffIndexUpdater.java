@@ -0,0 +1,195 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.intellij.diff;
+
+import org.exbin.auxiliary.binary_data.BinaryData;
+
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Incremental update of difference range indexes of both sides after edits.
+ * <p>
+ * Only chunks touched by edit are recomputed immediately, the rest of gaps
+ * enclosing edit is marked as stale and recomputed later chunk by chunk.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class DiffIndexUpdater {
+
+    private final BinaryDiffResult diffResult;
+    private final BinaryData leftData;
+    private final BinaryData rightData;
+    private DiffRangeIndex leftRangeIndex;
+    private DiffRangeIndex rightRangeIndex;
+    private final List<long[]> leftStaleWindows = new ArrayList<>();
+    private final List<long[]> rightStaleWindows = new ArrayList<>();
+
+    public DiffIndexUpdater(BinaryDiffResult diffResult, BinaryData leftData, BinaryData rightData, DiffRangeIndex leftRangeIndex, DiffRangeIndex rightRangeIndex) {
+        this.diffResult = diffResult;
+        this.leftData = leftData;
+        this.rightData = rightData;
+        this.leftRangeIndex = leftRangeIndex;
+        this.rightRangeIndex = rightRangeIndex;
+    }
+
+    @Nonnull
+    public BinaryDiffResult getDiffResult() {
+        return diffResult;
+    }
+
+    @Nonnull
+    public DiffRangeIndex getLeftRangeIndex() {
+        return leftRangeIndex;
+    }
+
+    @Nonnull
+    public DiffRangeIndex getRightRangeIndex() {
+        return rightRangeIndex;
+    }
+
+    /**
+     * Adjusts diff result and indexes for modified range of data.
+     *
+     * @param leftSide true for left side, false for right side
+     * @param position position of modification
+     * @param oldLength length of modified range before modification
+     * @param newLength length of modified range after modification
+     */
+    public void dataModified(boolean leftSide, long position, long oldLength, long newLength) {
+        long lengthDifference = newLength - oldLength;
+        if (lengthDifference > 0) {
+            diffResult.applyInsert(leftSide, position + oldLength, lengthDifference);
+        } else if (lengthDifference < 0) {
+            diffResult.applyRemove(leftSide, position + newLength, -lengthDifference);
+        }
+        shiftStaleWindows(leftSide ? leftStaleWindows : rightStaleWindows, position, oldLength, newLength);
+
+        // Aligned range of the other side
+        long otherPosition = mapAlignedPosition(position, leftSide);
+        long otherEnd = Math.max(otherPosition, mapAlignedPosition(position + newLength, leftSide));
+        DiffRangeIndex sideRangeIndex = getRangeIndex(leftSide).update(diffResult, leftData, rightData, leftSide, position, position + oldLength, position + newLength);
+        DiffRangeIndex otherRangeIndex = getRangeIndex(!leftSide).update(diffResult, leftData, rightData, !leftSide, otherPosition, otherEnd, otherEnd);
+        setRangeIndex(leftSide, sideRangeIndex);
+        setRangeIndex(!leftSide, otherRangeIndex);
+
+        // Classification of the whole gaps can change
+        long windowStart = diffResult.getGapStart(position, leftSide);
+        long windowEnd = diffResult.getGapEnd(position + newLength, leftSide);
+        long otherWindowStart = diffResult.getGapStart(diffResult.mapPosition(windowStart, leftSide), !leftSide);
+        long otherWindowEnd = diffResult.getGapEnd(diffResult.mapPosition(windowEnd, leftSide), !leftSide);
+        addStaleWindow(leftSide ? leftStaleWindows : rightStaleWindows, windowStart, windowEnd, position, position + newLength);
+        addStaleWindow(leftSide ? rightStaleWindows : leftStaleWindows, otherWindowStart, otherWindowEnd, otherPosition, otherEnd);
+    }
+
+    /**
+     * Returns true if some ranges were not recomputed after edit yet.
+     *
+     * @return true if stale ranges exist
+     */
+    public boolean hasStaleRanges() {
+        return !leftStaleWindows.isEmpty() || !rightStaleWindows.isEmpty();
+    }
+
+    /**
+     * Recomputes single chunk of stale ranges.
+     */
+    public void refreshStaleChunk() {
+        boolean leftSide = !leftStaleWindows.isEmpty();
+        List<long[]> staleWindows = leftSide ? leftStaleWindows : rightStaleWindows;
+        if (staleWindows.isEmpty()) {
+            return;
+        }
+
+        long[] window = staleWindows.get(0);
+        long dataSize = leftSide ? diffResult.getLeftSize() : diffResult.getRightSize();
+        long chunkEnd = Math.min((window[0] / DiffRangeIndex.CHUNK_SIZE + 1) * DiffRangeIndex.CHUNK_SIZE, dataSize);
+        if (window[0] < dataSize) {
+            setRangeIndex(leftSide, getRangeIndex(leftSide).update(diffResult, leftData, rightData, leftSide, window[0], chunkEnd, chunkEnd));
+        }
+        window[0] = chunkEnd;
+        if (window[0] >= Math.min(window[1], dataSize)) {
+            staleWindows.remove(0);
+        }
+    }
+
+    /**
+     * Maps position to the other side, positions inside gap are mapped by
+     * offset from start of the gap.
+     */
+    private long mapAlignedPosition(long position, boolean leftSide) {
+        long gapStart = diffResult.getGapStart(position, leftSide);
+        long otherPosition = diffResult.mapPosition(gapStart, leftSide) + position - gapStart;
+        return Math.min(otherPosition, leftSide ? diffResult.getRightSize() : diffResult.getLeftSize());
+    }
+
+    @Nonnull
+    private DiffRangeIndex getRangeIndex(boolean leftSide) {
+        return leftSide ? leftRangeIndex : rightRangeIndex;
+    }
+
+    private void setRangeIndex(boolean leftSide, DiffRangeIndex rangeIndex) {
+        if (leftSide) {
+            leftRangeIndex = rangeIndex;
+        } else {
+            rightRangeIndex = rangeIndex;
+        }
+    }
+
+    /**
+     * Adjusts stale windows of modified side, windows overlapping modification
+     * are extended to cover it.
+     */
+    private static void shiftStaleWindows(List<long[]> staleWindows, long position, long oldLength, long newLength) {
+        long lengthDifference = newLength - oldLength;
+        for (long[] window : staleWindows) {
+            if (window[0] >= position + oldLength) {
+                window[0] += lengthDifference;
+                window[1] += lengthDifference;
+            } else if (window[1] > position) {
+                window[0] = Math.min(window[0], position);
+                window[1] = window[1] >= position + oldLength ? window[1] + lengthDifference : position + newLength;
+            }
+        }
+    }
+
+    /**
+     * Adds stale window unless it is covered by already recomputed chunks,
+     * overlapping windows are merged.
+     */
+    private static void addStaleWindow(List<long[]> staleWindows, long start, long end, long updatedStart, long updatedEnd) {
+        long chunkStart = (updatedStart / DiffRangeIndex.CHUNK_SIZE) * DiffRangeIndex.CHUNK_SIZE;
+        long chunkEnd = Math.max((updatedEnd + DiffRangeIndex.CHUNK_SIZE - 1) / DiffRangeIndex.CHUNK_SIZE * DiffRangeIndex.CHUNK_SIZE, chunkStart + DiffRangeIndex.CHUNK_SIZE);
+        if (start >= chunkStart && end <= chunkEnd) {
+            return;
+        }
+
+        int index = 0;
+        while (index < staleWindows.size() && staleWindows.get(index)[1] < start) {
+            index++;
+        }
+        long[] window = new long[]{start, end};
+        while (index < staleWindows.size() && staleWindows.get(index)[0] <= window[1]) {
+            long[] overlapping = staleWindows.remove(index);
+            window[0] = Math.min(window[0], overlapping[0]);
+            window[1] = Math.max(window[1], overlapping[1]);
+        }
+        staleWindows.add(index, window);
+    }
+}
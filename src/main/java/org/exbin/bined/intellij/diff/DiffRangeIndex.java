@@ -0,0 +1,352 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.intellij.diff;
+
+import com.intellij.openapi.progress.ProgressIndicator;
+import org.exbin.auxiliary.binary_data.BinaryData;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+/**
+ * Index of difference ranges of one side of binary diff.
+ * <p>
+ * Ranges are sorted and non-overlapping and stored in primitive arrays. Index
+ * is built in parallel by chunks, data of matching blocks are compared
+ * with aligned data of the other side so that later edits are reflected.
+ * Index is immutable, updates create new instance.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class DiffRangeIndex {
+
+    public static final long CHUNK_SIZE = 4 * 1024 * 1024;
+
+    private static final int COMPARE_BUFFER_SIZE = 65536;
+    private static final BinaryDiffResult.DifferenceType[] DIFFERENCE_TYPES = BinaryDiffResult.DifferenceType.values();
+
+    private final long[] starts;
+    private final long[] ends;
+    private final byte[] types;
+    private final int rangesCount;
+
+    private DiffRangeIndex(RangeList ranges) {
+        starts = ranges.starts;
+        ends = ranges.ends;
+        types = ranges.types;
+        rangesCount = ranges.count;
+    }
+
+    /**
+     * Builds index for given side.
+     *
+     * @param diffResult diff result
+     * @param leftData left side data
+     * @param rightData right side data
+     * @param leftSide true for left side, false for right side
+     * @param indicator progress indicator used for cancellation or null
+     * @return index
+     */
+    @Nonnull
+    public static DiffRangeIndex build(BinaryDiffResult diffResult, BinaryData leftData, BinaryData rightData, boolean leftSide, @Nullable ProgressIndicator indicator) {
+        long dataSize = leftSide ? diffResult.getLeftSize() : diffResult.getRightSize();
+        return new DiffRangeIndex(computeRanges(diffResult, leftData, rightData, leftSide, 0, dataSize, true, indicator));
+    }
+
+    /**
+     * Creates index with ranges of modified window recomputed.
+     * <p>
+     * Window is extended to chunk boundaries, ranges after window are shifted
+     * by difference of window size. Chunks are computed in calling thread.
+     *
+     * @param diffResult diff result already adjusted for modification
+     * @param leftData left side data
+     * @param rightData right side data
+     * @param leftSide true for left side, false for right side
+     * @param windowStart start of modified window
+     * @param oldWindowEnd end of modified window before modification
+     * @param newWindowEnd end of modified window after modification
+     * @return updated index
+     */
+    @Nonnull
+    public DiffRangeIndex update(BinaryDiffResult diffResult, BinaryData leftData, BinaryData rightData, boolean leftSide, long windowStart, long oldWindowEnd, long newWindowEnd) {
+        long dataSize = leftSide ? diffResult.getLeftSize() : diffResult.getRightSize();
+        long shift = newWindowEnd - oldWindowEnd;
+        long updateStart = (windowStart / CHUNK_SIZE) * CHUNK_SIZE;
+        long updateEnd = Math.min(Math.max((newWindowEnd + CHUNK_SIZE - 1) / CHUNK_SIZE * CHUNK_SIZE, updateStart + CHUNK_SIZE), dataSize);
+        long oldUpdateEnd = updateEnd - shift;
+
+        RangeList ranges = new RangeList();
+        for (int i = 0; i < rangesCount && starts[i] < updateStart; i++) {
+            ranges.add(starts[i], Math.min(ends[i], updateStart), types[i]);
+        }
+        ranges.addAll(computeRanges(diffResult, leftData, rightData, leftSide, updateStart, updateEnd, false, null));
+        for (int i = findRange(oldUpdateEnd); i < rangesCount; i++) {
+            ranges.add(Math.max(starts[i], oldUpdateEnd) + shift, ends[i] + shift, types[i]);
+        }
+        return new DiffRangeIndex(ranges);
+    }
+
+    public int getRangesCount() {
+        return rangesCount;
+    }
+
+    public long getStart(int rangeIndex) {
+        return starts[rangeIndex];
+    }
+
+    public long getEnd(int rangeIndex) {
+        return ends[rangeIndex];
+    }
+
+    @Nonnull
+    public BinaryDiffResult.DifferenceType getType(int rangeIndex) {
+        return DIFFERENCE_TYPES[types[rangeIndex]];
+    }
+
+    /**
+     * Returns index of the first range ending after given position.
+     * <p>
+     * Ranges intersecting visible area start at returned index.
+     *
+     * @param position position
+     * @return range index or ranges count if there is no such range
+     */
+    public int findRange(long position) {
+        int low = 0;
+        int high = rangesCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (ends[middle] <= position) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns type of difference at given position.
+     *
+     * @param position position
+     * @return difference type or null if data at position match
+     */
+    @Nullable
+    public BinaryDiffResult.DifferenceType getDifferenceType(long position) {
+        int rangeIndex = findRange(position);
+        return rangeIndex < rangesCount && starts[rangeIndex] <= position ? getType(rangeIndex) : null;
+    }
+
+    /**
+     * Returns start of the first difference after given position.
+     *
+     * @param position position
+     * @return start of difference or -1 if there is no next difference
+     */
+    public long getNextDifference(long position) {
+        int rangeIndex = findStart(position + 1);
+        return rangeIndex < rangesCount ? starts[rangeIndex] : -1;
+    }
+
+    /**
+     * Returns start of the last difference before given position.
+     *
+     * @param position position
+     * @return start of difference or -1 if there is no previous difference
+     */
+    public long getPreviousDifference(long position) {
+        int rangeIndex = findStart(position) - 1;
+        return rangeIndex >= 0 ? starts[rangeIndex] : -1;
+    }
+
+    /**
+     * Returns index of the first range starting at or after given position.
+     */
+    private int findStart(long position) {
+        int low = 0;
+        int high = rangesCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (starts[middle] < position) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    @Nonnull
+    private static RangeList computeRanges(BinaryDiffResult diffResult, BinaryData leftData, BinaryData rightData, boolean leftSide, long start, long end, boolean parallel, @Nullable ProgressIndicator indicator) {
+        long chunksCount = (end - start + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        LongStream chunks = LongStream.range(0, chunksCount);
+        List<RangeList> chunkRanges = (parallel ? chunks.parallel() : chunks).mapToObj(chunk -> {
+            if (indicator != null) {
+                indicator.checkCanceled();
+            }
+            long chunkStart = start + chunk * CHUNK_SIZE;
+            ChunkComputation computation = new ChunkComputation(diffResult, leftSide ? leftData : rightData, leftSide ? rightData : leftData, leftSide);
+            computation.compute(chunkStart, Math.min(chunkStart + CHUNK_SIZE, end));
+            return computation.ranges;
+        }).collect(Collectors.toList());
+
+        RangeList ranges = new RangeList();
+        for (RangeList chunk : chunkRanges) {
+            ranges.addAll(chunk);
+        }
+        return ranges;
+    }
+
+    /**
+     * Computation of ranges for single chunk of positions.
+     */
+    @ParametersAreNonnullByDefault
+    private static class ChunkComputation {
+
+        private final BinaryDiffResult diffResult;
+        private final BinaryData data;
+        private final BinaryData otherData;
+        private final boolean leftSide;
+        private final RangeList ranges = new RangeList();
+        private byte[] buffer;
+        private byte[] otherBuffer;
+
+        public ChunkComputation(BinaryDiffResult diffResult, BinaryData data, BinaryData otherData, boolean leftSide) {
+            this.diffResult = diffResult;
+            this.data = data;
+            this.otherData = otherData;
+            this.leftSide = leftSide;
+        }
+
+        public void compute(long start, long end) {
+            long position = start;
+            int matchIndex = diffResult.findMatch(position, leftSide);
+            while (position < end) {
+                if (matchIndex >= 0 && position < getMatchStart(matchIndex) + diffResult.getLength(matchIndex)) {
+                    long matchStart = getMatchStart(matchIndex);
+                    long blockEnd = Math.min(end, matchStart + diffResult.getLength(matchIndex));
+                    compare(position, getOtherMatchStart(matchIndex) + position - matchStart, blockEnd - position);
+                    position = blockEnd;
+                    continue;
+                }
+
+                long gapStart = matchIndex >= 0 ? getMatchStart(matchIndex) + diffResult.getLength(matchIndex) : 0;
+                long gapEnd = matchIndex + 1 < diffResult.getMatchesCount() ? getMatchStart(matchIndex + 1) : getSideSize(leftSide);
+                long otherGapStart = matchIndex >= 0 ? getOtherMatchStart(matchIndex) + diffResult.getLength(matchIndex) : 0;
+                long otherGapEnd = matchIndex + 1 < diffResult.getMatchesCount() ? getOtherMatchStart(matchIndex + 1) : getSideSize(!leftSide);
+                long rangeEnd = Math.min(end, gapEnd);
+                if (otherGapStart == otherGapEnd) {
+                    ranges.add(position, rangeEnd, (byte) (leftSide ? BinaryDiffResult.DifferenceType.REMOVED : BinaryDiffResult.DifferenceType.INSERTED).ordinal());
+                } else if (gapEnd - gapStart == otherGapEnd - otherGapStart) {
+                    // Same sized replacement is compared position by position
+                    compare(position, otherGapStart + position - gapStart, rangeEnd - position);
+                } else {
+                    ranges.add(position, rangeEnd, (byte) BinaryDiffResult.DifferenceType.CHANGED.ordinal());
+                }
+                position = rangeEnd;
+                matchIndex++;
+            }
+        }
+
+        private void compare(long position, long otherPosition, long length) {
+            if (buffer == null) {
+                buffer = new byte[COMPARE_BUFFER_SIZE];
+                otherBuffer = new byte[COMPARE_BUFFER_SIZE];
+            }
+
+            byte changedType = (byte) BinaryDiffResult.DifferenceType.CHANGED.ordinal();
+            long offset = 0;
+            while (offset < length) {
+                int blockLength = (int) Math.min(length - offset, COMPARE_BUFFER_SIZE);
+                data.copyToArray(position + offset, buffer, 0, blockLength);
+                otherData.copyToArray(otherPosition + offset, otherBuffer, 0, blockLength);
+                int mismatch = Arrays.mismatch(buffer, 0, blockLength, otherBuffer, 0, blockLength);
+                while (mismatch >= 0) {
+                    int runEnd = mismatch + 1;
+                    while (runEnd < blockLength && buffer[runEnd] != otherBuffer[runEnd]) {
+                        runEnd++;
+                    }
+                    ranges.add(position + offset + mismatch, position + offset + runEnd, changedType);
+                    if (runEnd == blockLength) {
+                        break;
+                    }
+                    int nextMismatch = Arrays.mismatch(buffer, runEnd, blockLength, otherBuffer, runEnd, blockLength);
+                    mismatch = nextMismatch < 0 ? -1 : runEnd + nextMismatch;
+                }
+                offset += blockLength;
+            }
+        }
+
+        private long getSideSize(boolean left) {
+            return left ? diffResult.getLeftSize() : diffResult.getRightSize();
+        }
+
+        private long getMatchStart(int matchIndex) {
+            return leftSide ? diffResult.getLeftStart(matchIndex) : diffResult.getRightStart(matchIndex);
+        }
+
+        private long getOtherMatchStart(int matchIndex) {
+            return leftSide ? diffResult.getRightStart(matchIndex) : diffResult.getLeftStart(matchIndex);
+        }
+    }
+
+    /**
+     * Growable list of ranges, adjacent ranges of the same type are merged.
+     */
+    @ParametersAreNonnullByDefault
+    private static class RangeList {
+
+        private long[] starts = new long[16];
+        private long[] ends = new long[16];
+        private byte[] types = new byte[16];
+        private int count = 0;
+
+        public void add(long start, long end, byte type) {
+            if (start >= end) {
+                return;
+            }
+
+            if (count > 0 && ends[count - 1] == start && types[count - 1] == type) {
+                ends[count - 1] = end;
+                return;
+            }
+
+            if (count == starts.length) {
+                int capacity = count * 2;
+                starts = Arrays.copyOf(starts, capacity);
+                ends = Arrays.copyOf(ends, capacity);
+                types = Arrays.copyOf(types, capacity);
+            }
+            starts[count] = start;
+            ends[count] = end;
+            types[count] = type;
+            count++;
+        }
+
+        public void addAll(RangeList ranges) {
+            for (int i = 0; i < ranges.count; i++) {
+                add(ranges.starts[i], ranges.ends[i], ranges.types[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,244 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.intellij.diff;
+
+import org.exbin.auxiliary.binary_data.BinaryData;
+import org.exbin.auxiliary.binary_data.EditableBinaryData;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Editable data of diff side reporting modified ranges.
+ * <p>
+ * Modifications are reported as replacement of old range by new range at the
+ * same position, so that diff can be updated incrementally.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class DiffSideBinaryData implements EditableBinaryData {
+
+    private final EditableBinaryData data;
+    private ModificationListener modificationListener = null;
+
+    public DiffSideBinaryData(EditableBinaryData data) {
+        this.data = data;
+    }
+
+    public void setModificationListener(@Nullable ModificationListener modificationListener) {
+        this.modificationListener = modificationListener;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return data.isEmpty();
+    }
+
+    @Override
+    public long getDataSize() {
+        return data.getDataSize();
+    }
+
+    @Override
+    public byte getByte(long position) {
+        return data.getByte(position);
+    }
+
+    @Nonnull
+    @Override
+    public BinaryData copy() {
+        return data.copy();
+    }
+
+    @Nonnull
+    @Override
+    public BinaryData copy(long startFrom, long length) {
+        return data.copy(startFrom, length);
+    }
+
+    @Override
+    public void copyToArray(long startFrom, byte[] target, int offset, int length) {
+        data.copyToArray(startFrom, target, offset, length);
+    }
+
+    @Override
+    public void saveToStream(OutputStream outputStream) throws IOException {
+        data.saveToStream(outputStream);
+    }
+
+    @Nonnull
+    @Override
+    public InputStream getDataInputStream() {
+        return data.getDataInputStream();
+    }
+
+    @Override
+    public void setByte(long position, byte value) {
+        data.setByte(position, value);
+        notifyModified(position, 1, 1);
+    }
+
+    @Override
+    public void replace(long targetPosition, BinaryData replacingData) {
+        replace(targetPosition, replacingData, 0, replacingData.getDataSize());
+    }
+
+    @Override
+    public void replace(long targetPosition, BinaryData replacingData, long startFrom, long length) {
+        long dataSize = data.getDataSize();
+        data.replace(targetPosition, replacingData, startFrom, length);
+        notifyModified(targetPosition, length - (data.getDataSize() - dataSize), length);
+    }
+
+    @Override
+    public void replace(long targetPosition, byte[] replacingData) {
+        replace(targetPosition, replacingData, 0, replacingData.length);
+    }
+
+    @Override
+    public void replace(long targetPosition, byte[] replacingData, int replacingDataOffset, int length) {
+        long dataSize = data.getDataSize();
+        data.replace(targetPosition, replacingData, replacingDataOffset, length);
+        notifyModified(targetPosition, length - (data.getDataSize() - dataSize), length);
+    }
+
+    @Override
+    public void fillData(long startFrom, long length) {
+        fillData(startFrom, length, (byte) 0);
+    }
+
+    @Override
+    public void fillData(long startFrom, long length, byte fill) {
+        long dataSize = data.getDataSize();
+        data.fillData(startFrom, length, fill);
+        notifyModified(startFrom, length - (data.getDataSize() - dataSize), length);
+    }
+
+    @Override
+    public void setDataSize(long size) {
+        long dataSize = data.getDataSize();
+        data.setDataSize(size);
+        long position = Math.min(dataSize, size);
+        notifyModified(position, dataSize - position, size - position);
+    }
+
+    @Override
+    public void insertUninitialized(long startFrom, long length) {
+        data.insertUninitialized(startFrom, length);
+        notifyModified(startFrom, 0, length);
+    }
+
+    @Override
+    public void insert(long startFrom, long length) {
+        data.insert(startFrom, length);
+        notifyModified(startFrom, 0, length);
+    }
+
+    @Override
+    public void insert(long startFrom, byte[] insertedData) {
+        insert(startFrom, insertedData, 0, insertedData.length);
+    }
+
+    @Override
+    public void insert(long startFrom, byte[] insertedData, int insertedDataOffset, int insertedDataLength) {
+        data.insert(startFrom, insertedData, insertedDataOffset, insertedDataLength);
+        notifyModified(startFrom, 0, insertedDataLength);
+    }
+
+    @Override
+    public void insert(long startFrom, BinaryData insertedData) {
+        insert(startFrom, insertedData, 0, insertedData.getDataSize());
+    }
+
+    @Override
+    public void insert(long startFrom, BinaryData insertedData, long insertedDataOffset, long insertedDataLength) {
+        data.insert(startFrom, insertedData, insertedDataOffset, insertedDataLength);
+        notifyModified(startFrom, 0, insertedDataLength);
+    }
+
+    @Override
+    public long insert(long startFrom, InputStream inputStream, long maximumDataSize) throws IOException {
+        long length = data.insert(startFrom, inputStream, maximumDataSize);
+        notifyModified(startFrom, 0, length);
+        return length;
+    }
+
+    @Override
+    public void remove(long startFrom, long length) {
+        data.remove(startFrom, length);
+        notifyModified(startFrom, length, 0);
+    }
+
+    @Override
+    public void clear() {
+        long dataSize = data.getDataSize();
+        data.clear();
+        notifyModified(0, dataSize, 0);
+    }
+
+    @Override
+    public void loadFromStream(InputStream inputStream) throws IOException {
+        long dataSize = data.getDataSize();
+        data.loadFromStream(inputStream);
+        notifyModified(0, dataSize, data.getDataSize());
+    }
+
+    @Nonnull
+    @Override
+    public OutputStream getDataOutputStream() {
+        long dataSize = data.getDataSize();
+        return new FilterOutputStream(data.getDataOutputStream()) {
+            @Override
+            public void close() throws IOException {
+                super.close();
+                notifyModified(0, dataSize, data.getDataSize());
+            }
+        };
+    }
+
+    @Override
+    public void dispose() {
+        data.dispose();
+    }
+
+    private void notifyModified(long position, long oldLength, long newLength) {
+        if (modificationListener != null && (oldLength > 0 || newLength > 0)) {
+            modificationListener.dataModified(position, oldLength, newLength);
+        }
+    }
+
+    /**
+     * Listener for data modifications.
+     */
+    public interface ModificationListener {
+
+        /**
+         * Reports that range of old length at given position was replaced by
+         * range of new length.
+         *
+         * @param position position of modification
+         * @param oldLength length of range before modification
+         * @param newLength length of range after modification
+         */
+        void dataModified(long position, long oldLength, long newLength);
+    }
+}
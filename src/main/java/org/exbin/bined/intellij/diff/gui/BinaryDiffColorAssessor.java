@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.intellij.diff.gui;
+
+import com.intellij.ui.JBColor;
+import org.exbin.bined.CodeAreaSection;
+import org.exbin.bined.intellij.diff.BinaryDiffResult;
+import org.exbin.bined.intellij.diff.DiffRangeIndex;
+import org.exbin.bined.swing.CodeAreaColorAssessor;
+import org.exbin.bined.swing.CodeAreaPaintState;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.awt.Color;
+import java.util.Optional;
+
+/**
+ * Color assessor highlighting differences of aligned binary diff.
+ * <p>
+ * Until diff result is available, painting is left to the original color
+ * assessor of the diff panel, which compares data position by position.
+ * Difference ranges are looked up from the first painted position and then
+ * followed sequentially.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class BinaryDiffColorAssessor implements CodeAreaColorAssessor {
+
+    private static final Color CHANGED_BACKGROUND_COLOR = new JBColor(new Color(0xC9DDFF), new Color(0x2B3E5E));
+    private static final Color REMOVED_BACKGROUND_COLOR = new JBColor(new Color(0xFFCFCF), new Color(0x5E2B2B));
+    private static final Color INSERTED_BACKGROUND_COLOR = new JBColor(new Color(0xC8F0C8), new Color(0x2B5E2F));
+
+    private final CodeAreaColorAssessor diffColorAssessor;
+    private final CodeAreaColorAssessor parentColorAssessor;
+    private DiffRangeIndex rangeIndex;
+    private int rangeCursor = -1;
+
+    public BinaryDiffColorAssessor(CodeAreaColorAssessor diffColorAssessor, @Nullable CodeAreaColorAssessor parentColorAssessor) {
+        this.diffColorAssessor = diffColorAssessor;
+        this.parentColorAssessor = parentColorAssessor;
+    }
+
+    public void setRangeIndex(@Nullable DiffRangeIndex rangeIndex) {
+        this.rangeIndex = rangeIndex;
+        rangeCursor = -1;
+    }
+
+    @Override
+    public void startPaint(CodeAreaPaintState codeAreaPaintState) {
+        rangeCursor = -1;
+        diffColorAssessor.startPaint(codeAreaPaintState);
+    }
+
+    @Nullable
+    @Override
+    public Color getPositionBackgroundColor(long rowDataPosition, int byteOnRow, int charOnRow, CodeAreaSection section, boolean inSelection) {
+        if (rangeIndex == null) {
+            return diffColorAssessor.getPositionBackgroundColor(rowDataPosition, byteOnRow, charOnRow, section, inSelection);
+        }
+
+        if (!inSelection) {
+            BinaryDiffResult.DifferenceType differenceType = getDifferenceType(rowDataPosition + byteOnRow);
+            if (differenceType != null) {
+                switch (differenceType) {
+                    case CHANGED:
+                        return CHANGED_BACKGROUND_COLOR;
+                    case REMOVED:
+                        return REMOVED_BACKGROUND_COLOR;
+                    case INSERTED:
+                        return INSERTED_BACKGROUND_COLOR;
+                }
+            }
+        }
+
+        return parentColorAssessor != null ? parentColorAssessor.getPositionBackgroundColor(rowDataPosition, byteOnRow, charOnRow, section, inSelection) : null;
+    }
+
+    @Nullable
+    @Override
+    public Color getPositionTextColor(long rowDataPosition, int byteOnRow, int charOnRow, CodeAreaSection section, boolean inSelection) {
+        if (rangeIndex == null) {
+            return diffColorAssessor.getPositionTextColor(rowDataPosition, byteOnRow, charOnRow, section, inSelection);
+        }
+
+        return parentColorAssessor != null ? parentColorAssessor.getPositionTextColor(rowDataPosition, byteOnRow, charOnRow, section, inSelection) : null;
+    }
+
+    @Nullable
+    private BinaryDiffResult.DifferenceType getDifferenceType(long position) {
+        int rangesCount = rangeIndex.getRangesCount();
+        if (rangeCursor < 0 || (rangeCursor > 0 && rangeIndex.getEnd(rangeCursor - 1) > position)) {
+            rangeCursor = rangeIndex.findRange(position);
+        } else if (rangeCursor < rangesCount && rangeIndex.getEnd(rangeCursor) <= position) {
+            rangeCursor++;
+            if (rangeCursor < rangesCount && rangeIndex.getEnd(rangeCursor) <= position) {
+                rangeCursor = rangeIndex.findRange(position);
+            }
+        }
+
+        return rangeCursor < rangesCount && rangeIndex.getStart(rangeCursor) <= position ? rangeIndex.getType(rangeCursor) : null;
+    }
+
+    @Nonnull
+    @Override
+    public Optional<CodeAreaColorAssessor> getParentColorAssessor() {
+        return Optional.of(diffColorAssessor);
+    }
+}
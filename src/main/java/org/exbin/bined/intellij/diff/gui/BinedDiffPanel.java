@@ -19,15 +19,19 @@ import com.intellij.diff.contents.DiffContent;
 import com.intellij.diff.contents.DocumentContent;
 import com.intellij.diff.contents.FileContent;
 import com.intellij.diff.requests.ContentDiffRequest;
+import com.intellij.diff.tools.util.PrevNextDifferenceIterable;
 import com.intellij.ide.util.PropertiesComponent;
 import com.intellij.openapi.actionSystem.ActionUpdateThread;
 import com.intellij.openapi.actionSystem.AnAction;
 import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ModalityState;
 import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.util.Computable;
 import com.intellij.openapi.util.IconLoader;
 import com.intellij.ui.components.JBPanel;
 import org.exbin.auxiliary.binary_data.BinaryData;
-import org.exbin.auxiliary.binary_data.ByteArrayData;
+import org.exbin.auxiliary.binary_data.EditableBinaryData;
 import org.exbin.auxiliary.binary_data.paged.PagedData;
 import org.exbin.bined.CodeAreaCaretPosition;
 import org.exbin.bined.CodeAreaUtils;
@@ -38,12 +42,17 @@ import org.exbin.bined.highlight.swing.NonprintablesCodeAreaAssessor;
 import org.exbin.bined.section.layout.SectionCodeAreaLayoutProfile;
 import org.exbin.bined.intellij.BinEdIntelliJPlugin;
 import org.exbin.bined.intellij.BinEdPluginStartupActivity;
+import org.exbin.bined.intellij.diff.BinaryDiffResult;
+import org.exbin.bined.intellij.diff.DiffIndexUpdater;
+import org.exbin.bined.intellij.diff.DiffRangeIndex;
+import org.exbin.bined.intellij.diff.DiffSideBinaryData;
 import org.exbin.bined.intellij.gui.BinEdToolbarPanel;
 import org.exbin.bined.intellij.options.BinEdApplyOptions;
 import org.exbin.bined.intellij.options.IntegrationOptions;
 import org.exbin.bined.intellij.options.gui.BinEdOptionsPanelBorder;
 import org.exbin.bined.intellij.preferences.IntelliJPreferencesWrapper;
 import org.exbin.bined.operation.swing.CodeAreaOperationCommandHandler;
+import org.exbin.bined.swing.CodeAreaColorAssessor;
 import org.exbin.bined.swing.CodeAreaSwingUtils;
 import org.exbin.bined.swing.basic.color.CodeAreaColorsProfile;
 import org.exbin.bined.swing.capability.ColorAssessorPainterCapable;
@@ -112,6 +121,17 @@ public class BinedDiffPanel extends JBPanel {
 
     private final BinEdToolbarPanel toolbarPanel;
     private final BinaryStatusPanel statusPanel;
+    private final BinaryDiffColorAssessor leftDiffColorAssessor;
+    private final BinaryDiffColorAssessor rightDiffColorAssessor;
+    private DiffSideBinaryData leftData;
+    private DiffSideBinaryData rightData;
+    private BinaryDiffResult diffResult;
+    private DiffRangeIndex leftRangeIndex;
+    private DiffRangeIndex rightRangeIndex;
+    private DiffIndexUpdater indexUpdater;
+    private boolean staleRangesRefreshScheduled = false;
+    private long modificationCount = 0;
+    private boolean leftSideActive = true;
     private EncodingsHandler encodingsHandler;
     private BinaryStatusApi binaryStatus;
     private TextEncodingStatusApi encodingStatus;
@@ -128,6 +148,8 @@ public class BinedDiffPanel extends JBPanel {
         defaultLayoutProfile = leftCodeArea.getLayoutProfile();
         defaultThemeProfile = leftCodeArea.getThemeProfile();
         defaultColorProfile = leftCodeArea.getColorsProfile();
+        leftDiffColorAssessor = installDiffColorAssessor(leftCodeArea);
+        rightDiffColorAssessor = installDiffColorAssessor(rightCodeArea);
         toolbarPanel = new BinEdToolbarPanel();
         toolbarPanel.setTargetComponent(diffPanel);
         toolbarPanel.setCodeAreaControl(new BinEdToolbarPanel.Control() {
@@ -219,14 +241,27 @@ public class BinedDiffPanel extends JBPanel {
         repaint();
     }
 
+    @Nonnull
+    private static BinaryDiffColorAssessor installDiffColorAssessor(SectCodeArea codeArea) {
+        ColorAssessorPainterCapable painter = (ColorAssessorPainterCapable) codeArea.getPainter();
+        CodeAreaColorAssessor diffColorAssessor = painter.getColorAssessor();
+        // Aligned diff replaces position by position highlighting of the diff panel
+        NonprintablesCodeAreaAssessor nonprintablesColorAssessor = CodeAreaSwingUtils.findColorAssessor(painter, NonprintablesCodeAreaAssessor.class);
+        BinaryDiffColorAssessor colorAssessor = new BinaryDiffColorAssessor(diffColorAssessor, nonprintablesColorAssessor != null ? nonprintablesColorAssessor : diffColorAssessor);
+        painter.setColorAssessor(colorAssessor);
+        return colorAssessor;
+    }
+
     public void setDiffContent(ContentDiffRequest request) {
         List<DiffContent> contents = request.getContents();
         if (!contents.isEmpty()) {
-            BinaryData leftData = getDiffBinaryData(request, 0);
-            if (leftData == null) {
+            byte[] leftContent = getDiffContentData(request, 0);
+            if (leftContent == null) {
                 return;
             }
-            diffPanel.setLeftContentData(leftData);
+            byte[] rightContent = getDiffContentData(request, 1);
+            setContentData(createPagedData(leftContent), createPagedData(rightContent != null ? rightContent : new byte[0]));
+
             SectCodeArea leftCodeArea = diffPanel.getLeftCodeArea();
             leftCodeArea.setComponentPopupMenu(new JPopupMenu() {
                 @Override
@@ -255,10 +290,6 @@ public class BinedDiffPanel extends JBPanel {
 
 
             });
-            BinaryData rightData = getDiffBinaryData(request, 1);
-            if (rightData != null) {
-                diffPanel.setRightContentData(rightData);
-            }
             SectCodeArea rightCodeArea = diffPanel.getRightCodeArea();
             rightCodeArea.setComponentPopupMenu(new JPopupMenu() {
                 @Override
@@ -288,24 +319,191 @@ public class BinedDiffPanel extends JBPanel {
         }
     }
 
+    /**
+     * Creates editable data for diff side, paged data are used so that edits
+     * do not copy whole content.
+     */
+    @Nonnull
+    private static EditableBinaryData createPagedData(byte[] content) {
+        PagedData data = new PagedData();
+        data.insert(0, content);
+        return data;
+    }
+
+    private void setContentData(EditableBinaryData leftContentData, EditableBinaryData rightContentData) {
+        leftData = new DiffSideBinaryData(leftContentData);
+        rightData = new DiffSideBinaryData(rightContentData);
+        leftData.setModificationListener((position, oldLength, newLength) -> dataModified(true, position, oldLength, newLength));
+        rightData.setModificationListener((position, oldLength, newLength) -> dataModified(false, position, oldLength, newLength));
+        diffResult = null;
+        indexUpdater = null;
+        modificationCount++;
+        diffPanel.setLeftContentData(leftData);
+        diffPanel.setRightContentData(rightData);
+        setRangeIndexes(null, null);
+    }
+
+    /**
+     * Returns currently shown data of given side.
+     * <p>
+     * Data are modified by user and have to be accessed on event dispatch
+     * thread only.
+     *
+     * @param leftSide true for left side
+     * @return data or null if no data are shown
+     */
+    @Nullable
+    public BinaryData getContentData(boolean leftSide) {
+        return leftSide ? leftData : rightData;
+    }
+
+    /**
+     * Returns count of modifications of shown data, used to detect diff
+     * results computed for outdated data.
+     *
+     * @return modification count
+     */
+    public long getModificationCount() {
+        return modificationCount;
+    }
+
+    /**
+     * Sets result of diff of currently shown data.
+     *
+     * @param diffResult diff result
+     * @param leftRangeIndex index of differences of left side
+     * @param rightRangeIndex index of differences of right side
+     */
+    public void setDiffData(BinaryDiffResult diffResult, DiffRangeIndex leftRangeIndex, DiffRangeIndex rightRangeIndex) {
+        this.diffResult = diffResult;
+        indexUpdater = new DiffIndexUpdater(diffResult, leftData, rightData, leftRangeIndex, rightRangeIndex);
+        setRangeIndexes(leftRangeIndex, rightRangeIndex);
+    }
+
+    private void setRangeIndexes(@Nullable DiffRangeIndex leftRangeIndex, @Nullable DiffRangeIndex rightRangeIndex) {
+        this.leftRangeIndex = leftRangeIndex;
+        this.rightRangeIndex = rightRangeIndex;
+        leftDiffColorAssessor.setRangeIndex(leftRangeIndex);
+        rightDiffColorAssessor.setRangeIndex(rightRangeIndex);
+        diffPanel.repaint();
+    }
+
+    /**
+     * Updates alignment and difference indexes for modified range of data.
+     * <p>
+     * Only chunks touched by modification are recomputed immediately, the rest
+     * of enclosing gaps is recomputed by chunks in later events.
+     */
+    private void dataModified(boolean leftSide, long position, long oldLength, long newLength) {
+        modificationCount++;
+        if (indexUpdater == null) {
+            // Position based highlighting is used until diff is available
+            return;
+        }
+
+        indexUpdater.dataModified(leftSide, position, oldLength, newLength);
+        setRangeIndexes(indexUpdater.getLeftRangeIndex(), indexUpdater.getRightRangeIndex());
+        scheduleStaleRangesRefresh();
+    }
+
+    private void scheduleStaleRangesRefresh() {
+        if (staleRangesRefreshScheduled || indexUpdater == null || !indexUpdater.hasStaleRanges()) {
+            return;
+        }
+
+        staleRangesRefreshScheduled = true;
+        ApplicationManager.getApplication().invokeLater(() -> {
+            staleRangesRefreshScheduled = false;
+            if (indexUpdater == null) {
+                return;
+            }
+
+            indexUpdater.refreshStaleChunk();
+            setRangeIndexes(indexUpdater.getLeftRangeIndex(), indexUpdater.getRightRangeIndex());
+            scheduleStaleRangesRefresh();
+        }, ModalityState.any());
+    }
+
+    /**
+     * Returns navigation between differences of side which was focused last.
+     *
+     * @return difference navigation
+     */
+    @Nonnull
+    public PrevNextDifferenceIterable getDifferenceIterable() {
+        return new PrevNextDifferenceIterable() {
+            @Override
+            public boolean canGoPrev() {
+                return findDifference(false) >= 0;
+            }
+
+            @Override
+            public boolean canGoNext() {
+                return findDifference(true) >= 0;
+            }
+
+            @Override
+            public void goPrev() {
+                goToDifference(false);
+            }
+
+            @Override
+            public void goNext() {
+                goToDifference(true);
+            }
+        };
+    }
+
+    private long findDifference(boolean next) {
+        DiffRangeIndex rangeIndex = leftSideActive ? leftRangeIndex : rightRangeIndex;
+        if (rangeIndex == null) {
+            return -1;
+        }
+
+        SectCodeArea codeArea = leftSideActive ? diffPanel.getLeftCodeArea() : diffPanel.getRightCodeArea();
+        long caretPosition = codeArea.getActiveCaretPosition().getDataPosition();
+        return next ? rangeIndex.getNextDifference(caretPosition) : rangeIndex.getPreviousDifference(caretPosition);
+    }
+
+    private void goToDifference(boolean next) {
+        long position = findDifference(next);
+        if (position < 0) {
+            return;
+        }
+
+        SectCodeArea codeArea = leftSideActive ? diffPanel.getLeftCodeArea() : diffPanel.getRightCodeArea();
+        SectCodeArea otherCodeArea = leftSideActive ? diffPanel.getRightCodeArea() : diffPanel.getLeftCodeArea();
+        codeArea.setActiveCaretPosition(position);
+        codeArea.revealCursor();
+        otherCodeArea.setActiveCaretPosition(diffResult.mapPosition(position, leftSideActive));
+        otherCodeArea.revealCursor();
+    }
+
+    /**
+     * Reads data of diff content.
+     * <p>
+     * Can be called outside of event dispatch thread.
+     *
+     * @param request diff request
+     * @param index index of content
+     * @return content data or null if not available
+     */
     @Nullable
-    private static BinaryData getDiffBinaryData(ContentDiffRequest request, int index) {
+    public static byte[] getDiffContentData(ContentDiffRequest request, int index) {
         List<DiffContent> contents = request.getContents();
         if (contents.size() > index) {
             DiffContent diffContent = contents.get(index);
             if (diffContent instanceof FileContent) {
-                PagedData pageData = new PagedData();
                 try {
-                    byte[] fileContent = ((FileContent) diffContent).getFile().contentsToByteArray();
-                    pageData.insert(0, fileContent);
-                    return pageData;
+                    return ((FileContent) diffContent).getFile().contentsToByteArray();
                 } catch (IOException e) {
                     throw new IllegalStateException("Unable to read file content", e);
                 }
             }
             if (diffContent instanceof DocumentContent) {
                 Document document = ((DocumentContent) diffContent).getDocument();
-                return new ByteArrayData(document.getText().getBytes(StandardCharsets.UTF_8));
+                String text = ApplicationManager.getApplication().runReadAction((Computable<String>) document::getText);
+                return text.getBytes(StandardCharsets.UTF_8);
             }
         }
 
@@ -335,12 +533,14 @@ public class BinedDiffPanel extends JBPanel {
         leftCodeArea.addFocusListener(new FocusAdapter() {
             @Override
             public void focusGained(FocusEvent e) {
+                leftSideActive = true;
                 updateBinaryStatus(leftCodeArea);
             }
         });
         rightCodeArea.addFocusListener(new FocusAdapter() {
             @Override
             public void focusGained(FocusEvent e) {
+                leftSideActive = false;
                 updateBinaryStatus(rightCodeArea);
             }
         });
@@ -0,0 +1,245 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.intellij.debug;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.logging.Logger;
+
+/**
+ * Tests for primitive codec.
+ * <p>
+ * Encoded values are compared with big endian output of data output stream
+ * and its per value reversal for little endian.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class PrimitiveCodecTest {
+
+    private static final Logger LOG = Logger.getLogger(PrimitiveCodecTest.class.getName());
+    private static final int VALUES_COUNT = 1024;
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int THROUGHPUT_ITERATIONS = 2000;
+
+    private final Random random = new Random(34);
+
+    @Test
+    public void testShorts() throws IOException {
+        short[] values = new short[VALUES_COUNT];
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(expected);
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (short) random.nextInt();
+            output.writeShort(values[i]);
+        }
+
+        for (PrimitiveCodec codec : new PrimitiveCodec[]{PrimitiveCodec.BIG_ENDIAN, PrimitiveCodec.LITTLE_ENDIAN}) {
+            byte[] target = new byte[values.length * Short.BYTES];
+            codec.putShorts(values, values.length, target, 0);
+            Assert.assertArrayEquals(expectedOrder(expected.toByteArray(), Short.BYTES, codec), target);
+            Assert.assertArrayEquals(expectedOrder(copyValue(expected.toByteArray(), 0, Short.BYTES), Short.BYTES, codec), codec.encodeShort(values[0]));
+        }
+    }
+
+    @Test
+    public void testChars() throws IOException {
+        char[] values = new char[VALUES_COUNT];
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(expected);
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (char) random.nextInt();
+            output.writeChar(values[i]);
+        }
+
+        for (PrimitiveCodec codec : new PrimitiveCodec[]{PrimitiveCodec.BIG_ENDIAN, PrimitiveCodec.LITTLE_ENDIAN}) {
+            byte[] target = new byte[values.length * Character.BYTES];
+            codec.putChars(values, values.length, target, 0);
+            Assert.assertArrayEquals(expectedOrder(expected.toByteArray(), Character.BYTES, codec), target);
+            Assert.assertArrayEquals(expectedOrder(copyValue(expected.toByteArray(), 0, Character.BYTES), Character.BYTES, codec), codec.encodeChar(values[0]));
+        }
+    }
+
+    @Test
+    public void testInts() throws IOException {
+        int[] values = new int[VALUES_COUNT];
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(expected);
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextInt();
+            output.writeInt(values[i]);
+        }
+
+        for (PrimitiveCodec codec : new PrimitiveCodec[]{PrimitiveCodec.BIG_ENDIAN, PrimitiveCodec.LITTLE_ENDIAN}) {
+            byte[] target = new byte[values.length * Integer.BYTES];
+            codec.putInts(values, values.length, target, 0);
+            Assert.assertArrayEquals(expectedOrder(expected.toByteArray(), Integer.BYTES, codec), target);
+            Assert.assertArrayEquals(expectedOrder(copyValue(expected.toByteArray(), 0, Integer.BYTES), Integer.BYTES, codec), codec.encodeInt(values[0]));
+        }
+    }
+
+    @Test
+    public void testLongs() throws IOException {
+        long[] values = new long[VALUES_COUNT];
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(expected);
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextLong();
+            output.writeLong(values[i]);
+        }
+
+        for (PrimitiveCodec codec : new PrimitiveCodec[]{PrimitiveCodec.BIG_ENDIAN, PrimitiveCodec.LITTLE_ENDIAN}) {
+            byte[] target = new byte[values.length * Long.BYTES];
+            codec.putLongs(values, values.length, target, 0);
+            Assert.assertArrayEquals(expectedOrder(expected.toByteArray(), Long.BYTES, codec), target);
+            Assert.assertArrayEquals(expectedOrder(copyValue(expected.toByteArray(), 0, Long.BYTES), Long.BYTES, codec), codec.encodeLong(values[0]));
+        }
+    }
+
+    @Test
+    public void testFloats() throws IOException {
+        float[] values = new float[VALUES_COUNT];
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(expected);
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextFloat() * random.nextInt();
+            output.writeFloat(values[i]);
+        }
+
+        for (PrimitiveCodec codec : new PrimitiveCodec[]{PrimitiveCodec.BIG_ENDIAN, PrimitiveCodec.LITTLE_ENDIAN}) {
+            byte[] target = new byte[values.length * Float.BYTES];
+            codec.putFloats(values, values.length, target, 0);
+            Assert.assertArrayEquals(expectedOrder(expected.toByteArray(), Float.BYTES, codec), target);
+            Assert.assertArrayEquals(expectedOrder(copyValue(expected.toByteArray(), 0, Float.BYTES), Float.BYTES, codec), codec.encodeFloat(values[0]));
+        }
+    }
+
+    @Test
+    public void testDoubles() throws IOException {
+        double[] values = new double[VALUES_COUNT];
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(expected);
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextDouble() * random.nextLong();
+            output.writeDouble(values[i]);
+        }
+
+        for (PrimitiveCodec codec : new PrimitiveCodec[]{PrimitiveCodec.BIG_ENDIAN, PrimitiveCodec.LITTLE_ENDIAN}) {
+            byte[] target = new byte[values.length * Double.BYTES];
+            codec.putDoubles(values, values.length, target, 0);
+            Assert.assertArrayEquals(expectedOrder(expected.toByteArray(), Double.BYTES, codec), target);
+            Assert.assertArrayEquals(expectedOrder(copyValue(expected.toByteArray(), 0, Double.BYTES), Double.BYTES, codec), codec.encodeDouble(values[0]));
+        }
+    }
+
+    @Test
+    public void testPutValue() throws IOException {
+        long value = random.nextLong();
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(expected);
+        output.writeLong(value);
+        byte[] expectedData = expected.toByteArray();
+
+        for (PrimitiveCodec codec : new PrimitiveCodec[]{PrimitiveCodec.BIG_ENDIAN, PrimitiveCodec.LITTLE_ENDIAN}) {
+            for (int byteSize : new int[]{Byte.BYTES, Short.BYTES, Integer.BYTES, Long.BYTES}) {
+                byte[] target = new byte[byteSize + 1];
+                codec.putValue(value, byteSize, target, 1);
+                byte[] expectedValue = expectedOrder(copyValue(expectedData, Long.BYTES - byteSize, byteSize), byteSize, codec);
+                Assert.assertArrayEquals(expectedValue, copyValue(target, 1, byteSize));
+                Assert.assertEquals(0, target[0]);
+            }
+        }
+    }
+
+    @Test
+    public void testPutWithOffset() {
+        int[] values = {0x01020304, 0x05060708};
+        byte[] target = new byte[10];
+        PrimitiveCodec.LITTLE_ENDIAN.putInts(values, 1, target, 2);
+        Assert.assertArrayEquals(new byte[]{0, 0, 4, 3, 2, 1, 0, 0, 0, 0}, target);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsupportedValueSize() {
+        PrimitiveCodec.BIG_ENDIAN.putValue(0, 3, new byte[3], 0);
+    }
+
+    @Test
+    public void testIntsThroughput() {
+        int[] values = new int[VALUES_COUNT];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextInt();
+        }
+        byte[] codecTarget = new byte[values.length * Integer.BYTES];
+        byte[] shiftTarget = new byte[values.length * Integer.BYTES];
+
+        long codecTime = 0;
+        long shiftTime = 0;
+        for (int round = 0; round <= WARMUP_ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < THROUGHPUT_ITERATIONS; i++) {
+                PrimitiveCodec.BIG_ENDIAN.putInts(values, values.length, codecTarget, 0);
+            }
+            codecTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < THROUGHPUT_ITERATIONS; i++) {
+                // Per value encoding as performed before introduction of the codec
+                for (int j = 0; j < values.length; j++) {
+                    int offset = j * Integer.BYTES;
+                    shiftTarget[offset] = (byte) (values[j] >> 24);
+                    shiftTarget[offset + 1] = (byte) ((values[j] >> 16) & 0xff);
+                    shiftTarget[offset + 2] = (byte) ((values[j] >> 8) & 0xff);
+                    shiftTarget[offset + 3] = (byte) (values[j] & 0xff);
+                }
+            }
+            shiftTime = System.nanoTime() - start;
+        }
+
+        Assert.assertArrayEquals(shiftTarget, codecTarget);
+        double megabytes = (double) THROUGHPUT_ITERATIONS * codecTarget.length / (1024 * 1024);
+        LOG.info(String.format("Int encoding throughput: codec %.1f MiB/s, per value shifts %.1f MiB/s", megabytes / (codecTime / 1e9), megabytes / (shiftTime / 1e9)));
+    }
+
+    @Nonnull
+    private static byte[] expectedOrder(byte[] bigEndianData, int valueSize, PrimitiveCodec codec) {
+        if (codec == PrimitiveCodec.BIG_ENDIAN) {
+            return bigEndianData;
+        }
+
+        byte[] result = new byte[bigEndianData.length];
+        for (int offset = 0; offset < bigEndianData.length; offset += valueSize) {
+            for (int i = 0; i < valueSize; i++) {
+                result[offset + i] = bigEndianData[offset + valueSize - 1 - i];
+            }
+        }
+        return result;
+    }
+
+    @Nonnull
+    private static byte[] copyValue(byte[] data, int offset, int length) {
+        byte[] result = new byte[length];
+        System.arraycopy(data, offset, result, 0, length);
+        return result;
+    }
+}
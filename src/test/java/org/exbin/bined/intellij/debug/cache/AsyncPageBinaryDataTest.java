@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.intellij.debug.cache;
+
+import org.exbin.framework.bined.objectdata.PageProvider;
+import org.exbin.framework.bined.objectdata.PageProviderBinaryData;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests for asynchronous page binary data.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class AsyncPageBinaryDataTest {
+
+    private final ExecutorService fetchExecutor = Executors.newSingleThreadExecutor();
+
+    @After
+    public void tearDown() {
+        fetchExecutor.shutdownNow();
+    }
+
+    @Test
+    public void testSlowFetchAcrossRefresh() throws InterruptedException {
+        SlowPageProvider pageProvider = new SlowPageProvider();
+        PageCache pageCache = new PageCache(PageCache.DEFAULT_CAPACITY, null);
+        AsyncPageBinaryData data = new AsyncPageBinaryData(new CachedPageProvider(pageProvider, pageCache, null), fetchExecutor);
+        data.setRefreshable(true);
+
+        // Page read before debugger step is still running when data are refreshed
+        Assert.assertNull(data.getLoadedPage(0));
+        Assert.assertTrue(pageProvider.fetchStarted.await(5, TimeUnit.SECONDS));
+        data.refresh();
+        pageProvider.version.set(2);
+        pageProvider.releaseFetch.countDown();
+        Assert.assertTrue(pageProvider.fetchFinished.await(5, TimeUnit.SECONDS));
+
+        Assert.assertNull(pageCache.get(0));
+        Assert.assertFalse(data.isLoaded(0));
+        Assert.assertEquals(2, data.fetchPage(0)[0]);
+        Assert.assertEquals(2, data.getByte(0));
+        Assert.assertFalse(data.isChanged(0));
+        data.dispose();
+    }
+
+    @Test
+    public void testChangesAfterRefresh() {
+        SlowPageProvider pageProvider = new SlowPageProvider();
+        pageProvider.releaseFetch.countDown();
+        AsyncPageBinaryData data = new AsyncPageBinaryData(new CachedPageProvider(pageProvider, new PageCache(PageCache.DEFAULT_CAPACITY, null), null), fetchExecutor);
+        data.setRefreshable(true);
+
+        Assert.assertEquals(1, data.fetchPage(0)[0]);
+        data.refresh();
+        pageProvider.version.set(2);
+        // Previous content is shown until page is fetched again
+        Assert.assertEquals(1, data.getByte(0));
+        Assert.assertEquals(2, data.fetchPage(0)[0]);
+        Assert.assertEquals(2, data.getByte(0));
+        Assert.assertTrue(data.isChanged(0));
+        data.dispose();
+    }
+
+    @Test
+    public void testStalePageIsNotCached() {
+        PageCache pageCache = new PageCache(PageCache.DEFAULT_CAPACITY, null);
+        long generation = pageCache.getGeneration();
+        pageCache.clear();
+        Assert.assertFalse(pageCache.putIfGeneration(generation, 0, new byte[1]));
+        Assert.assertFalse(pageCache.contains(0));
+        Assert.assertTrue(pageCache.putIfGeneration(pageCache.getGeneration(), 0, new byte[1]));
+        Assert.assertTrue(pageCache.contains(0));
+    }
+
+    /**
+     * Page provider returning pages filled with current version, fetching
+     * waits until released.
+     */
+    private static class SlowPageProvider implements PageProvider {
+
+        private final AtomicInteger version = new AtomicInteger(1);
+        private final CountDownLatch fetchStarted = new CountDownLatch(1);
+        private final CountDownLatch releaseFetch = new CountDownLatch(1);
+        private final CountDownLatch fetchFinished = new CountDownLatch(1);
+
+        @Nonnull
+        @Override
+        public byte[] getPage(long pageIndex) {
+            byte[] page = new byte[PageProviderBinaryData.PAGE_SIZE];
+            Arrays.fill(page, (byte) version.get());
+            fetchStarted.countDown();
+            // Debugger calls don't react to interruption
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    releaseFetch.await();
+                    break;
+                } catch (InterruptedException ex) {
+                    interrupted = true;
+                }
+            }
+            fetchFinished.countDown();
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            return page;
+        }
+
+        @Override
+        public long getDocumentSize() {
+            return PageProviderBinaryData.PAGE_SIZE * 2L;
+        }
+    }
+}
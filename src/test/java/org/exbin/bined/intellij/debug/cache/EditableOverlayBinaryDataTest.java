@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.intellij.debug.cache;
+
+import org.exbin.framework.bined.objectdata.PageProvider;
+import org.exbin.framework.bined.objectdata.PageProviderBinaryData;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Tests for editable overlay of asynchronous page data.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class EditableOverlayBinaryDataTest {
+
+    private final ExecutorService fetchExecutor = Executors.newSingleThreadExecutor();
+    private final List<long[]> writtenRanges = new ArrayList<>();
+
+    @After
+    public void tearDown() {
+        fetchExecutor.shutdownNow();
+    }
+
+    @Test
+    public void testEditOfLoadedPage() {
+        EditableOverlayBinaryData data = createData();
+        data.getSourceData().fetchPage(0);
+
+        data.setByte(5, (byte) 7);
+        Assert.assertEquals(7, data.getByte(5));
+        Assert.assertTrue(data.isModified());
+
+        List<Double> progress = new ArrayList<>();
+        data.writeChanges(progress::add);
+        Assert.assertEquals(Collections.singletonList(1.0), progress);
+        Assert.assertEquals(1, writtenRanges.size());
+        // Written range is aligned to value size
+        Assert.assertArrayEquals(new long[]{4, 4}, writtenRanges.get(0));
+        Assert.assertFalse(data.isModified());
+        Assert.assertEquals(7, data.getSourceData().getByte(5));
+    }
+
+    @Test
+    public void testEditOfNotLoadedPageIsIgnored() {
+        EditableOverlayBinaryData data = createData();
+
+        data.setByte(PageProviderBinaryData.PAGE_SIZE + 1, (byte) 7);
+        Assert.assertFalse(data.isModified());
+        // Page loading was requested instead of waiting for it
+        Assert.assertEquals(1, data.getSourceData().loadPage(1).join()[1]);
+    }
+
+    @Test
+    public void testRefreshDropsModifications() {
+        EditableOverlayBinaryData data = createData();
+        data.getSourceData().setRefreshable(true);
+        data.getSourceData().fetchPage(0);
+        data.setByte(0, (byte) 7);
+
+        data.refresh();
+        Assert.assertFalse(data.isModified());
+        // Previous page is not used as original content
+        data.setByte(0, (byte) 7);
+        Assert.assertFalse(data.isModified());
+        Assert.assertEquals(1, data.getByte(0));
+    }
+
+    @Test
+    public void testSearchOfModifiedData() {
+        EditableOverlayBinaryData data = createData();
+        data.getSourceData().fetchPage(1);
+        data.replace(PageProviderBinaryData.PAGE_SIZE + 10, new byte[]{5, 6});
+
+        List<Long> matches = new ArrayList<>();
+        boolean[] completed = new boolean[1];
+        new StreamingPageSearch(data, new byte[]{5, 6}, new StreamingPageSearch.MatchListener() {
+            @Override
+            public void matchFound(long position) {
+                matches.add(position);
+            }
+
+            @Override
+            public void searchFinished(boolean searchCompleted) {
+                completed[0] = searchCompleted;
+            }
+        }).run();
+        Assert.assertTrue(completed[0]);
+        Assert.assertEquals(Collections.singletonList(PageProviderBinaryData.PAGE_SIZE + 10L), matches);
+    }
+
+    @Nonnull
+    private EditableOverlayBinaryData createData() {
+        PageProvider pageProvider = new PageProvider() {
+            @Nonnull
+            @Override
+            public byte[] getPage(long pageIndex) {
+                byte[] page = new byte[PageProviderBinaryData.PAGE_SIZE];
+                Arrays.fill(page, (byte) 1);
+                return page;
+            }
+
+            @Override
+            public long getDocumentSize() {
+                return PageProviderBinaryData.PAGE_SIZE * 2L;
+            }
+        };
+        AsyncPageBinaryData sourceData = new AsyncPageBinaryData(new CachedPageProvider(pageProvider, new PageCache(PageCache.DEFAULT_CAPACITY, null), null), fetchExecutor);
+        return new EditableOverlayBinaryData(sourceData, 4, (position, values) -> writtenRanges.add(new long[]{position, values.length}));
+    }
+}
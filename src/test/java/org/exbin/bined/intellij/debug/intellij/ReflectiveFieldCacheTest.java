@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.intellij.debug.intellij;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+
+/**
+ * Tests for reflective field cache.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class ReflectiveFieldCacheTest {
+
+    @Test
+    public void testFieldValue() {
+        SampleValue value = new SampleValue("base", "child");
+        Assert.assertEquals("child", ReflectiveFieldCache.getFieldValue(value, "childField"));
+        Assert.assertEquals("base", ReflectiveFieldCache.getFieldValue(value, "baseField"));
+        Assert.assertNull(ReflectiveFieldCache.getFieldValue(value, "missingField"));
+        Assert.assertNull(ReflectiveFieldCache.getFieldValue(null, "childField"));
+    }
+
+    @Test
+    public void testGetterIsCached() {
+        Assert.assertSame(ReflectiveFieldCache.getGetter(SampleValue.class, "baseField"), ReflectiveFieldCache.getGetter(SampleValue.class, "baseField"));
+        Assert.assertNull(ReflectiveFieldCache.getGetter(SampleValue.class, "missingField"));
+    }
+
+    private static class BaseValue {
+
+        private final String baseField;
+
+        BaseValue(String baseField) {
+            this.baseField = baseField;
+        }
+    }
+
+    private static class SampleValue extends BaseValue {
+
+        private final String childField;
+
+        SampleValue(String baseField, String childField) {
+            super(baseField);
+            this.childField = childField;
+        }
+    }
+}
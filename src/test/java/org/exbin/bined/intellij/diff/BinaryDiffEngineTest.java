@@ -0,0 +1,190 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.intellij.diff;
+
+import com.intellij.openapi.progress.EmptyProgressIndicator;
+import com.intellij.openapi.progress.ProgressIndicator;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Tests for binary diff engine.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class BinaryDiffEngineTest {
+
+    private final ProgressIndicator indicator = new EmptyProgressIndicator();
+
+    @Test
+    public void testEmptyData() {
+        BinaryDiffResult result = BinaryDiffEngine.compute(new byte[0], new byte[0], indicator);
+        Assert.assertEquals(0, result.getMatchesCount());
+        Assert.assertEquals(0, result.getLeftSize());
+        Assert.assertEquals(0, result.getRightSize());
+    }
+
+    @Test
+    public void testIdenticalData() {
+        byte[] data = randomData(new Random(1), 100_000, 256);
+        BinaryDiffResult result = BinaryDiffEngine.compute(data, data.clone(), indicator);
+        checkResult(result, data, data);
+        Assert.assertEquals(data.length, matchedLength(result));
+    }
+
+    @Test
+    public void testInsertion() {
+        Random random = new Random(2);
+        byte[] left = randomData(random, 100_000, 256);
+        byte[] inserted = randomData(random, 100, 256);
+        byte[] right = new byte[left.length + inserted.length];
+        System.arraycopy(left, 0, right, 0, 50_000);
+        System.arraycopy(inserted, 0, right, 50_000, inserted.length);
+        System.arraycopy(left, 50_000, right, 50_000 + inserted.length, left.length - 50_000);
+
+        BinaryDiffResult result = BinaryDiffEngine.compute(left, right, indicator);
+        checkResult(result, left, right);
+        // Bytes after insertion stay aligned instead of being reported as changed
+        Assert.assertTrue(matchedLength(result) >= left.length - inserted.length);
+        Assert.assertEquals(50_000 + inserted.length + 1, result.mapPosition(50_001, true));
+    }
+
+    @Test
+    public void testRemoval() {
+        byte[] left = randomData(new Random(3), 100_000, 256);
+        byte[] right = new byte[left.length - 1000];
+        System.arraycopy(left, 0, right, 0, 20_000);
+        System.arraycopy(left, 21_000, right, 20_000, right.length - 20_000);
+
+        BinaryDiffResult result = BinaryDiffEngine.compute(left, right, indicator);
+        checkResult(result, left, right);
+        Assert.assertTrue(matchedLength(result) >= right.length - BinaryDiffEngine.MIN_BLOCK_SIZE * 2);
+    }
+
+    @Test
+    public void testRandomSmallEdits() {
+        Random random = new Random(4);
+        for (int iteration = 0; iteration < 2000; iteration++) {
+            byte[] left = randomData(random, random.nextInt(300), random.nextBoolean() ? 3 : 256);
+            byte[] right = mutate(left, random, 5);
+            checkResult(BinaryDiffEngine.compute(left, right, indicator), left, right);
+        }
+    }
+
+    @Test
+    public void testRandomLargeEdits() {
+        Random random = new Random(5);
+        for (int iteration = 0; iteration < 50; iteration++) {
+            byte[] left = randomData(random, random.nextInt(200_000), random.nextBoolean() ? 3 : 256);
+            byte[] right = mutate(left, random, 50);
+            checkResult(BinaryDiffEngine.compute(left, right, indicator), left, right);
+        }
+    }
+
+    /**
+     * Checks that matches are ordered, non-overlapping, within data and
+     * contain equal bytes on both sides.
+     */
+    static void checkResult(BinaryDiffResult result, byte[] left, byte[] right) {
+        Assert.assertEquals(left.length, result.getLeftSize());
+        Assert.assertEquals(right.length, result.getRightSize());
+        long leftEnd = 0;
+        long rightEnd = 0;
+        for (int i = 0; i < result.getMatchesCount(); i++) {
+            long leftStart = result.getLeftStart(i);
+            long rightStart = result.getRightStart(i);
+            long length = result.getLength(i);
+            Assert.assertTrue("Match " + i + " out of order", leftStart >= leftEnd && rightStart >= rightEnd);
+            Assert.assertTrue("Match " + i + " out of bounds", length > 0 && leftStart + length <= left.length && rightStart + length <= right.length);
+            Assert.assertTrue("Match " + i + " of different data", Arrays.equals(left, (int) leftStart, (int) (leftStart + length), right, (int) rightStart, (int) (rightStart + length)));
+            leftEnd = leftStart + length;
+            rightEnd = rightStart + length;
+        }
+    }
+
+    static long matchedLength(BinaryDiffResult result) {
+        long length = 0;
+        for (int i = 0; i < result.getMatchesCount(); i++) {
+            length += result.getLength(i);
+        }
+        return length;
+    }
+
+    @Nonnull
+    static byte[] randomData(Random random, int length, int valuesCount) {
+        byte[] data = new byte[length];
+        if (valuesCount == 256) {
+            random.nextBytes(data);
+        } else {
+            for (int i = 0; i < length; i++) {
+                data[i] = (byte) random.nextInt(valuesCount);
+            }
+        }
+        return data;
+    }
+
+    /**
+     * Applies random insertions, removals and replacements to copy of data.
+     */
+    @Nonnull
+    static byte[] mutate(byte[] source, Random random, int maxEdits) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        int editsCount = random.nextInt(maxEdits + 1);
+        int[] editPositions = new int[editsCount];
+        for (int i = 0; i < editsCount; i++) {
+            editPositions[i] = source.length == 0 ? 0 : random.nextInt(source.length);
+        }
+        Arrays.sort(editPositions);
+
+        int position = 0;
+        for (int editPosition : editPositions) {
+            if (editPosition < position) {
+                continue;
+            }
+            output.write(source, position, editPosition - position);
+            position = editPosition;
+            int length = 1 + random.nextInt(20);
+            switch (random.nextInt(3)) {
+                case 0: {
+                    for (int i = 0; i < length; i++) {
+                        output.write(random.nextInt());
+                    }
+                    break;
+                }
+                case 1: {
+                    position = Math.min(source.length, position + length);
+                    break;
+                }
+                default: {
+                    for (int i = 0; i < length; i++) {
+                        output.write(random.nextInt());
+                    }
+                    position = Math.min(source.length, position + length);
+                    break;
+                }
+            }
+        }
+        output.write(source, position, source.length - position);
+        return output.toByteArray();
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright (C) ExBin Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.exbin.bined.intellij.diff;
+
+import com.intellij.openapi.progress.EmptyProgressIndicator;
+import com.intellij.openapi.progress.ProgressIndicator;
+import org.exbin.auxiliary.binary_data.EditableBinaryData;
+import org.exbin.auxiliary.binary_data.paged.PagedData;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.util.Random;
+
+/**
+ * Tests for difference range index and its incremental updates.
+ *
+ * @author ExBin Project (https://exbin.org)
+ */
+@ParametersAreNonnullByDefault
+public class DiffRangeIndexTest {
+
+    private final ProgressIndicator indicator = new EmptyProgressIndicator();
+
+    @Test
+    public void testIncrementalUpdates() {
+        Random random = new Random(7);
+        for (int iteration = 0; iteration < 1500; iteration++) {
+            byte[] left = BinaryDiffEngineTest.randomData(random, random.nextInt(400), iteration % 2 == 0 ? 4 : 256);
+            checkEdits(random, left, BinaryDiffEngineTest.mutate(left, random, 10));
+        }
+    }
+
+    @Test
+    public void testIncrementalUpdatesOverChunks() {
+        Random random = new Random(8);
+        for (int iteration = 0; iteration < 5; iteration++) {
+            byte[] left = BinaryDiffEngineTest.randomData(random, (int) DiffRangeIndex.CHUNK_SIZE * 2 + random.nextInt(1_000_000), iteration % 2 == 0 ? 4 : 256);
+            checkEdits(random, left, BinaryDiffEngineTest.mutate(left, random, 10));
+        }
+    }
+
+    @Test
+    public void testLargeGapRefreshedLater() {
+        Random random = new Random(10);
+        int length = (int) DiffRangeIndex.CHUNK_SIZE * 3;
+        byte[] left = BinaryDiffEngineTest.randomData(random, length, 256);
+        byte[] right = BinaryDiffEngineTest.randomData(random, length, 256);
+        BinaryDiffResult result = BinaryDiffEngine.compute(left, right, indicator);
+        EditableBinaryData leftData = createData(left);
+        EditableBinaryData rightData = createData(right);
+        DiffIndexUpdater indexUpdater = new DiffIndexUpdater(result, leftData, rightData,
+                DiffRangeIndex.build(result, leftData, rightData, true, indicator), DiffRangeIndex.build(result, leftData, rightData, false, indicator));
+
+        // Insertion changes classification of the whole gap, only touched chunk is recomputed immediately
+        leftData.insert(length / 2, new byte[]{1});
+        indexUpdater.dataModified(true, length / 2, 0, 1);
+        Assert.assertTrue(indexUpdater.hasStaleRanges());
+        int refreshCount = 0;
+        while (indexUpdater.hasStaleRanges()) {
+            indexUpdater.refreshStaleChunk();
+            refreshCount++;
+        }
+        Assert.assertTrue(refreshCount > 1);
+        assertEquals(DiffRangeIndex.build(result, leftData, rightData, true, indicator), indexUpdater.getLeftRangeIndex());
+        assertEquals(DiffRangeIndex.build(result, leftData, rightData, false, indicator), indexUpdater.getRightRangeIndex());
+    }
+
+    @Test
+    public void testNavigation() {
+        Random random = new Random(9);
+        byte[] left = BinaryDiffEngineTest.randomData(random, 100_000, 256);
+        byte[] right = BinaryDiffEngineTest.mutate(left, random, 30);
+        BinaryDiffResult result = BinaryDiffEngine.compute(left, right, indicator);
+        DiffRangeIndex rangeIndex = DiffRangeIndex.build(result, createData(left), createData(right), true, indicator);
+        for (int i = 0; i < 200; i++) {
+            long position = random.nextInt(left.length);
+            long expectedNext = -1;
+            long expectedPrevious = -1;
+            for (int rangeIndexPos = 0; rangeIndexPos < rangeIndex.getRangesCount(); rangeIndexPos++) {
+                long start = rangeIndex.getStart(rangeIndexPos);
+                if (start < position) {
+                    expectedPrevious = start;
+                } else if (start > position && expectedNext < 0) {
+                    expectedNext = start;
+                }
+            }
+            Assert.assertEquals(expectedNext, rangeIndex.getNextDifference(position));
+            Assert.assertEquals(expectedPrevious, rangeIndex.getPreviousDifference(position));
+        }
+    }
+
+    /**
+     * Applies random edits to both sides and checks that incrementally updated
+     * indexes equal to indexes built from scratch once stale ranges are
+     * recomputed.
+     */
+    private void checkEdits(Random random, byte[] left, byte[] right) {
+        BinaryDiffResult result = BinaryDiffEngine.compute(left, right, indicator);
+        EditableBinaryData leftData = createData(left);
+        EditableBinaryData rightData = createData(right);
+        DiffRangeIndex leftRangeIndex = DiffRangeIndex.build(result, leftData, rightData, true, indicator);
+        DiffRangeIndex rightRangeIndex = DiffRangeIndex.build(result, leftData, rightData, false, indicator);
+        DiffIndexUpdater indexUpdater = new DiffIndexUpdater(result, leftData, rightData, leftRangeIndex, rightRangeIndex);
+        for (int edit = 0; edit < 5; edit++) {
+            boolean leftSide = random.nextBoolean();
+            EditableBinaryData data = leftSide ? leftData : rightData;
+            long dataSize = data.getDataSize();
+            long position = (long) (random.nextDouble() * (dataSize + 1));
+            long oldLength;
+            long newLength;
+            switch (random.nextInt(3)) {
+                case 0: {
+                    oldLength = Math.min(dataSize - position, 1 + random.nextInt(10));
+                    newLength = oldLength;
+                    data.replace(position, BinaryDiffEngineTest.randomData(random, (int) oldLength, 4));
+                    break;
+                }
+                case 1: {
+                    oldLength = 0;
+                    newLength = 1 + random.nextInt(10);
+                    data.insert(position, BinaryDiffEngineTest.randomData(random, (int) newLength, 4));
+                    break;
+                }
+                default: {
+                    oldLength = Math.min(dataSize - position, 1 + random.nextInt(10));
+                    newLength = 0;
+                    data.remove(position, oldLength);
+                    break;
+                }
+            }
+            if (oldLength == 0 && newLength == 0) {
+                continue;
+            }
+
+            indexUpdater.dataModified(leftSide, position, oldLength, newLength);
+            checkAlignment(result, leftData.getDataSize(), rightData.getDataSize());
+            if (random.nextInt(3) == 0 && edit < 4) {
+                // Further edits are applied before stale ranges are recomputed
+                continue;
+            }
+
+            while (indexUpdater.hasStaleRanges()) {
+                indexUpdater.refreshStaleChunk();
+            }
+            assertEquals(DiffRangeIndex.build(result, leftData, rightData, true, indicator), indexUpdater.getLeftRangeIndex());
+            assertEquals(DiffRangeIndex.build(result, leftData, rightData, false, indicator), indexUpdater.getRightRangeIndex());
+        }
+    }
+
+    /**
+     * Checks that adjusted matches are ordered, non-overlapping and within
+     * data, content of matches can differ after overwrite.
+     */
+    private static void checkAlignment(BinaryDiffResult result, long leftSize, long rightSize) {
+        Assert.assertEquals(leftSize, result.getLeftSize());
+        Assert.assertEquals(rightSize, result.getRightSize());
+        long leftEnd = 0;
+        long rightEnd = 0;
+        for (int i = 0; i < result.getMatchesCount(); i++) {
+            long leftStart = result.getLeftStart(i);
+            long rightStart = result.getRightStart(i);
+            long length = result.getLength(i);
+            Assert.assertTrue("Match " + i + " out of order", leftStart >= leftEnd && rightStart >= rightEnd);
+            Assert.assertTrue("Match " + i + " out of bounds", length > 0 && leftStart + length <= leftSize && rightStart + length <= rightSize);
+            leftEnd = leftStart + length;
+            rightEnd = rightStart + length;
+        }
+    }
+
+    private static void assertEquals(DiffRangeIndex expected, DiffRangeIndex actual) {
+        Assert.assertEquals(expected.getRangesCount(), actual.getRangesCount());
+        for (int i = 0; i < expected.getRangesCount(); i++) {
+            Assert.assertEquals(expected.getStart(i), actual.getStart(i));
+            Assert.assertEquals(expected.getEnd(i), actual.getEnd(i));
+            Assert.assertEquals(expected.getType(i), actual.getType(i));
+        }
+    }
+
+    @Nonnull
+    private static EditableBinaryData createData(byte[] content) {
+        PagedData data = new PagedData();
+        data.insert(0, content);
+        return data;
+    }
+}